@@ -0,0 +1,69 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.config.JwtProperties;
+import cn.cuckoox.wisediet.security.JwtAuthenticationFilter;
+import cn.cuckoox.wisediet.security.VerifiedTokenCache;
+import cn.cuckoox.wisediet.service.JwtService;
+import cn.cuckoox.wisediet.service.SessionNearCache;
+import cn.cuckoox.wisediet.service.SessionPrincipal;
+import cn.cuckoox.wisediet.service.SessionStore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * 已登录请求经过 JwtAuthenticationFilter 的完整路径：会话由近端缓存命中（不访问 Redis），
+ * principal 字段完整（不查 users 表）。tokenCacheSize=0 时每次都重新验签。
+ * 每次调用都新建 exchange，这部分开销计入结果。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthFilterBenchmark {
+
+    @Param({"10000", "0"})
+    public int tokenCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private MockServerHttpRequest request;
+    private final WebFilterChain chain = exchange -> ReactiveSecurityContextHolder.getContext().then();
+
+    @Setup
+    public void setUp() {
+        JwtProperties jwtProperties = Fixtures.jwtProperties(tokenCacheSize);
+        JwtService jwtService = new JwtService(jwtProperties);
+        SessionNearCache nearCache = new SessionNearCache(Fixtures.sessionProperties());
+        SessionStore sessionStore = new SessionStore(null, nearCache, Fixtures.sessionProperties());
+        String token = jwtService.createAccessToken(42L).block();
+        nearCache.put(jwtService.extractJti(token), new SessionPrincipal(42L, "bench@test.com", 0, "USER"));
+
+        filter = new JwtAuthenticationFilter(jwtService, sessionStore, null, new VerifiedTokenCache(jwtProperties));
+        request = MockServerHttpRequest.get("/api/today/recommendations")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @Benchmark
+    public MockServerWebExchange authenticate() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+}
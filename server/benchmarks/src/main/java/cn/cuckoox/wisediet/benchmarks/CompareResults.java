@@ -0,0 +1,79 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 对比两次 JMH 运行的 JSON 结果（-rf json）：
+ * {@code java -cp target/benchmarks.jar cn.cuckoox.wisediet.benchmarks.CompareResults baseline.json current.json [阈值%]}
+ * 任一基准变差超过阈值（默认 10%）且超出两次误差之和时以退出码 1 结束，便于接入 CI。
+ */
+public final class CompareResults {
+
+    record Score(String mode, double score, double error, String unit) {
+
+        /**
+         * 变差比例：吞吐量越高越好，其余模式（平均时间等）越低越好。
+         */
+        double regressionAgainst(Score baseline) {
+            double change = (score - baseline.score) / baseline.score;
+            return "thrpt".equals(mode) ? -change : change;
+        }
+    }
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        Map<String, Score> baseline = read(jsonMapper, Path.of(args[0]));
+        Map<String, Score> current = read(jsonMapper, Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : new TreeMap<>(current).entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "NEW   %-80s %12.3f %s%n", entry.getKey(), after.score(), after.unit());
+                continue;
+            }
+            double regression = after.regressionAgainst(before);
+            boolean significant = Math.abs(after.score() - before.score()) > before.error() + after.error();
+            String verdict = regression > threshold && significant ? "WORSE" : "ok";
+            if ("WORSE".equals(verdict)) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-5s %-80s %12.3f -> %12.3f %s (%+.1f%%)%n", verdict, entry.getKey(),
+                    before.score(), after.score(), after.unit(), regression * 100);
+        }
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * 以 "benchmark{param=value,...}" 为键读取每个结果的 primaryMetric。
+     */
+    static Map<String, Score> read(JsonMapper jsonMapper, Path file) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : jsonMapper.readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asString());
+            JsonNode params = run.path("params");
+            if (params.isObject() && !params.isEmpty()) {
+                key.append(new TreeMap<>(jsonMapper.convertValue(params, Map.class)));
+            }
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(run.path("mode").asString(), metric.path("score").asDouble(),
+                    metric.path("scoreError").asDouble(0), metric.path("scoreUnit").asString()));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,65 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.controller.dto.DishLibraryResponse;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.Nutrients;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 菜品库实体到响应的映射与序列化，按 10k 行（导出 / 全量同步的量级）计。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DishLibraryResponseBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private final JsonMapper jsonMapper = Fixtures.jsonMapper();
+    private List<DishLibrary> rows;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 8, 0);
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            DishIngredients ingredients = new DishIngredients(List.of(
+                    new Ingredient("番茄", 200.0, "produce"),
+                    new Ingredient("鸡蛋", 120.0, "dairy"),
+                    new Ingredient("盐", null, null)));
+            DishSteps steps = new DishSteps(List.of("番茄切块", "鸡蛋打散炒熟", "合炒调味"));
+            rows.add(new DishLibrary((long) i, "番茄炒蛋 " + i, "egg", 2, 5, 10, 2, ingredients, steps,
+                    "protein,vitamin_c", new Nutrients(320.0, 18.0, 12.0, 20.0), i % 5 != 0, createdAt));
+        }
+    }
+
+    @Benchmark
+    public List<DishLibraryResponse> toResponse() {
+        return rows.stream().map(DishLibraryResponse::from).toList();
+    }
+
+    @Benchmark
+    public byte[] toResponseAndSerialize() {
+        return jsonMapper.writeValueAsBytes(rows.stream().map(DishLibraryResponse::from).toList());
+    }
+}
@@ -0,0 +1,48 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.config.JwtProperties;
+import cn.cuckoox.wisediet.config.SessionProperties;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 基准共用的构造：与应用默认配置一致，只去掉 Redis / Postgres 等外部依赖。
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static JwtProperties jwtProperties(int tokenCacheMaxSize) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("benchmark-secret-should-change");
+        properties.setTokenCacheMaxSize(tokenCacheMaxSize);
+        return properties;
+    }
+
+    /**
+     * 近端缓存 TTL 拉长到一天，保证整轮测量都命中本地缓存、不会回源 Redis。
+     */
+    static SessionProperties sessionProperties() {
+        SessionProperties properties = new SessionProperties();
+        properties.setNearCacheTtl(Duration.ofDays(1));
+        return properties;
+    }
+
+    /**
+     * 与 spring.messages 默认值一致：basename=messages，UTF-8，不回退到系统 Locale。
+     */
+    static ResourceBundleMessageSource messageSource() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        messageSource.setFallbackToSystemLocale(false);
+        return messageSource;
+    }
+
+    static JsonMapper jsonMapper() {
+        return JsonMapper.builder().build();
+    }
+}
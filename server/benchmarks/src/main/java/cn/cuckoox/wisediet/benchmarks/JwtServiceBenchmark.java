@@ -0,0 +1,45 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.service.JwtService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 登录签发与每次请求的验签：HS256 编码 / 解码的单次开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(Fixtures.jwtProperties(0));
+        token = jwtService.createAccessToken(42L).block();
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return jwtService.createAccessToken(42L).block();
+    }
+
+    @Benchmark
+    public String extractJti() {
+        return jwtService.extractJti(token);
+    }
+}
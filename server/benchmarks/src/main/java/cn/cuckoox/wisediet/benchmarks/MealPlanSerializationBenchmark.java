@@ -0,0 +1,62 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.controller.dto.MealPlanResponse;
+import cn.cuckoox.wisediet.model.Dish;
+import cn.cuckoox.wisediet.model.MealPlan;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 今日推荐的响应组装与 JSON 序列化；dishes 覆盖单餐到多日计划的规模。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MealPlanSerializationBenchmark {
+
+    private static final String[] MEAL_TYPES = {"breakfast", "lunch", "dinner"};
+
+    @Param({"9", "60"})
+    public int dishes;
+
+    private final JsonMapper jsonMapper = Fixtures.jsonMapper();
+    private MealPlan plan;
+    private List<Dish> planDishes;
+
+    @Setup
+    public void setUp() {
+        plan = new MealPlan(1L, 42L, LocalDate.of(2026, 1, 1), "pending");
+        planDishes = new ArrayList<>(dishes);
+        for (int i = 0; i < dishes; i++) {
+            planDishes.add(new Dish((long) i, 1L, "番茄炒蛋 " + i, "高蛋白，适合早餐后补充能量", null,
+                    2, 5, 15, "protein,vitamin_c", i % 3 == 0, MEAL_TYPES[i % MEAL_TYPES.length], (long) i));
+        }
+    }
+
+    @Benchmark
+    public MealPlanResponse assemble() {
+        return MealPlanResponse.from(plan, planDishes);
+    }
+
+    @Benchmark
+    public byte[] assembleAndSerialize() {
+        return jsonMapper.writeValueAsBytes(MealPlanResponse.from(plan, planDishes));
+    }
+}
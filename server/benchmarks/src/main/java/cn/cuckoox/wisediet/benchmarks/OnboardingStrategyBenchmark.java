@@ -0,0 +1,54 @@
+package cn.cuckoox.wisediet.benchmarks;
+
+import cn.cuckoox.wisediet.controller.OnboardingController;
+import cn.cuckoox.wisediet.i18n.RequestLocaleResolver;
+import cn.cuckoox.wisediet.service.StrategyReportRenderer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * GET /api/onboarding/strategy：Locale 解析、报告渲染与序列化。getStrategy 不触及仓库与会话，对应依赖传 null。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OnboardingStrategyBenchmark {
+
+    @Param({"en", "zh-CN"})
+    public String acceptLanguage;
+
+    private final JsonMapper jsonMapper = Fixtures.jsonMapper();
+    private OnboardingController controller;
+    private MockServerHttpRequest request;
+
+    @Setup
+    public void setUp() {
+        controller = new OnboardingController(null, null,
+                new StrategyReportRenderer(Fixtures.messageSource()), new RequestLocaleResolver(), null, null);
+        request = MockServerHttpRequest.get("/api/onboarding/strategy")
+                .header(HttpHeaders.ACCEPT_LANGUAGE, acceptLanguage)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] getStrategy() {
+        return jsonMapper.writeValueAsBytes(controller.getStrategy(MockServerWebExchange.from(request)).block());
+    }
+}
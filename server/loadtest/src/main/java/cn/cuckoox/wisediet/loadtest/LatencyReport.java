@@ -0,0 +1,79 @@
+package cn.cuckoox.wisediet.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 按接口汇总的延迟直方图（微秒精度）与错误计数，输出 p50 / p90 / p99 / max 与吞吐量。
+ */
+final class LatencyReport {
+
+    /**
+     * 单个接口的汇总结果；延迟单位为毫秒，吞吐量为整轮运行的平均每秒请求数。
+     */
+    record EndpointStats(String endpoint, long requests, long errors, double throughput,
+                         double p50, double p90, double p99, double max) {
+    }
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, ConcurrentHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final List<String> order;
+
+    LatencyReport(List<String> endpoints) {
+        this.order = List.copyOf(endpoints);
+        for (String endpoint : endpoints) {
+            histograms.put(endpoint, new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    void record(String endpoint, long elapsedNanos, boolean success) {
+        histograms.get(endpoint).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_TRACKABLE_MICROS));
+        if (!success) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    List<EndpointStats> summarize(double elapsedSeconds) {
+        return order.stream().map(endpoint -> {
+            Histogram histogram = histograms.get(endpoint).copy();
+            long requests = histogram.getTotalCount();
+            return new EndpointStats(endpoint, requests, errors.get(endpoint).sum(),
+                    elapsedSeconds > 0 ? requests / elapsedSeconds : 0,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getMaxValue()));
+        }).toList();
+    }
+
+    static String format(List<EndpointStats> stats) {
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT, "%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (EndpointStats s : stats) {
+            out.append(String.format(Locale.ROOT, "%-18s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    s.endpoint(), s.requests(), s.errors(), s.throughput(), s.p50(), s.p90(), s.p99(), s.max()));
+        }
+        return out.toString();
+    }
+
+    static Map<String, Object> toJson(List<EndpointStats> stats, Map<String, Object> settings) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("settings", settings);
+        json.put("endpoints", stats);
+        return json;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,80 @@
+package cn.cuckoox.wisediet.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * 本地 OAuth2 提供方替身：token 端点把授权码原样作为 access_token 返回，
+ * userinfo 端点以 access_token 作为用户 id，因此每个不同的 code 都对应一个不同的用户。
+ */
+final class MockOAuthProvider implements AutoCloseable {
+
+    private final DisposableServer server;
+
+    private MockOAuthProvider(DisposableServer server) {
+        this.server = server;
+    }
+
+    static MockOAuthProvider start() {
+        return new MockOAuthProvider(HttpServer.create()
+                .host("0.0.0.0")
+                .port(0)
+                .route(routes -> routes
+                        .post("/oauth/token/{provider}", MockOAuthProvider::token)
+                        .get("/oauth/userinfo/{provider}", MockOAuthProvider::userInfo))
+                .bindNow());
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    private static Mono<Void> token(HttpServerRequest request, HttpServerResponse response) {
+        return request.receive().aggregate().asString()
+                .defaultIfEmpty("")
+                .flatMap(form -> {
+                    String code = formValue(form, "code");
+                    if (code == null) {
+                        return response.status(HttpResponseStatus.BAD_REQUEST).send();
+                    }
+                    return json(response, "{\"access_token\":\"" + code + "\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+                });
+    }
+
+    private static Mono<Void> userInfo(HttpServerRequest request, HttpServerResponse response) {
+        String authorization = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+        }
+        String id = authorization.substring("Bearer ".length());
+        return json(response, "{\"id\":\"" + id + "\",\"email\":\"" + id + "@load.test\"}");
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, String body) {
+        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .sendString(Mono.just(body))
+                .then();
+    }
+
+    private static String formValue(String form, String name) {
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
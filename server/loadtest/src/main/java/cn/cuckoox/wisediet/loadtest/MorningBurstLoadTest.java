@@ -0,0 +1,294 @@
+package cn.cuckoox.wisediet.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 早高峰压测：Testcontainers 启动 Postgres / Redis，本地 OAuth 替身，另起一个 JVM 运行打包好的服务端，
+ * 然后让 loadtest.users 个新用户在 loadtest.rampSeconds 内均匀到达，每人依次完成
+ * 登录 → 填写档案 → 获取今日推荐 → 确认菜单。
+ * 到达速率是开环的；loadtest.maxConcurrency 只用于保护压测端，达到上限时排队时间不计入接口延迟。
+ * 任一接口错误率超过 loadtest.maxErrorRate 时以退出码 1 结束，可作为发布前的容量门槛。
+ */
+public final class MorningBurstLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MorningBurstLoadTest.class);
+
+    static final List<String> ENDPOINTS = List.of("auth-uri", "login", "profile", "recommendations", "confirm");
+
+    private static final Duration TICK = Duration.ofMillis(10);
+    private static final String PROFILE = """
+            {"gender":"other","age":30,"height":170,"weight":65,"familyMembers":2,"occupationTagIds":"1"}""";
+
+    private final int users;
+    private final int rampSeconds;
+    private final int maxConcurrency;
+    private final double maxErrorRate;
+    private final int dishesToConfirm;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final LatencyReport report = new LatencyReport(ENDPOINTS);
+    private HttpClient client;
+
+    private MorningBurstLoadTest() {
+        this.users = Integer.getInteger("loadtest.users", 50_000);
+        this.rampSeconds = Integer.getInteger("loadtest.rampSeconds", 60);
+        this.maxConcurrency = Integer.getInteger("loadtest.maxConcurrency", 2_000);
+        this.maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+        this.dishesToConfirm = Integer.getInteger("loadtest.dishesToConfirm", 3);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new MorningBurstLoadTest().run());
+    }
+
+    private int run() throws Exception {
+        Path serverJar = serverJar();
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+             GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7.4-alpine")).withExposedPorts(6379);
+             MockOAuthProvider oauth = MockOAuthProvider.start()) {
+            postgres.start();
+            redis.start();
+            seedDishLibrary(postgres);
+
+            int port = freePort();
+            Process server = startServer(serverJar, port, postgres, redis, oauth);
+            try {
+                String baseUrl = "http://localhost:" + port;
+                awaitHealthy(baseUrl, server);
+                ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                        .maxConnections(maxConcurrency)
+                        .pendingAcquireMaxCount(-1)
+                        .build();
+                client = HttpClient.create(connections).baseUrl(baseUrl)
+                        .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"));
+                try {
+                    return burst();
+                } finally {
+                    connections.disposeLater().block();
+                }
+            } finally {
+                server.destroy();
+                if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                    server.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private int burst() throws IOException {
+        log.info("Starting burst: {} users over {}s, max {} in flight", users, rampSeconds, maxConcurrency);
+        long ticks = Math.max(1, Duration.ofSeconds(rampSeconds).dividedBy(TICK));
+        long start = System.nanoTime();
+        Flux.interval(TICK)
+                .take(ticks)
+                .onBackpressureBuffer()
+                .concatMapIterable(tick -> arrivals(tick, ticks))
+                .flatMap(this::journey, maxConcurrency)
+                .blockLast();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<LatencyReport.EndpointStats> stats = report.summarize(elapsed);
+        log.info("Burst finished in {}s\n{}", String.format("%.1f", elapsed), LatencyReport.format(stats));
+        Path output = Path.of("target", "loadtest-report.json");
+        Files.createDirectories(output.getParent());
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", users);
+        settings.put("rampSeconds", rampSeconds);
+        settings.put("maxConcurrency", maxConcurrency);
+        settings.put("elapsedSeconds", elapsed);
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), LatencyReport.toJson(stats, settings));
+        log.info("Report written to {}", output.toAbsolutePath());
+
+        boolean failed = stats.stream().anyMatch(s -> s.requests() > 0 && (double) s.errors() / s.requests() > maxErrorRate);
+        return failed ? 1 : 0;
+    }
+
+    /**
+     * 第 tick 个时间片到达的用户编号：按累计比例取整，保证总数正好为 users。
+     */
+    private List<Long> arrivals(long tick, long ticks) {
+        long from = users * tick / ticks;
+        long to = users * (tick + 1) / ticks;
+        return LongStream.range(from, to).boxed().toList();
+    }
+
+    /**
+     * 单个用户的一次早高峰：任何一步失败即放弃后续步骤。
+     */
+    private Mono<Void> journey(long user) {
+        return call("auth-uri", HttpMethod.GET, "/api/auth/google", null, null)
+                .map(body -> body.path("state").asString())
+                .flatMap(state -> call("login", HttpMethod.POST, "/api/auth/google", null,
+                        "{\"code\":\"load-user-" + user + "\",\"state\":\"" + state + "\"}"))
+                .map(body -> body.path("accessToken").asString())
+                .flatMap(token -> call("profile", HttpMethod.POST, "/api/onboarding/profile", token, PROFILE)
+                        .then(call("recommendations", HttpMethod.GET, "/api/today/recommendations", token, null))
+                        .flatMap(plan -> call("confirm", HttpMethod.POST, "/api/today/confirm", token,
+                                confirmBody(plan))))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    private String confirmBody(JsonNode plan) {
+        List<Long> dishIds = new ArrayList<>();
+        for (JsonNode dish : plan.path("dishes")) {
+            if (dishIds.size() == dishesToConfirm) {
+                break;
+            }
+            dishIds.add(dish.path("id").asLong());
+        }
+        return jsonMapper.writeValueAsString(Map.of("dishIds", dishIds));
+    }
+
+    /**
+     * 发出一次请求并记录耗时；非 2xx 记为错误并以异常结束该用户的流程。
+     */
+    private Mono<JsonNode> call(String endpoint, HttpMethod method, String uri, String token, String body) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            HttpClient request = token == null ? client
+                    : client.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + token));
+            return request.request(method)
+                    .uri(uri)
+                    .send(body == null ? ByteBufFlux.empty() : ByteBufFlux.fromString(Mono.just(body)))
+                    .responseSingle((response, content) -> content.asString(StandardCharsets.UTF_8)
+                            .defaultIfEmpty("")
+                            .map(text -> {
+                                boolean ok = response.status().code() / 100 == 2;
+                                report.record(endpoint, System.nanoTime() - start, ok);
+                                if (!ok) {
+                                    throw new IllegalStateException(endpoint + " returned " + response.status());
+                                }
+                                return jsonMapper.readTree(text);
+                            }))
+                    .doOnError(ex -> !(ex instanceof IllegalStateException),
+                            ex -> report.record(endpoint, System.nanoTime() - start, false));
+        });
+    }
+
+    private static Path serverJar() {
+        Path jar = Path.of(System.getProperty("loadtest.serverJar", "../target/WiseDiet-1.0.0-SNAPSHOT-exec.jar"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Server jar not found: " + jar.toAbsolutePath()
+                    + " (run ./mvnw package -DskipTests in server/ or set -Dloadtest.serverJar)");
+        }
+        return jar;
+    }
+
+    /**
+     * 先建表再写入菜品库，服务端启动时 DishLibraryIndex 即可加载；schema.sql 可重复执行。
+     */
+    private static void seedDishLibrary(PostgreSQLContainer<?> postgres) throws SQLException {
+        int recipes = Integer.getInteger("loadtest.recipes", 500);
+        Path schema = Path.of(System.getProperty("loadtest.schema", "../src/main/resources/schema.sql"));
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource(schema));
+            statement.execute("INSERT INTO dish_library (name, category, servings, nutrient_tags, ingredients, nutrients) "
+                    + "SELECT 'load dish ' || g, (ARRAY['veggie_leafy','meat_red','seafood','staple_grain','soup'])[1 + g % 5], 2, "
+                    + "'protein,fiber', "
+                    + "jsonb_build_array(jsonb_build_object('name', 'ingredient ' || g % 50, 'grams', 150, 'aisle', 'produce')), "
+                    + "jsonb_build_object('kcal', 300 + g % 200, 'protein', 20, 'carbs', 30, 'fat', 10) "
+                    + "FROM generate_series(1, " + recipes + ") g");
+        }
+    }
+
+    private static Process startServer(Path jar, int port, PostgreSQLContainer<?> postgres,
+                                       GenericContainer<?> redis, MockOAuthProvider oauth) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : System.getProperty("loadtest.serverJvmArgs", "-Xmx1g").split("\\s+")) {
+            if (!arg.isBlank()) {
+                command.add(arg);
+            }
+        }
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.r2dbc.url=r2dbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getFirstMappedPort() + "/" + postgres.getDatabaseName());
+        command.add("--spring.r2dbc.username=" + postgres.getUsername());
+        command.add("--spring.r2dbc.password=" + postgres.getPassword());
+        command.add("--spring.data.redis.host=" + redis.getHost());
+        command.add("--spring.data.redis.port=" + redis.getFirstMappedPort());
+        command.add("--spring.ai.model.chat=stub");
+        command.add("--app.jwt.secret=loadtest-secret-should-change");
+        for (String provider : List.of("google", "github")) {
+            String registration = "--spring.security.oauth2.client.registration." + provider;
+            String providerDetails = "--spring.security.oauth2.client.provider." + provider;
+            command.add(registration + ".client-id=" + provider + "-client");
+            command.add(registration + ".client-secret=" + provider + "-secret");
+            command.add(registration + ".redirect-uri=http://localhost/redirect");
+            command.add(registration + ".authorization-grant-type=authorization_code");
+            command.add(registration + ".client-authentication-method=client_secret_post");
+            command.add(registration + ".scope=email");
+            command.add(providerDetails + ".token-uri=" + oauth.baseUrl() + "/oauth/token/" + provider);
+            command.add(providerDetails + ".user-info-uri=" + oauth.baseUrl() + "/oauth/userinfo/" + provider);
+            command.add(providerDetails + ".user-name-attribute=id");
+        }
+        File serverLog = Path.of("target", "loadtest-server.log").toFile();
+        Files.createDirectories(serverLog.toPath().getParent());
+        log.info("Starting server on port {} (log: {})", port, serverLog.getAbsolutePath());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(serverLog)
+                .start();
+    }
+
+    private static void awaitHealthy(String baseUrl, Process server) throws InterruptedException {
+        HttpClient probe = HttpClient.create().baseUrl(baseUrl);
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(3);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with code " + server.exitValue() + ", see target/loadtest-server.log");
+            }
+            Integer status = probe.get().uri("/actuator/health")
+                    .response((response, content) -> Mono.just(response.status().code()))
+                    .onErrorResume(ex -> Mono.empty())
+                    .next()
+                    .block(Duration.ofSeconds(5));
+            if (status != null && status == 200) {
+                return;
+            }
+            Thread.sleep(1_000);
+        }
+        throw new IllegalStateException("Server did not become healthy, see target/loadtest-server.log");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
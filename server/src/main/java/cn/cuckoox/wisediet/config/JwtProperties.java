@@ -9,4 +9,5 @@ public class JwtProperties {
     private String secret;
     private long accessTtlMinutes = 15;
     private long refreshTtlDays = 30;
+    private int tokenCacheMaxSize = 10_000;
 }
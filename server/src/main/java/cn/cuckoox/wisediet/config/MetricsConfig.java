@@ -0,0 +1,74 @@
+package cn.cuckoox.wisediet.config;
+
+import cn.cuckoox.wisediet.metrics.ServiceTimingPostProcessor;
+import cn.cuckoox.wisediet.metrics.TimedWebFilter;
+import cn.cuckoox.wisediet.security.VerifiedTokenCache;
+import cn.cuckoox.wisediet.service.MealPlanGenerationJob;
+import cn.cuckoox.wisediet.service.SessionNearCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import java.util.function.ToDoubleFunction;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 应用自定义指标。HTTP 请求、Lettuce 命令、R2DBC 连接池与仓库调用的指标由 Spring Boot 自动配置提供。
+ */
+@Configuration
+public class MetricsConfig {
+
+    static final int MAX_ENDPOINTS = 200;
+
+    @Bean
+    public static ServiceTimingPostProcessor serviceTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new ServiceTimingPostProcessor(registry);
+    }
+
+    /**
+     * 过滤器在路由匹配前运行，endpoint 来自原始路径；超出上限的新取值直接丢弃，避免扫描请求撑爆标签基数。
+     */
+    @Bean
+    public MeterFilter filterEndpointCardinality() {
+        return MeterFilter.maximumAllowableTags(TimedWebFilter.METRIC, "endpoint", MAX_ENDPOINTS, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterBinder tokenCacheMetrics(VerifiedTokenCache cache) {
+        return registry -> cacheMetrics(registry, "wisediet.token.cache", cache,
+                VerifiedTokenCache::hitCount, VerifiedTokenCache::missCount, VerifiedTokenCache::size);
+    }
+
+    @Bean
+    public MeterBinder sessionCacheMetrics(SessionNearCache cache) {
+        return registry -> cacheMetrics(registry, "wisediet.session.cache", cache,
+                SessionNearCache::hitCount, SessionNearCache::missCount, SessionNearCache::size);
+    }
+
+    @Bean
+    public MeterBinder planGenerationMetrics(MealPlanGenerationJob job) {
+        return registry -> {
+            Gauge.builder("wisediet.plan.generation.running", job, j -> j.status().running() ? 1 : 0)
+                    .register(registry);
+            Gauge.builder("wisediet.plan.generation.plans", job, j -> j.status().processed())
+                    .tag("result", "processed").register(registry);
+            Gauge.builder("wisediet.plan.generation.plans", job, j -> j.status().created())
+                    .tag("result", "created").register(registry);
+            Gauge.builder("wisediet.plan.generation.plans", job, j -> j.status().failed())
+                    .tag("result", "failed").register(registry);
+            Gauge.builder("wisediet.plan.generation.rate", job, j -> j.status().plansPerSecond())
+                    .baseUnit("plans/s").register(registry);
+        };
+    }
+
+    private static <T> void cacheMetrics(MeterRegistry registry, String name, T cache,
+                                         ToDoubleFunction<T> hits, ToDoubleFunction<T> misses,
+                                         ToDoubleFunction<T> size) {
+        FunctionCounter.builder(name + ".requests", cache, hits).tag("result", "hit").register(registry);
+        FunctionCounter.builder(name + ".requests", cache, misses).tag("result", "miss").register(registry);
+        Gauge.builder(name + ".size", cache, size).register(registry);
+    }
+}
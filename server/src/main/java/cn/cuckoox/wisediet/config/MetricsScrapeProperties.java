@@ -0,0 +1,11 @@
+package cn.cuckoox.wisediet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.metrics")
+public class MetricsScrapeProperties {
+    /** Prometheus 抓取用的静态 Bearer 凭据，与用户会话无关；为空时除 health 外的指标端点一律拒绝。 */
+    private String scrapeToken;
+}
@@ -0,0 +1,15 @@
+package cn.cuckoox.wisediet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.plan-generation")
+public class PlanGenerationProperties {
+    private boolean enabled = true;
+    private String cron = "0 0 2 * * *";
+    private int parallelism = 4;
+    private int batchSize = 500;
+    private int partitionCount = 1;
+    private int partitionIndex = 0;
+}
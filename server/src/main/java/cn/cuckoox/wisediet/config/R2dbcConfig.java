@@ -0,0 +1,106 @@
+package cn.cuckoox.wisediet.config;
+
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
+import cn.cuckoox.wisediet.model.ShoppingAisles;
+import cn.cuckoox.wisediet.model.TagIds;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.List;
+import java.util.Set;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import tools.jackson.databind.json.JsonMapper;
+
+@Configuration
+public class R2dbcConfig {
+
+    /**
+     * 以 JSONB 存储的值类型。
+     */
+    private static final Set<Class<?>> JSONB_TYPES = Set.of(DishIngredients.class, DishSteps.class, Nutrients.class, ShoppingAisles.class);
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory, JsonMapper jsonMapper) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory), converters(jsonMapper));
+    }
+
+    public static List<Object> converters(JsonMapper jsonMapper) {
+        return List.of(new TagIdsReadingConverter(), new TagIdsWritingConverter(),
+                new JsonbReadingConverter(jsonMapper), new JsonbWritingConverter(jsonMapper));
+    }
+
+    /**
+     * BIGINT[] 列由驱动读出为 Long[]。
+     */
+    @ReadingConverter
+    static class TagIdsReadingConverter implements Converter<Long[], TagIds> {
+        @Override
+        public TagIds convert(Long[] source) {
+            return TagIds.fromArray(source);
+        }
+    }
+
+    @WritingConverter
+    static class TagIdsWritingConverter implements Converter<TagIds, Long[]> {
+        @Override
+        public Long[] convert(TagIds source) {
+            return source.toArray();
+        }
+    }
+
+    /**
+     * JSONB 列由驱动读出为 Json，按目标字段类型反序列化。
+     */
+    @ReadingConverter
+    static class JsonbReadingConverter implements GenericConverter {
+
+        private final JsonMapper jsonMapper;
+
+        JsonbReadingConverter(JsonMapper jsonMapper) {
+            this.jsonMapper = jsonMapper;
+        }
+
+        @Override
+        public Set<ConvertiblePair> getConvertibleTypes() {
+            return Set.of(JSONB_TYPES.stream()
+                    .map(type -> new ConvertiblePair(Json.class, type))
+                    .toArray(ConvertiblePair[]::new));
+        }
+
+        @Override
+        public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+            return source == null ? null : jsonMapper.readValue(((Json) source).asArray(), targetType.getType());
+        }
+    }
+
+    @WritingConverter
+    static class JsonbWritingConverter implements GenericConverter {
+
+        private final JsonMapper jsonMapper;
+
+        JsonbWritingConverter(JsonMapper jsonMapper) {
+            this.jsonMapper = jsonMapper;
+        }
+
+        @Override
+        public Set<ConvertiblePair> getConvertibleTypes() {
+            return Set.of(JSONB_TYPES.stream()
+                    .map(type -> new ConvertiblePair(type, Json.class))
+                    .toArray(ConvertiblePair[]::new));
+        }
+
+        @Override
+        public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+            return source == null ? null : Json.of(jsonMapper.writeValueAsString(source));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cn.cuckoox.wisediet.config;
+
+import cn.cuckoox.wisediet.service.StubChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecommendationConfig {
+
+    /**
+     * spring.ai.model.chat=stub 时关闭 OpenAI 自动配置，改用离线的确定性模型，便于本地开发与测试。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.model.chat", havingValue = "stub")
+    public ChatModel stubChatModel() {
+        return new StubChatModel();
+    }
+}
@@ -0,0 +1,15 @@
+package cn.cuckoox.wisediet.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.recommendation")
+public class RecommendationProperties {
+    private int maxConcurrentCalls = 8;
+    private Duration timeout = Duration.ofSeconds(10);
+    private int dishesPerMeal = 2;
+    /** 比对 dish_library_meta.version 的间隔；其他节点写入菜品库后，本节点的索引最多滞后这么久。 */
+    private Duration indexRefreshInterval = Duration.ofSeconds(10);
+}
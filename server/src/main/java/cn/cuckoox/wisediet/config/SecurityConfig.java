@@ -1,31 +1,60 @@
 package cn.cuckoox.wisediet.config;
 
+import cn.cuckoox.wisediet.metrics.TimedWebFilter;
 import cn.cuckoox.wisediet.security.JwtAuthenticationFilter;
 import cn.cuckoox.wisediet.security.OnboardingGateFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                         MetricsScrapeProperties metricsScrapeProperties,
+                                                         MeterRegistry meterRegistry) {
         return http
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .authorizeExchange(exchanges -> exchanges
                         .pathMatchers("/api/auth/**", "/api/tags/**", "/api/hello").permitAll()
-                        .pathMatchers("/api/admin/**").authenticated()
+                        .pathMatchers("/api/admin/**").hasRole("ADMIN")
                         .pathMatchers("/api/**").authenticated()
                         .pathMatchers("/admin/ui/**").permitAll()
+                        .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .pathMatchers("/actuator/**").access((authentication, context) -> Mono.just(
+                                new AuthorizationDecision(hasScrapeToken(context.getExchange().getRequest(),
+                                        metricsScrapeProperties.getScrapeToken()))))
                         .anyExchange().permitAll()
                 )
-                .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
-                .addFilterAt(new OnboardingGateFilter(), SecurityWebFiltersOrder.AUTHORIZATION)
+                .addFilterAt(new TimedWebFilter("jwt-authentication", jwtAuthenticationFilter, meterRegistry),
+                        SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAt(new TimedWebFilter("onboarding-gate", new OnboardingGateFilter(), meterRegistry),
+                        SecurityWebFiltersOrder.AUTHORIZATION)
                 .build();
     }
+
+    /**
+     * 指标端点只给 Prometheus 抓取：校验静态 Bearer 凭据，不走用户 JWT 与会话（抓取方无法持有或刷新 15 分钟的令牌）。
+     */
+    private static boolean hasScrapeToken(ServerHttpRequest request, String scrapeToken) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (scrapeToken == null || scrapeToken.isBlank() || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(authHeader.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8),
+                scrapeToken.getBytes(StandardCharsets.UTF_8));
+    }
 }
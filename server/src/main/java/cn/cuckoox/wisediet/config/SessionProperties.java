@@ -0,0 +1,17 @@
+package cn.cuckoox.wisediet.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.session")
+public class SessionProperties {
+    private Duration nearCacheTtl = Duration.ofSeconds(30);
+    private int nearCacheMaxSize = 10_000;
+    private String invalidationChannel = "session:invalidate";
+    private String adminInvalidationChannel = "admin:invalidate";
+    /** 管理员白名单的定期全量重载间隔，兜底丢失的失效消息（pub/sub 不保证送达）。 */
+    private Duration adminReloadInterval = Duration.ofMinutes(1);
+    private Duration sweepInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,44 @@
+package cn.cuckoox.wisediet.controller;
+
+import cn.cuckoox.wisediet.controller.dto.PlanGenerationStatus;
+import cn.cuckoox.wisediet.security.CurrentUserService;
+import cn.cuckoox.wisediet.service.MealPlanGenerationJob;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/admin/plan-generation")
+public class AdminPlanGenerationController {
+
+    private final MealPlanGenerationJob mealPlanGenerationJob;
+    private final CurrentUserService currentUserService;
+
+    public AdminPlanGenerationController(MealPlanGenerationJob mealPlanGenerationJob,
+                                         CurrentUserService currentUserService) {
+        this.mealPlanGenerationJob = mealPlanGenerationJob;
+        this.currentUserService = currentUserService;
+    }
+
+    @GetMapping("/status")
+    public Mono<PlanGenerationStatus> status() {
+        return currentUserService.requireAdmin().then(Mono.fromSupplier(mealPlanGenerationJob::status));
+    }
+
+    /**
+     * 手动触发一次生成（默认次日），任务在后台执行，立即返回当前进度。
+     */
+    @PostMapping("/run")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<PlanGenerationStatus> run(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate target = date != null ? date : LocalDate.now().plusDays(1);
+        return currentUserService.requireAdmin()
+                .then(Mono.fromSupplier(() -> {
+                    mealPlanGenerationJob.generate(target).subscribe();
+                    return mealPlanGenerationJob.status();
+                }));
+    }
+}
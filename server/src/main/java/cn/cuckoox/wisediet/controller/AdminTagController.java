@@ -0,0 +1,34 @@
+package cn.cuckoox.wisediet.controller;
+
+import cn.cuckoox.wisediet.security.CurrentUserService;
+import cn.cuckoox.wisediet.service.DishLibraryIndex;
+import cn.cuckoox.wisediet.service.TagCatalog;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/admin/tags")
+public class AdminTagController {
+
+    private final TagCatalog tagCatalog;
+    private final DishLibraryIndex dishLibraryIndex;
+    private final CurrentUserService currentUserService;
+
+    public AdminTagController(TagCatalog tagCatalog,
+                              DishLibraryIndex dishLibraryIndex,
+                              CurrentUserService currentUserService) {
+        this.tagCatalog = tagCatalog;
+        this.dishLibraryIndex = dishLibraryIndex;
+        this.currentUserService = currentUserService;
+    }
+
+    /**
+     * 标签表变更后重新加载本节点的标签快照，并重建依赖过敏原与偏好标签的菜品索引。
+     */
+    @PostMapping("/reload")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> reload() {
+        return currentUserService.requireAdmin().then(tagCatalog.reload()).then(dishLibraryIndex.rebuild()).then();
+    }
+}
@@ -1,51 +1,88 @@
 package cn.cuckoox.wisediet.controller;
 
-import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
+import cn.cuckoox.wisediet.controller.dto.DishPageResponse;
+import cn.cuckoox.wisediet.security.VerifiedTokenCache;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.DishLibraryService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
 
 @Controller
 @RequestMapping("/admin/ui")
 public class AdminUiController {
 
+    private static final int PAGE_SIZE = 20;
+
     private final DishLibraryService dishLibraryService;
     private final JwtService jwtService;
     private final SessionStore sessionStore;
-    private final AdminWhitelistRepository adminWhitelistRepository;
+    private final VerifiedTokenCache tokenCache;
+    private final AdminWhitelistService adminWhitelistService;
+    private final JsonMapper jsonMapper;
 
     public AdminUiController(DishLibraryService dishLibraryService,
                               JwtService jwtService,
                               SessionStore sessionStore,
-                              AdminWhitelistRepository adminWhitelistRepository) {
+                              VerifiedTokenCache tokenCache,
+                              AdminWhitelistService adminWhitelistService,
+                              JsonMapper jsonMapper) {
         this.dishLibraryService = dishLibraryService;
         this.jwtService = jwtService;
         this.sessionStore = sessionStore;
-        this.adminWhitelistRepository = adminWhitelistRepository;
+        this.tokenCache = tokenCache;
+        this.adminWhitelistService = adminWhitelistService;
+        this.jsonMapper = jsonMapper;
     }
 
     @GetMapping("/dishes")
     public Mono<String> dishList(@RequestParam String token,
-                                  @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(required = false) String cursor,
                                   Model model) {
         return validateAdminToken(token)
-                .then(dishLibraryService.findAll(page, 20, false).collectList()
-                        .zipWith(dishLibraryService.count(false)))
-                .map(tuple -> {
-                    model.addAttribute("dishes", tuple.getT1());
-                    model.addAttribute("total", tuple.getT2());
-                    model.addAttribute("page", page);
-                    model.addAttribute("token", token);
+                .then(dishLibraryService.findPage(cursor, PAGE_SIZE, false))
+                .map(page -> {
+                    addPage(model, page, cursor, token);
                     return "admin/dishes";
                 });
     }
 
+    /**
+     * 搜索框的 HTMX 请求：替换 #dish-list；清空搜索词时回到第一页。
+     * 结果先收集再渲染：片段要显示匹配总数，且 search 最多返回 SEARCH_LIMIT 行，不值得分块流式输出。
+     */
+    @GetMapping("/dishes/search")
+    public Mono<String> search(@RequestParam String token,
+                                @RequestParam(required = false) String q,
+                                Model model) {
+        if (q == null || q.isBlank()) {
+            return validateAdminToken(token)
+                    .then(dishLibraryService.findPage(null, PAGE_SIZE, false))
+                    .map(page -> {
+                        addPage(model, page, null, token);
+                        return "admin/dishes :: #dish-list";
+                    });
+        }
+        return validateAdminToken(token)
+                .thenMany(dishLibraryService.search(q, DishLibraryService.SEARCH_LIMIT))
+                .collectList()
+                .map(dishes -> {
+                    model.addAttribute("dishes", dishes);
+                    model.addAttribute("total", dishes.size());
+                    model.addAttribute("q", q);
+                    model.addAttribute("token", token);
+                    return "admin/dishes :: #dish-list";
+                });
+    }
+
     @GetMapping("/dishes/new")
     public Mono<String> newForm(@RequestParam String token, Model model) {
         return validateAdminToken(token)
@@ -55,23 +92,36 @@ public class AdminUiController {
                 }));
     }
 
+    /**
+     * 重名时不替换列表，而是通过 HX-Retarget 把带错误提示、保留已填内容的表单渲染回 #form-area。
+     */
     @PostMapping("/dishes")
     public Mono<String> create(@RequestParam String token,
                                 @ModelAttribute DishFormData form,
-                                Model model) {
+                                Model model,
+                                ServerHttpResponse response) {
         return validateAdminToken(token)
-                .then(dishLibraryService.create(form.toRequest()))
-                .then(dishLibraryService.findAll(0, 20, false).collectList()
-                        .zipWith(dishLibraryService.count(false)))
-                .map(tuple -> {
-                    model.addAttribute("dishes", tuple.getT1());
-                    model.addAttribute("total", tuple.getT2());
-                    model.addAttribute("page", 0);
-                    model.addAttribute("token", token);
+                .then(Mono.fromCallable(() -> form.toRequest(jsonMapper)))
+                .flatMap(dishLibraryService::create)
+                .then(dishLibraryService.findPage(null, PAGE_SIZE, false))
+                .map(page -> {
+                    addPage(model, page, null, token);
                     return "admin/dishes :: #dish-list";
+                })
+                .onErrorResume(AdminUiController::isConflict, ex -> {
+                    model.addAttribute("token", token);
+                    model.addAttribute("form", form);
+                    model.addAttribute("error", "菜品名称已存在：" + form.getName());
+                    response.getHeaders().set("HX-Retarget", "#form-area");
+                    response.getHeaders().set("HX-Reswap", "innerHTML");
+                    return Mono.just("admin/dish-form");
                 });
     }
 
+    private static boolean isConflict(Throwable ex) {
+        return ex instanceof ResponseStatusException status && status.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT);
+    }
+
     @PostMapping("/dishes/{id}/toggle")
     public Mono<String> toggleStatus(@PathVariable Long id,
                                       @RequestParam String token,
@@ -79,31 +129,42 @@ public class AdminUiController {
         return validateAdminToken(token)
                 .then(dishLibraryService.findById(id))
                 .flatMap(dish -> dishLibraryService.updateStatus(id, !dish.isActive()))
-                .then(dishLibraryService.findAll(0, 20, false).collectList()
-                        .zipWith(dishLibraryService.count(false)))
-                .map(tuple -> {
-                    model.addAttribute("dishes", tuple.getT1());
-                    model.addAttribute("total", tuple.getT2());
-                    model.addAttribute("token", token);
+                .then(dishLibraryService.findPage(null, PAGE_SIZE, false))
+                .map(page -> {
+                    addPage(model, page, null, token);
                     return "admin/dishes :: #dish-list";
                 });
     }
 
+    private static void addPage(Model model, DishPageResponse page, String cursor, String token) {
+        model.addAttribute("dishes", page.content());
+        model.addAttribute("total", page.total());
+        model.addAttribute("cursor", cursor);
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("token", token);
+    }
+
+    /**
+     * 与认证过滤器相同：验签结果走 VerifiedTokenCache，会话走近端缓存，管理员身份取 role 声明与内存白名单。
+     */
     private Mono<Void> validateAdminToken(String token) {
-        String jti;
+        Jwt jwt;
+        Long userId;
         try {
-            jti = jwtService.extractJti(token);
+            jwt = tokenCache.resolve(token, jwtService::decodeOnce);
+            userId = Long.valueOf(jwt.getSubject());
         } catch (Exception e) {
             return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token"));
         }
-        return sessionStore.exists(jti)
-                .flatMap(exists -> {
-                    if (!exists) return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session expired"));
-                    return jwtService.parseUserId(token);
-                })
-                .flatMap(userId -> adminWhitelistRepository.existsByUserId(userId)
-                        .filter(Boolean.TRUE::equals)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Not admin")))
-                        .then());
+        if (jwt.getId() == null || jwt.getId().isBlank()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token"));
+        }
+        return sessionStore.principalBySession(jwt.getId())
+                .filter(principal -> userId.equals(principal.userId()))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session expired")))
+                .flatMap(principal -> adminWhitelistService.hasAdminAccess(userId, jwt.getClaimAsString("role")))
+                .filter(Boolean.TRUE::equals)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Not admin")))
+                .then();
     }
 }
@@ -0,0 +1,42 @@
+package cn.cuckoox.wisediet.controller;
+
+import cn.cuckoox.wisediet.security.CurrentUserService;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/admin/whitelist")
+public class AdminWhitelistController {
+
+    private final AdminWhitelistService adminWhitelistService;
+    private final CurrentUserService currentUserService;
+
+    public AdminWhitelistController(AdminWhitelistService adminWhitelistService,
+                                    CurrentUserService currentUserService) {
+        this.adminWhitelistService = adminWhitelistService;
+        this.currentUserService = currentUserService;
+    }
+
+    @PostMapping("/{userId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> grant(@PathVariable Long userId) {
+        return currentUserService.requireAdmin().then(adminWhitelistService.grant(userId));
+    }
+
+    @DeleteMapping("/{userId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> revoke(@PathVariable Long userId) {
+        return currentUserService.requireAdmin().then(adminWhitelistService.revoke(userId));
+    }
+
+    /**
+     * 直接改动 admin_whitelist 表后，通知所有节点重新加载白名单。
+     */
+    @PostMapping("/reload")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> reload() {
+        return currentUserService.requireAdmin().then(adminWhitelistService.publishChange());
+    }
+}
@@ -1,7 +1,14 @@
 package cn.cuckoox.wisediet.controller;
 
 import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
 import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
 @Data
 public class DishFormData {
@@ -16,8 +23,25 @@ public class DishFormData {
     private String nutrientTags;
     private String nutrients;
 
-    public DishLibraryRequest toRequest() {
+    /**
+     * 表单中的食材、步骤与营养成分为 JSON 文本，解析失败返回 400。
+     */
+    public DishLibraryRequest toRequest(JsonMapper jsonMapper) {
         return new DishLibraryRequest(name, category, difficulty, prepMin, cookMin, servings,
-                ingredients, steps, nutrientTags, nutrients);
+                parse(jsonMapper, "ingredients", ingredients, DishIngredients.class),
+                parse(jsonMapper, "steps", steps, DishSteps.class),
+                nutrientTags,
+                parse(jsonMapper, "nutrients", nutrients, Nutrients.class));
+    }
+
+    private static <T> T parse(JsonMapper jsonMapper, String field, String json, Class<T> type) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return jsonMapper.readValue(json, type);
+        } catch (JacksonException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid JSON in " + field);
+        }
     }
 }
@@ -1,14 +1,21 @@
 package cn.cuckoox.wisediet.controller;
 
+import cn.cuckoox.wisediet.controller.dto.DishImportResponse;
 import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
 import cn.cuckoox.wisediet.controller.dto.DishLibraryResponse;
-import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
+import cn.cuckoox.wisediet.controller.dto.DishPageResponse;
 import cn.cuckoox.wisediet.security.CurrentUserService;
 import cn.cuckoox.wisediet.service.DishLibraryService;
+import cn.cuckoox.wisediet.service.DishLibraryTransferService;
 import jakarta.validation.Valid;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
@@ -17,39 +24,38 @@ import java.util.Map;
 @RequestMapping("/api/admin/dishes")
 public class DishLibraryController {
 
+    private static final String TEXT_CSV = "text/csv";
+
     private final DishLibraryService dishLibraryService;
-    private final AdminWhitelistRepository adminWhitelistRepository;
+    private final DishLibraryTransferService dishLibraryTransferService;
     private final CurrentUserService currentUserService;
 
     public DishLibraryController(DishLibraryService dishLibraryService,
-                                  AdminWhitelistRepository adminWhitelistRepository,
+                                  DishLibraryTransferService dishLibraryTransferService,
                                   CurrentUserService currentUserService) {
         this.dishLibraryService = dishLibraryService;
-        this.adminWhitelistRepository = adminWhitelistRepository;
+        this.dishLibraryTransferService = dishLibraryTransferService;
         this.currentUserService = currentUserService;
     }
 
     @GetMapping
-    public Mono<Map<String, Object>> list(
-            @RequestParam(defaultValue = "0") int page,
+    public Mono<DishPageResponse> list(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "false") boolean activeOnly) {
-        return requireAdmin()
-                .then(Mono.zip(
-                        dishLibraryService.findAll(page, size, activeOnly).collectList(),
-                        dishLibraryService.count(activeOnly)
-                ))
-                .map(tuple -> Map.of(
-                        "content", tuple.getT1(),
-                        "total", tuple.getT2(),
-                        "page", page,
-                        "size", size
-                ));
+        return currentUserService.requireAdmin()
+                .then(dishLibraryService.findPage(cursor, size, activeOnly));
+    }
+
+    @GetMapping("/search")
+    public Flux<DishLibraryResponse> search(@RequestParam String q,
+                                            @RequestParam(defaultValue = "20") int size) {
+        return currentUserService.requireAdmin().thenMany(dishLibraryService.search(q, size));
     }
 
     @GetMapping("/{id}")
     public Mono<DishLibraryResponse> getById(@PathVariable Long id) {
-        return requireAdmin()
+        return currentUserService.requireAdmin()
                 .then(dishLibraryService.findById(id))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
@@ -57,12 +63,12 @@ public class DishLibraryController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<DishLibraryResponse> create(@Valid @RequestBody DishLibraryRequest request) {
-        return requireAdmin().then(dishLibraryService.create(request));
+        return currentUserService.requireAdmin().then(dishLibraryService.create(request));
     }
 
     @PutMapping("/{id}")
     public Mono<DishLibraryResponse> update(@PathVariable Long id, @Valid @RequestBody DishLibraryRequest request) {
-        return requireAdmin()
+        return currentUserService.requireAdmin()
                 .then(dishLibraryService.update(id, request))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
@@ -70,7 +76,7 @@ public class DishLibraryController {
     @PatchMapping("/{id}/status")
     public Mono<DishLibraryResponse> updateStatus(@PathVariable Long id, @RequestBody Map<String, Boolean> body) {
         boolean isActive = Boolean.TRUE.equals(body.get("isActive"));
-        return requireAdmin()
+        return currentUserService.requireAdmin()
                 .then(dishLibraryService.updateStatus(id, isActive))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
@@ -78,14 +84,37 @@ public class DishLibraryController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> delete(@PathVariable Long id) {
-        return requireAdmin().then(dishLibraryService.delete(id));
+        return currentUserService.requireAdmin().then(dishLibraryService.delete(id));
+    }
+
+    /**
+     * 请求体按行流式解析：每行一个 JSON 对象，字段同 DishLibraryRequest。
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<DishImportResponse> importNdjson(@RequestBody Flux<DataBuffer> body) {
+        return currentUserService.requireAdmin()
+                .then(dishLibraryTransferService.importDishes(body, DishLibraryTransferService.Format.NDJSON));
+    }
+
+    /**
+     * 首行为表头，列名同 DishLibraryRequest 字段；可直接导入 /export?format=csv 的输出。
+     */
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public Mono<DishImportResponse> importCsv(@RequestBody Flux<DataBuffer> body) {
+        return currentUserService.requireAdmin()
+                .then(dishLibraryTransferService.importDishes(body, DishLibraryTransferService.Format.CSV));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DishLibraryResponse> exportNdjson() {
+        return currentUserService.requireAdmin().thenMany(dishLibraryTransferService.exportAll());
     }
 
-    private Mono<Void> requireAdmin() {
-        return currentUserService.currentUserId()
-                .flatMap(userId -> adminWhitelistRepository.existsByUserId(userId)
-                        .filter(Boolean.TRUE::equals)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN)))
-                        .then());
+    @GetMapping(value = "/export", params = "format=csv", produces = TEXT_CSV)
+    public Mono<ResponseEntity<Flux<String>>> exportCsv() {
+        return currentUserService.requireAdmin()
+                .thenReturn(ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"dish-library.csv\"")
+                        .body(dishLibraryTransferService.exportCsv()));
     }
 }
@@ -0,0 +1,25 @@
+package cn.cuckoox.wisediet.controller;
+
+import cn.cuckoox.wisediet.controller.dto.DishSyncResponse;
+import cn.cuckoox.wisediet.service.DishSyncService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/dishes")
+public class DishSyncController {
+
+    private final DishSyncService dishSyncService;
+
+    public DishSyncController(DishSyncService dishSyncService) {
+        this.dishSyncService = dishSyncService;
+    }
+
+    @GetMapping("/sync")
+    public Mono<DishSyncResponse> sync(@RequestParam(defaultValue = "0") long since) {
+        return dishSyncService.changesSince(since);
+    }
+}
@@ -0,0 +1,31 @@
+package cn.cuckoox.wisediet.controller;
+
+import cn.cuckoox.wisediet.controller.dto.DailyNutritionResponse;
+import cn.cuckoox.wisediet.security.CurrentUserService;
+import cn.cuckoox.wisediet.service.NutritionHistoryService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    private final NutritionHistoryService nutritionHistoryService;
+    private final CurrentUserService currentUserService;
+
+    public HistoryController(NutritionHistoryService nutritionHistoryService, CurrentUserService currentUserService) {
+        this.nutritionHistoryService = nutritionHistoryService;
+        this.currentUserService = currentUserService;
+    }
+
+    @GetMapping("/nutrition")
+    public Mono<List<DailyNutritionResponse>> getNutrition() {
+        return currentUserService.currentUserId()
+                .flatMap(userId -> nutritionHistoryService.lastWeek(userId, LocalDate.now()));
+    }
+}
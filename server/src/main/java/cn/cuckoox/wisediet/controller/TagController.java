@@ -1,44 +1,54 @@
 package cn.cuckoox.wisediet.controller;
 
-import cn.cuckoox.wisediet.model.AllergenTag;
-import cn.cuckoox.wisediet.model.DietaryPreferenceTag;
-import cn.cuckoox.wisediet.model.OccupationTag;
-import cn.cuckoox.wisediet.repository.AllergenTagRepository;
-import cn.cuckoox.wisediet.repository.DietaryPreferenceTagRepository;
-import cn.cuckoox.wisediet.repository.OccupationTagRepository;
+import cn.cuckoox.wisediet.service.TagCatalog;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+/**
+ * 标签字典接口：直接返回 TagCatalog 预编码的字节，携带强 ETag；
+ * If-None-Match 命中时由框架返回 304。
+ */
 @RestController
 @RequestMapping("/api/tags")
 public class TagController {
 
-    private final OccupationTagRepository tagRepository;
-    private final AllergenTagRepository allergenTagRepository;
-    private final DietaryPreferenceTagRepository dietaryPreferenceTagRepository;
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
 
-    public TagController(OccupationTagRepository tagRepository,
-                         AllergenTagRepository allergenTagRepository,
-                         DietaryPreferenceTagRepository dietaryPreferenceTagRepository) {
-        this.tagRepository = tagRepository;
-        this.allergenTagRepository = allergenTagRepository;
-        this.dietaryPreferenceTagRepository = dietaryPreferenceTagRepository;
+    private final TagCatalog tagCatalog;
+
+    public TagController(TagCatalog tagCatalog) {
+        this.tagCatalog = tagCatalog;
     }
 
     @GetMapping("/occupations")
-    public Flux<OccupationTag> getAllTags() {
-        return tagRepository.findAll();
+    public Mono<ResponseEntity<byte[]>> getAllTags() {
+        return respond(TagCatalog.Snapshot::occupations);
     }
 
     @GetMapping("/allergens")
-    public Flux<AllergenTag> getAllAllergenTags() {
-        return allergenTagRepository.findAll();
+    public Mono<ResponseEntity<byte[]>> getAllAllergenTags() {
+        return respond(TagCatalog.Snapshot::allergens);
     }
 
     @GetMapping("/dietary-preferences")
-    public Flux<DietaryPreferenceTag> getAllDietaryPreferenceTags() {
-        return dietaryPreferenceTagRepository.findAll();
+    public Mono<ResponseEntity<byte[]>> getAllDietaryPreferenceTags() {
+        return respond(TagCatalog.Snapshot::dietaryPreferences);
+    }
+
+    private Mono<ResponseEntity<byte[]>> respond(Function<TagCatalog.Snapshot, TagCatalog.EncodedTags> selector) {
+        return tagCatalog.current()
+                .map(selector)
+                .map(tags -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag(tags.etag())
+                        .cacheControl(CACHE_CONTROL)
+                        .body(tags.body()));
     }
 }
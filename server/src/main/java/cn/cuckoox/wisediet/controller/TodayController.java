@@ -2,9 +2,15 @@ package cn.cuckoox.wisediet.controller;
 
 import cn.cuckoox.wisediet.controller.dto.ConfirmMenuRequest;
 import cn.cuckoox.wisediet.controller.dto.MealPlanResponse;
+import cn.cuckoox.wisediet.controller.dto.PlanEvent;
+import cn.cuckoox.wisediet.controller.dto.ShoppingListResponse;
 import cn.cuckoox.wisediet.security.CurrentUserService;
+import cn.cuckoox.wisediet.service.ShoppingListService;
 import cn.cuckoox.wisediet.service.TodayService;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -12,10 +18,14 @@ import reactor.core.publisher.Mono;
 public class TodayController {
 
     private final TodayService todayService;
+    private final ShoppingListService shoppingListService;
     private final CurrentUserService currentUserService;
 
-    public TodayController(TodayService todayService, CurrentUserService currentUserService) {
+    public TodayController(TodayService todayService,
+                           ShoppingListService shoppingListService,
+                           CurrentUserService currentUserService) {
         this.todayService = todayService;
+        this.shoppingListService = shoppingListService;
         this.currentUserService = currentUserService;
     }
 
@@ -25,9 +35,25 @@ public class TodayController {
                 .flatMap(todayService::getOrCreateTodayPlan);
     }
 
+    /**
+     * 与 /recommendations 返回同一份计划，以 text/event-stream 推送生成进度。
+     */
+    @GetMapping(value = "/recommendations/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PlanEvent>> streamRecommendations() {
+        return currentUserService.currentUserId()
+                .flatMapMany(todayService::streamTodayPlan)
+                .map(event -> ServerSentEvent.builder(event).event(event.type()).build());
+    }
+
     @PostMapping("/confirm")
     public Mono<MealPlanResponse> confirmMenu(@RequestBody ConfirmMenuRequest request) {
         return currentUserService.currentUserId()
                 .flatMap(userId -> todayService.confirmMenu(userId, request.dishIds()));
     }
+
+    @GetMapping("/shopping-list")
+    public Mono<ShoppingListResponse> getShoppingList() {
+        return currentUserService.currentUserId()
+                .flatMap(shoppingListService::getTodayList);
+    }
 }
@@ -0,0 +1,19 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import cn.cuckoox.wisediet.model.DailyNutrition;
+
+import java.time.LocalDate;
+
+public record DailyNutritionResponse(
+        LocalDate date,
+        Double kcal,
+        Double protein,
+        Double carbs,
+        Double fat,
+        Integer dishCount
+) {
+    public static DailyNutritionResponse from(DailyNutrition day) {
+        return new DailyNutritionResponse(day.getDate(), day.getKcal(), day.getProtein(),
+                day.getCarbs(), day.getFat(), day.getDishCount());
+    }
+}
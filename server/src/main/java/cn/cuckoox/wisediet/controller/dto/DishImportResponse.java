@@ -0,0 +1,19 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import java.util.List;
+
+/**
+ * 批量导入结果；errors 只保留前若干条，failed 为失败行总数。
+ */
+public record DishImportResponse(
+        long inserted,
+        long updated,
+        long failed,
+        List<RowError> errors
+) {
+    /**
+     * line 为行号（从 1 开始，CSV 含表头行）。
+     */
+    public record RowError(long line, String message) {
+    }
+}
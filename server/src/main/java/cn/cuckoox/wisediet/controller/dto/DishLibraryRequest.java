@@ -1,16 +1,20 @@
 package cn.cuckoox.wisediet.controller.dto;
 
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 public record DishLibraryRequest(
-        @NotBlank String name,
-        @NotBlank String category,
+        @NotBlank @Size(max = 100) String name,
+        @NotBlank @Size(max = 30) String category,
         Integer difficulty,
         Integer prepMin,
         Integer cookMin,
         Integer servings,
-        String ingredients,
-        String steps,
+        DishIngredients ingredients,
+        DishSteps steps,
         String nutrientTags,
-        String nutrients
+        Nutrients nutrients
 ) {}
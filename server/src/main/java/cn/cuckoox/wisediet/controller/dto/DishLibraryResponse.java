@@ -1,5 +1,9 @@
 package cn.cuckoox.wisediet.controller.dto;
 
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
 import java.time.LocalDateTime;
 
 public record DishLibraryResponse(
@@ -10,10 +14,19 @@ public record DishLibraryResponse(
         Integer prepMin,
         Integer cookMin,
         Integer servings,
-        String ingredients,
-        String steps,
+        DishIngredients ingredients,
+        DishSteps steps,
         String nutrientTags,
-        String nutrients,
+        Nutrients nutrients,
         Boolean isActive,
         LocalDateTime createdAt
-) {}
+) {
+    public static DishLibraryResponse from(DishLibrary d) {
+        return new DishLibraryResponse(
+                d.getId(), d.getName(), d.getCategory(),
+                d.getDifficulty(), d.getPrepMin(), d.getCookMin(), d.getServings(),
+                d.getIngredients(), d.getSteps(), d.getNutrientTags(), d.getNutrients(),
+                d.getIsActive(), d.getCreatedAt()
+        );
+    }
+}
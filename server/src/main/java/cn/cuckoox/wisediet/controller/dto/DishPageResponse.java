@@ -0,0 +1,13 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import java.util.List;
+
+/**
+ * 菜品库游标分页结果；nextCursor 为 null 表示已到最后一页，total 为缓存计数，可能略有滞后。
+ */
+public record DishPageResponse(
+        List<DishLibraryResponse> content,
+        long total,
+        int size,
+        String nextCursor
+) {}
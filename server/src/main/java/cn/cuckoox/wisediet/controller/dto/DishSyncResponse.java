@@ -0,0 +1,45 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 菜品库增量同步结果。客户端保存 version，下次以 since=version 请求；
+ * reset 为 true 时 upserts 是完整的启用菜品列表，客户端应先清空本地数据。
+ * deleted 包含已删除和已停用的菜品 ID。
+ */
+public record DishSyncResponse(
+        long version,
+        boolean reset,
+        List<SyncedDish> upserts,
+        List<Long> deleted
+) {
+    /**
+     * 省略空字段与客户端用不到的启用状态、创建时间。
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record SyncedDish(
+            Long id,
+            String name,
+            String category,
+            Integer difficulty,
+            Integer prepMin,
+            Integer cookMin,
+            Integer servings,
+            DishIngredients ingredients,
+            DishSteps steps,
+            String nutrientTags,
+            Nutrients nutrients
+    ) {
+        public static SyncedDish from(DishLibrary d) {
+            return new SyncedDish(d.getId(), d.getName(), d.getCategory(),
+                    d.getDifficulty(), d.getPrepMin(), d.getCookMin(), d.getServings(),
+                    d.getIngredients(), d.getSteps(), d.getNutrientTags(), d.getNutrients());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import cn.cuckoox.wisediet.model.Dish;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 计划生成进度事件：status 事件携带 pending / ready，dish 事件携带一道菜品；
+ * 生成过程中推送的菜品尚未落库，mealPlanId 与菜品 id 为空。
+ * ready 事件的 planStatus 为计划当前状态（pending 或 confirmed）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PlanEvent(
+        String status,
+        Long mealPlanId,
+        String planStatus,
+        Dish dish
+) {
+    public static final String PENDING = "pending";
+    public static final String READY = "ready";
+
+    public static PlanEvent pending() {
+        return new PlanEvent(PENDING, null, null, null);
+    }
+
+    public static PlanEvent dish(Long mealPlanId, Dish dish) {
+        return new PlanEvent(null, mealPlanId, null, dish);
+    }
+
+    public static PlanEvent ready(Long mealPlanId, String planStatus) {
+        return new PlanEvent(READY, mealPlanId, planStatus, null);
+    }
+
+    /**
+     * SSE 事件名。
+     */
+    @JsonIgnore
+    public String type() {
+        return dish != null ? "dish" : "status";
+    }
+}
@@ -0,0 +1,15 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record PlanGenerationStatus(
+        LocalDate date,
+        boolean running,
+        long processed,
+        long created,
+        long failed,
+        Instant startedAt,
+        Instant finishedAt,
+        double plansPerSecond
+) {}
@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet.controller.dto;
 
+import cn.cuckoox.wisediet.model.TagIds;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -9,8 +10,8 @@ public record ProfileUpdateRequest(
         Double height,
         Double weight,
         Integer familyMembers,
-        String occupationTagIds,
-        String allergenTagIds,
-        String dietaryPreferenceTagIds,
+        TagIds occupationTagIds,
+        TagIds allergenTagIds,
+        TagIds dietaryPreferenceTagIds,
         String customAvoidedIngredients
 ) {}
@@ -0,0 +1,18 @@
+package cn.cuckoox.wisediet.controller.dto;
+
+import cn.cuckoox.wisediet.model.ShoppingItem;
+import cn.cuckoox.wisediet.model.ShoppingList;
+
+import java.util.List;
+import java.util.Map;
+
+public record ShoppingListResponse(
+        Long mealPlanId,
+        String status,
+        Map<String, List<ShoppingItem>> aisles
+) {
+    public static ShoppingListResponse from(ShoppingList list) {
+        return new ShoppingListResponse(list.getMealPlanId(), list.getStatus(),
+                list.getAisles() != null ? list.getAisles().aisles() : Map.of());
+    }
+}
@@ -0,0 +1,44 @@
+package cn.cuckoox.wisediet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+
+/**
+ * 为本应用的 @Service bean 套上 wisediet.service 计时代理（tag：class / method / outcome）。
+ * 仓库调用由 Spring Data 的 spring.data.repository.invocations 计时，这里不重复包装。
+ */
+public class ServiceTimingPostProcessor implements BeanPostProcessor, Ordered {
+
+    public static final String METRIC = "wisediet.service";
+
+    private static final String BASE_PACKAGE = "cn.cuckoox.wisediet.";
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public ServiceTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> type = AopUtils.getTargetClass(bean);
+        if (!type.getName().startsWith(BASE_PACKAGE) || !AnnotatedElementUtils.hasAnnotation(type, Service.class)) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TimingInterceptor(METRIC, type.getSimpleName(), registry.getObject()));
+        return factory.getProxy(type.getClassLoader());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
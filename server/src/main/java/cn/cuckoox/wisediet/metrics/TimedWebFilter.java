@@ -0,0 +1,73 @@
+package cn.cuckoox.wisediet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 为 WebFilter 计时：只统计过滤器自身的耗时，即从订阅到调用后续链（outcome=passed）
+ * 或未调用后续链直接结束（rejected / handled）、出错（error）、被取消（cancelled）为止。
+ * 过滤器运行在路由匹配之前，endpoint 取 "方法 路径"，路径中的数字段归一为 {id}。
+ */
+public class TimedWebFilter implements WebFilter {
+
+    public static final String METRIC = "wisediet.filter";
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final String name;
+    private final WebFilter delegate;
+    private final MeterRegistry registry;
+
+    public TimedWebFilter(String name, WebFilter delegate, MeterRegistry registry) {
+        this.name = name;
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean stopped = new AtomicBoolean();
+            String endpoint = endpoint(exchange.getRequest());
+            WebFilterChain timed = next -> Mono.defer(() -> {
+                stop(stopped, start, endpoint, "passed");
+                return chain.filter(next);
+            });
+            return delegate.filter(exchange, timed)
+                    .doOnSuccess(ignored -> stop(stopped, start, endpoint, completedOutcome(exchange)))
+                    .doOnError(ex -> stop(stopped, start, endpoint, "error"))
+                    .doOnCancel(() -> stop(stopped, start, endpoint, "cancelled"));
+        });
+    }
+
+    private void stop(AtomicBoolean stopped, long start, String endpoint, String outcome) {
+        if (stopped.compareAndSet(false, true)) {
+            Timer.builder(METRIC)
+                    .tag("filter", name)
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String completedOutcome(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.isError() ? "rejected" : "handled";
+    }
+
+    static String endpoint(ServerHttpRequest request) {
+        String path = NUMERIC_SEGMENT.matcher(request.getPath().value()).replaceAll("/{id}");
+        return request.getMethod().name() + " " + path;
+    }
+}
@@ -0,0 +1,78 @@
+package cn.cuckoox.wisediet.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 方法计时：返回 Mono / Flux 时从订阅计到终止信号，其余方法计同步调用耗时。
+ * outcome 为 success / error / cancelled。
+ */
+class TimingInterceptor implements MethodInterceptor {
+
+    private final String metric;
+    private final String component;
+    private final MeterRegistry registry;
+    private final Map<Method, Meter.MeterProvider<Timer>> timers = new ConcurrentHashMap<>();
+
+    TimingInterceptor(String metric, String component, MeterRegistry registry) {
+        this.metric = metric;
+        this.component = component;
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        Meter.MeterProvider<Timer> timer = timers.computeIfAbsent(method, m -> Timer.builder(metric)
+                .tag("class", component)
+                .tag("method", m.getName())
+                .withRegistry(registry));
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable ex) {
+            record(timer, start, "error");
+            throw ex;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doFinally(signal -> record(timer, subscribed, outcome(signal)));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux.doFinally(signal -> record(timer, subscribed, outcome(signal)));
+            });
+        }
+        record(timer, start, "success");
+        return result;
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+    }
+
+    private static void record(Meter.MeterProvider<Timer> timer, long start, String outcome) {
+        timer.withTag("outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
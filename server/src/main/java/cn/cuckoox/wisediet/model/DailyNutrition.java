@@ -0,0 +1,29 @@
+package cn.cuckoox.wisediet.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * 用户单日营养汇总：当日计划中选中菜品的每份营养之和，由 NutritionHistoryService 维护。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("daily_nutrition")
+public class DailyNutrition {
+    @Id
+    private Long id;
+    private Long userId;
+    private LocalDate date;
+    private Double kcal;
+    private Double protein;
+    private Double carbs;
+    private Double fat;
+    private Integer dishCount;
+    private LocalDateTime updatedAt;
+}
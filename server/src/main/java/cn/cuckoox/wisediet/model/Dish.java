@@ -23,4 +23,5 @@ public class Dish {
     private String nutrientTags;
     private Boolean selected;
     private String mealType;
+    private Long dishLibraryId;
 }
@@ -0,0 +1,18 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.List;
+
+/**
+ * dish_library.ingredients 列（JSONB 数组）的值类型，JSON 中直接表现为数组。
+ */
+public record DishIngredients(@JsonValue List<Ingredient> items) {
+
+    public static final DishIngredients EMPTY = new DishIngredients(List.of());
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public DishIngredients {
+        items = items == null ? List.of() : List.copyOf(items);
+    }
+}
@@ -20,10 +20,10 @@ public class DishLibrary {
     private Integer prepMin;
     private Integer cookMin;
     private Integer servings;
-    private String ingredients;
-    private String steps;
+    private DishIngredients ingredients;
+    private DishSteps steps;
     private String nutrientTags;
-    private String nutrients;
+    private Nutrients nutrients;
     private Boolean isActive;
     private LocalDateTime createdAt;
 }
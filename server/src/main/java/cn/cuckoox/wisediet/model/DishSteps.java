@@ -0,0 +1,18 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.List;
+
+/**
+ * dish_library.steps 列（JSONB 字符串数组）的值类型，JSON 中直接表现为数组。
+ */
+public record DishSteps(@JsonValue List<String> items) {
+
+    public static final DishSteps EMPTY = new DishSteps(List.of());
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public DishSteps {
+        items = items == null ? List.of() : List.copyOf(items);
+    }
+}
@@ -0,0 +1,65 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import tools.jackson.databind.JsonNode;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 菜品食材：名称、克数与超市货架分区；无法折算为克时（如 "2 个"、"1 tbsp"、"适量"）
+ * grams 为空，原数量与单位保留在 amount / unit。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Ingredient(String name, Double grams, Double amount, String unit, String aisle) {
+
+    /** 可折算为克的质量单位（小写）→ 每单位克数；与 schema.sql 中旧数据迁移保持一致。 */
+    private static final Map<String, Double> GRAMS_PER_UNIT = Map.of(
+            "g", 1.0, "克", 1.0, "kg", 1000.0, "千克", 1000.0, "公斤", 1000.0,
+            "斤", 500.0, "两", 50.0, "mg", 0.001, "毫克", 0.001);
+
+    private static final Pattern DECIMAL = Pattern.compile("[0-9]+([.][0-9]+)?");
+
+    public Ingredient(String name, Double grams, String aisle) {
+        this(name, grams, null, null, aisle);
+    }
+
+    /**
+     * 兼容旧格式 {"item":"虾仁","amount":200,"unit":"g"}：质量单位折算为 grams，
+     * 其他单位保留 amount / unit；amount 为非数字文本时并入 unit。
+     */
+    @JsonCreator
+    public static Ingredient of(@JsonProperty("name") @JsonAlias("item") String name,
+                                @JsonProperty("grams") Double grams,
+                                @JsonProperty("aisle") String aisle,
+                                @JsonProperty("amount") JsonNode amount,
+                                @JsonProperty("unit") String unit) {
+        String trimmedUnit = unit != null && !unit.isBlank() ? unit.strip() : null;
+        Double quantity = null;
+        String text = null;
+        if (amount != null && amount.isNumber()) {
+            quantity = amount.asDouble();
+        } else if (amount != null && amount.isString() && !amount.asString().isBlank()) {
+            text = amount.asString().strip();
+            if (DECIMAL.matcher(text).matches()) {
+                quantity = Double.valueOf(text);
+                text = null;
+            }
+        }
+        if (grams != null) {
+            return new Ingredient(name, grams, aisle);
+        }
+        Double factor = trimmedUnit != null ? GRAMS_PER_UNIT.get(trimmedUnit.toLowerCase(Locale.ROOT)) : null;
+        if (quantity != null && factor != null) {
+            return new Ingredient(name, quantity * factor, aisle);
+        }
+        if (text != null) {
+            trimmedUnit = trimmedUnit != null ? text + " " + trimmedUnit : text;
+        }
+        return new Ingredient(name, null, quantity, trimmedUnit, aisle);
+    }
+}
@@ -0,0 +1,15 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 每份营养成分；兼容旧字段名 calories / protein_g / carb_g / fat_g。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Nutrients(
+        @JsonAlias("calories") Double kcal,
+        @JsonAlias("protein_g") Double protein,
+        @JsonAlias("carb_g") Double carbs,
+        @JsonAlias("fat_g") Double fat
+) {}
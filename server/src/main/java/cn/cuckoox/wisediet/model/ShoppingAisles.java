@@ -0,0 +1,17 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * shopping_lists.aisles 列（JSONB 对象）的值类型：货架分区 → 采购项。
+ */
+public record ShoppingAisles(@JsonValue Map<String, List<ShoppingItem>> aisles) {
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public ShoppingAisles {
+        aisles = aisles == null ? Map.of() : Map.copyOf(aisles);
+    }
+}
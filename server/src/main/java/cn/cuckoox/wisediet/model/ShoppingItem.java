@@ -0,0 +1,9 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 采购清单中的一项；unit 为 "g" 时 quantity 为按家庭人数折算后的克数，无计量的食材两者均为空。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShoppingItem(String name, String unit, Double quantity) {}
@@ -0,0 +1,25 @@
+package cn.cuckoox.wisediet.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * 每份已确认计划对应一行采购清单；status 为 computing 时分区仍在逐个写入，
+ * generation 标识当前有效的那一次计算。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("shopping_lists")
+public class ShoppingList {
+    @Id
+    private Long mealPlanId;
+    private String status;
+    private ShoppingAisles aisles;
+    private Long generation;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,89 @@
+package cn.cuckoox.wisediet.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * 不可变的标签 id 集合：内部为去重升序的 long[]，成员判断为二分查找。
+ * 数据库中存为 BIGINT[]，JSON 中保持与客户端约定的逗号分隔字符串（如 "1,3"）。
+ */
+public final class TagIds {
+
+    public static final TagIds EMPTY = new TagIds(new long[0]);
+
+    private final long[] ids;
+
+    private TagIds(long[] ids) {
+        this.ids = ids;
+    }
+
+    public static TagIds of(long... ids) {
+        long[] sorted = Arrays.stream(ids).sorted().distinct().toArray();
+        return sorted.length == 0 ? EMPTY : new TagIds(sorted);
+    }
+
+    /**
+     * 解析逗号分隔的 id 串；空串得到空集合，非数字项抛出 IllegalArgumentException。
+     */
+    @JsonCreator
+    public static TagIds parse(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return EMPTY;
+        }
+        return of(Arrays.stream(csv.split(","))
+                .map(String::strip)
+                .filter(term -> !term.isEmpty())
+                .mapToLong(Long::parseLong)
+                .toArray());
+    }
+
+    public static TagIds fromArray(Long[] values) {
+        if (values == null || values.length == 0) {
+            return EMPTY;
+        }
+        return of(Arrays.stream(values).filter(value -> value != null).mapToLong(Long::longValue).toArray());
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(ids);
+    }
+
+    public Long[] toArray() {
+        Long[] boxed = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxed[i] = ids[i];
+        }
+        return boxed;
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return Arrays.stream(ids).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof TagIds that && Arrays.equals(ids, that.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+}
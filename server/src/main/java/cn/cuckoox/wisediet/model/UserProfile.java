@@ -36,12 +36,12 @@ public class UserProfile {
     @DecimalMin("35")
     @DecimalMax("150")
     private Double weight;
-    private String occupationTagIds; // Stored as comma-separated string
+    private TagIds occupationTagIds; // 存为 BIGINT[]，JSON 中为逗号分隔字符串
     @NotNull
     @Min(1)
     @Max(12)
     private Integer familyMembers;
-    private String allergenTagIds;
-    private String dietaryPreferenceTagIds;
+    private TagIds allergenTagIds;
+    private TagIds dietaryPreferenceTagIds;
     private String customAvoidedIngredients;
 }
@@ -1,10 +1,16 @@
 package cn.cuckoox.wisediet.repository;
 
 import cn.cuckoox.wisediet.model.AdminWhitelist;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Mono;
 
 public interface AdminWhitelistRepository extends ReactiveCrudRepository<AdminWhitelist, Long> {
     Mono<AdminWhitelist> findByUserId(Long userId);
     Mono<Boolean> existsByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM admin_whitelist WHERE user_id = :userId")
+    Mono<Integer> deleteByUserId(Long userId);
 }
@@ -0,0 +1,69 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.DailyNutrition;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Repository
+public interface DailyNutritionRepository extends R2dbcRepository<DailyNutrition, Long> {
+
+    /**
+     * 汇总选中菜品的菜谱每份营养；无营养数据或非菜谱来源的菜品只计数。后接 WHERE 条件与 ROLLUP_UPSERT。
+     */
+    String ROLLUP_SELECT = "INSERT INTO daily_nutrition (user_id, date, kcal, protein, carbs, fat, dish_count, updated_at) "
+            + "SELECT p.user_id, p.date, "
+            + "COALESCE(SUM((l.nutrients ->> 'kcal')::DOUBLE PRECISION), 0), "
+            + "COALESCE(SUM((l.nutrients ->> 'protein')::DOUBLE PRECISION), 0), "
+            + "COALESCE(SUM((l.nutrients ->> 'carbs')::DOUBLE PRECISION), 0), "
+            + "COALESCE(SUM((l.nutrients ->> 'fat')::DOUBLE PRECISION), 0), "
+            + "COUNT(d.id), NOW() "
+            + "FROM meal_plans p "
+            + "LEFT JOIN dishes d ON d.meal_plan_id = p.id AND d.selected "
+            + "LEFT JOIN dish_library l ON l.id = d.dish_library_id ";
+
+    String ROLLUP_UPSERT = "GROUP BY p.user_id, p.date "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET kcal = EXCLUDED.kcal, protein = EXCLUDED.protein, "
+            + "carbs = EXCLUDED.carbs, fat = EXCLUDED.fat, dish_count = EXCLUDED.dish_count, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    /**
+     * 重算单个计划所在的那一天（confirmMenu 后调用）。
+     */
+    @Modifying
+    @Query(ROLLUP_SELECT + "WHERE p.id = :mealPlanId " + ROLLUP_UPSERT)
+    Mono<Integer> refreshPlan(Long mealPlanId);
+
+    /**
+     * 选中过该菜谱的计划（菜谱营养被修改或菜谱被删除后需要重算）；由 idx_dishes_dish_library_selected 定位。
+     */
+    @Query("SELECT DISTINCT meal_plan_id FROM dishes WHERE dish_library_id = :dishLibraryId AND selected")
+    Flux<Long> findSelectedPlanIds(Long dishLibraryId);
+
+    /**
+     * 按批重算一组计划所在的日期。
+     */
+    @Modifying
+    @Query(ROLLUP_SELECT + "WHERE p.id = ANY(:mealPlanIds) " + ROLLUP_UPSERT)
+    Mono<Integer> refreshPlans(Long[] mealPlanIds);
+
+    /**
+     * 批量导入覆盖已有菜谱后，一次重算所有受影响的日期。
+     */
+    @Modifying
+    @Query(ROLLUP_SELECT
+            + "WHERE p.id IN (SELECT meal_plan_id FROM dishes WHERE dish_library_id = ANY(:dishLibraryIds) AND selected) "
+            + ROLLUP_UPSERT)
+    Mono<Integer> refreshByDishLibraryIds(Long[] dishLibraryIds);
+
+    /**
+     * 滑动窗口 (from, to]，经 uk_daily_nutrition_user_date 最多读取窗口天数行。
+     */
+    @Query("SELECT * FROM daily_nutrition WHERE user_id = :userId AND date > :from AND date <= :to ORDER BY date")
+    Flux<DailyNutrition> findWindow(Long userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,22 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.Dish;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 按计划批量读写菜品的语句，每个方法固定一次数据库往返。
+ */
+public interface DishBatchOperations {
+
+    /**
+     * 单条多行 INSERT ... RETURNING；Postgres 不保证 RETURNING 的行序，返回前按插入列的值对应回传入顺序。
+     */
+    Flux<Dish> insertAll(List<Dish> dishes);
+
+    /**
+     * 将计划内 selectedIds 中的菜品标记为选中、其余取消选中，返回更新后的全部菜品（按 id 排序）。
+     */
+    Flux<Dish> updateSelection(Long mealPlanId, List<Long> selectedIds);
+}
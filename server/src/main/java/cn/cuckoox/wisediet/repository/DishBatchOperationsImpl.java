@@ -0,0 +1,114 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.Dish;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class DishBatchOperationsImpl implements DishBatchOperations {
+
+    private static final String INSERT_COLUMNS = "meal_plan_id, name, recommendation_reason, image_url, "
+            + "difficulty, prep_min, cook_min, nutrient_tags, selected, meal_type, dish_library_id";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    DishBatchOperationsImpl(R2dbcEntityTemplate entityTemplate) {
+        this.databaseClient = entityTemplate.getDatabaseClient();
+        this.converter = entityTemplate.getConverter();
+    }
+
+    @Override
+    public Flux<Dish> insertAll(List<Dish> dishes) {
+        if (dishes.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO dishes (").append(INSERT_COLUMNS).append(") VALUES ");
+        for (int i = 0; i < dishes.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:mealPlanId").append(i)
+                    .append(", :name").append(i)
+                    .append(", :reason").append(i)
+                    .append(", :imageUrl").append(i)
+                    .append(", :difficulty").append(i)
+                    .append(", :prepMin").append(i)
+                    .append(", :cookMin").append(i)
+                    .append(", :nutrientTags").append(i)
+                    .append(", :selected").append(i)
+                    .append(", :mealType").append(i)
+                    .append(", :dishLibraryId").append(i)
+                    .append(')');
+        }
+        sql.append(" RETURNING *");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < dishes.size(); i++) {
+            Dish dish = dishes.get(i);
+            spec = bind(spec, "mealPlanId" + i, dish.getMealPlanId(), Long.class);
+            spec = bind(spec, "name" + i, dish.getName(), String.class);
+            spec = bind(spec, "reason" + i, dish.getRecommendationReason(), String.class);
+            spec = bind(spec, "imageUrl" + i, dish.getImageUrl(), String.class);
+            spec = bind(spec, "difficulty" + i, dish.getDifficulty(), Integer.class);
+            spec = bind(spec, "prepMin" + i, dish.getPrepMin(), Integer.class);
+            spec = bind(spec, "cookMin" + i, dish.getCookMin(), Integer.class);
+            spec = bind(spec, "nutrientTags" + i, dish.getNutrientTags(), String.class);
+            spec = bind(spec, "selected" + i, dish.getSelected() != null ? dish.getSelected() : Boolean.FALSE, Boolean.class);
+            spec = bind(spec, "mealType" + i, dish.getMealType(), String.class);
+            spec = bind(spec, "dishLibraryId" + i, dish.getDishLibraryId(), Long.class);
+        }
+        return spec.map((row, metadata) -> converter.read(Dish.class, row, metadata))
+                .all()
+                .collectList()
+                .flatMapIterable(rows -> inInputOrder(dishes, rows));
+    }
+
+    /**
+     * 以插入列的值（不含 id）对应返回行与传入菜品；各列都相同的菜品互换不影响结果。
+     */
+    static List<Dish> inInputOrder(List<Dish> dishes, List<Dish> rows) {
+        Map<List<Object>, Deque<Dish>> byKey = new HashMap<>();
+        for (Dish row : rows) {
+            byKey.computeIfAbsent(insertedValues(row), key -> new ArrayDeque<>()).add(row);
+        }
+        List<Dish> ordered = new ArrayList<>(rows.size());
+        for (Dish dish : dishes) {
+            Deque<Dish> matches = byKey.get(insertedValues(dish));
+            if (matches != null && !matches.isEmpty()) {
+                ordered.add(matches.poll());
+            }
+        }
+        return ordered;
+    }
+
+    private static List<Object> insertedValues(Dish dish) {
+        return Arrays.asList(dish.getMealPlanId(), dish.getName(), dish.getRecommendationReason(), dish.getImageUrl(),
+                dish.getDifficulty(), dish.getPrepMin(), dish.getCookMin(), dish.getNutrientTags(),
+                Boolean.TRUE.equals(dish.getSelected()), dish.getMealType(), dish.getDishLibraryId());
+    }
+
+    @Override
+    public Flux<Dish> updateSelection(Long mealPlanId, List<Long> selectedIds) {
+        Long[] ids = selectedIds != null ? selectedIds.toArray(Long[]::new) : new Long[0];
+        return databaseClient.sql("UPDATE dishes SET selected = (id = ANY(:ids)) WHERE meal_plan_id = :mealPlanId RETURNING *")
+                .bind("ids", ids)
+                .bind("mealPlanId", mealPlanId)
+                .map((row, metadata) -> converter.read(Dish.class, row, metadata))
+                .all()
+                .sort(Comparator.comparing(Dish::getId));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec,
+                                                          String name, Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
@@ -0,0 +1,21 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.DishLibrary;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 菜品库批量写入，每个方法固定一次数据库往返。
+ */
+public interface DishLibraryBatchOperations {
+
+    record Upserted(Long id, String name, boolean inserted) {
+    }
+
+    /**
+     * 单条多行 INSERT ... ON CONFLICT (name) DO UPDATE；新菜品默认启用，已有菜品保留原启用状态。
+     * 同一批内菜名不能重复。
+     */
+    Flux<Upserted> upsertAllByName(List<DishLibrary> dishes);
+}
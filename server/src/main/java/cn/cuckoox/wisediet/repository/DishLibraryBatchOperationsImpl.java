@@ -0,0 +1,83 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.DishLibrary;
+import io.r2dbc.postgresql.codec.Json;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+class DishLibraryBatchOperationsImpl implements DishLibraryBatchOperations {
+
+    private static final String INSERT_COLUMNS = "name, category, difficulty, prep_min, cook_min, servings, "
+            + "ingredients, steps, nutrient_tags, nutrients";
+
+    private static final String ON_CONFLICT = " ON CONFLICT (name) DO UPDATE SET category = EXCLUDED.category, "
+            + "difficulty = EXCLUDED.difficulty, prep_min = EXCLUDED.prep_min, cook_min = EXCLUDED.cook_min, "
+            + "servings = EXCLUDED.servings, ingredients = EXCLUDED.ingredients, steps = EXCLUDED.steps, "
+            + "nutrient_tags = EXCLUDED.nutrient_tags, nutrients = EXCLUDED.nutrients "
+            + "RETURNING id, name, (xmax = 0) AS inserted";
+
+    private final DatabaseClient databaseClient;
+    private final ConversionService conversionService;
+
+    DishLibraryBatchOperationsImpl(R2dbcEntityTemplate entityTemplate) {
+        this.databaseClient = entityTemplate.getDatabaseClient();
+        this.conversionService = entityTemplate.getConverter().getConversionService();
+    }
+
+    @Override
+    public Flux<Upserted> upsertAllByName(List<DishLibrary> dishes) {
+        if (dishes.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO dish_library (").append(INSERT_COLUMNS).append(") VALUES ");
+        for (int i = 0; i < dishes.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:name").append(i)
+                    .append(", :category").append(i)
+                    .append(", :difficulty").append(i)
+                    .append(", :prepMin").append(i)
+                    .append(", :cookMin").append(i)
+                    .append(", :servings").append(i)
+                    .append(", :ingredients").append(i)
+                    .append(", :steps").append(i)
+                    .append(", :nutrientTags").append(i)
+                    .append(", :nutrients").append(i)
+                    .append(')');
+        }
+        sql.append(ON_CONFLICT);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < dishes.size(); i++) {
+            DishLibrary dish = dishes.get(i);
+            spec = bind(spec, "name" + i, dish.getName(), String.class);
+            spec = bind(spec, "category" + i, dish.getCategory(), String.class);
+            spec = bind(spec, "difficulty" + i, dish.getDifficulty(), Integer.class);
+            spec = bind(spec, "prepMin" + i, dish.getPrepMin(), Integer.class);
+            spec = bind(spec, "cookMin" + i, dish.getCookMin(), Integer.class);
+            spec = bind(spec, "servings" + i, dish.getServings(), Integer.class);
+            spec = bind(spec, "ingredients" + i, json(dish.getIngredients()), Json.class);
+            spec = bind(spec, "steps" + i, json(dish.getSteps()), Json.class);
+            spec = bind(spec, "nutrientTags" + i, dish.getNutrientTags(), String.class);
+            spec = bind(spec, "nutrients" + i, json(dish.getNutrients()), Json.class);
+        }
+        return spec.map(row -> new Upserted(row.get("id", Long.class), row.get("name", String.class),
+                        Boolean.TRUE.equals(row.get("inserted", Boolean.class))))
+                .all();
+    }
+
+    /**
+     * 复用 R2dbcConfig 中的 JSONB 写转换器。
+     */
+    private Json json(Object value) {
+        return value != null ? conversionService.convert(value, Json.class) : null;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec,
+                                                          String name, Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
@@ -1,23 +1,56 @@
 package cn.cuckoox.wisediet.repository;
 
 import cn.cuckoox.wisediet.model.DishLibrary;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface DishLibraryRepository extends ReactiveCrudRepository<DishLibrary, Long> {
+public interface DishLibraryRepository extends ReactiveCrudRepository<DishLibrary, Long>, DishLibraryBatchOperations {
 
-    @Query("SELECT * FROM dish_library WHERE is_active = true ORDER BY id LIMIT :#{#pageable.pageSize} OFFSET :#{#pageable.offset}")
-    Flux<DishLibrary> findAllActive(Pageable pageable);
+    @Query("SELECT * FROM dish_library WHERE is_active = true ORDER BY id")
+    Flux<DishLibrary> findAllActive();
+
+    /**
+     * 按食材名精确匹配，走 ingredients 列上的 GIN 索引。
+     */
+    @Query("SELECT * FROM dish_library WHERE is_active = true "
+            + "AND ingredients @> jsonb_build_array(jsonb_build_object('name', CAST(:name AS TEXT))) ORDER BY id")
+    Flux<DishLibrary> findActiveByIngredientName(String name);
+
+    @Query("SELECT * FROM dish_library WHERE is_active = true AND id > :afterId ORDER BY id LIMIT :limit")
+    Flux<DishLibrary> findActiveAfter(long afterId, int limit);
 
     @Query("SELECT COUNT(*) FROM dish_library WHERE is_active = true")
     Mono<Long> countActive();
 
-    @Query("SELECT * FROM dish_library ORDER BY id LIMIT :#{#pageable.pageSize} OFFSET :#{#pageable.offset}")
-    Flux<DishLibrary> findAllPaged(Pageable pageable);
+    @Query("SELECT * FROM dish_library WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<DishLibrary> findAllAfter(long afterId, int limit);
 
     @Query("SELECT COUNT(*) FROM dish_library")
     Mono<Long> countAll();
+
+    @Query("SELECT version FROM dish_library_meta WHERE id = 1")
+    Mono<Long> currentVersion();
+
+    /**
+     * 版本区间 (since, upTo] 内新增或修改过的菜品，含已停用的。
+     */
+    @Query("SELECT * FROM dish_library WHERE version > :since AND version <= :upTo ORDER BY id")
+    Flux<DishLibrary> findChangedBetween(long since, long upTo);
+
+    @Query("SELECT dish_id FROM dish_library_tombstones WHERE version > :since AND version <= :upTo ORDER BY dish_id")
+    Flux<Long> findDeletedIdsBetween(long since, long upTo);
+
+    @Query("SELECT * FROM dish_library WHERE is_active = true AND version <= :upTo ORDER BY id")
+    Flux<DishLibrary> findActiveUpTo(long upTo);
+
+    /**
+     * 全文前缀匹配、子串匹配或菜名模糊匹配任一命中即返回；按全文相关度加菜名相似度排序。
+     */
+    @Query("SELECT * FROM dish_library "
+            + "WHERE search_vector @@ to_tsquery('simple', :tsQuery) OR search_text ILIKE :pattern OR name % :text "
+            + "ORDER BY ts_rank(search_vector, to_tsquery('simple', :tsQuery)) + similarity(name, :text) DESC, id "
+            + "LIMIT :limit")
+    Flux<DishLibrary> search(String tsQuery, String pattern, String text, int limit);
 }
@@ -8,7 +8,7 @@ import reactor.core.publisher.Flux;
 import java.util.List;
 
 @Repository
-public interface DishRepository extends R2dbcRepository<Dish, Long> {
+public interface DishRepository extends R2dbcRepository<Dish, Long>, DishBatchOperations {
     Flux<Dish> findByMealPlanId(Long mealPlanId);
     Flux<Dish> findByMealPlanIdAndIdIn(Long mealPlanId, List<Long> ids);
 }
@@ -1,6 +1,7 @@
 package cn.cuckoox.wisediet.repository;
 
 import cn.cuckoox.wisediet.model.MealPlan;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -10,4 +11,11 @@ import java.time.LocalDate;
 @Repository
 public interface MealPlanRepository extends R2dbcRepository<MealPlan, Long> {
     Mono<MealPlan> findByUserIdAndDate(Long userId, LocalDate date);
+
+    /**
+     * 幂等插入：(user_id, date) 已存在时不写入并返回空。
+     */
+    @Query("INSERT INTO meal_plans (user_id, date, status) VALUES (:userId, :date, :status) "
+            + "ON CONFLICT (user_id, date) DO NOTHING RETURNING *")
+    Mono<MealPlan> insertIfAbsent(Long userId, LocalDate date, String status);
 }
@@ -0,0 +1,44 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.ShoppingList;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Repository
+public interface ShoppingListRepository extends R2dbcRepository<ShoppingList, Long> {
+
+    /**
+     * 经 uk_meal_plans_user_date 与主键各取一行，一次往返读出当日清单。
+     */
+    @Query("SELECT s.* FROM shopping_lists s JOIN meal_plans p ON p.id = s.meal_plan_id "
+            + "WHERE p.user_id = :userId AND p.date = :date")
+    Mono<ShoppingList> findByUserIdAndDate(Long userId, LocalDate date);
+
+    /**
+     * 开始（重新）计算：清空已有分区、置为 computing 并递增 generation，返回本次计算的 generation。
+     */
+    @Query("INSERT INTO shopping_lists (meal_plan_id, status, aisles, generation, updated_at) "
+            + "VALUES (:mealPlanId, 'computing', '{}', 1, NOW()) "
+            + "ON CONFLICT (meal_plan_id) DO UPDATE SET status = 'computing', aisles = '{}', "
+            + "generation = shopping_lists.generation + 1, updated_at = NOW() "
+            + "RETURNING generation")
+    Mono<Long> reset(Long mealPlanId);
+
+    /**
+     * 写入单个货架分区；items 为 ShoppingItem 数组的 JSON 文本。generation 已被更新的计算取代时不写入。
+     */
+    @Modifying
+    @Query("UPDATE shopping_lists SET aisles = aisles || jsonb_build_object(CAST(:aisle AS TEXT), CAST(:items AS JSONB)), "
+            + "updated_at = NOW() WHERE meal_plan_id = :mealPlanId AND generation = :generation")
+    Mono<Integer> putAisle(Long mealPlanId, Long generation, String aisle, String items);
+
+    @Modifying
+    @Query("UPDATE shopping_lists SET status = 'ready', updated_at = NOW() "
+            + "WHERE meal_plan_id = :mealPlanId AND generation = :generation")
+    Mono<Integer> markReady(Long mealPlanId, Long generation);
+}
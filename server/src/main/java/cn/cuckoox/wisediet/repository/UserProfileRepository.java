@@ -1,11 +1,19 @@
 package cn.cuckoox.wisediet.repository;
 
 import cn.cuckoox.wisediet.model.UserProfile;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
 public interface UserProfileRepository extends R2dbcRepository<UserProfile, Long> {
     Mono<UserProfile> findByUserId(Long userId);
+
+    /**
+     * 对过敏原标签数组做包含查询，由 GIN 索引 idx_user_profiles_allergen_tag_ids 支撑。
+     */
+    @Query("SELECT user_id FROM user_profiles WHERE allergen_tag_ids @> ARRAY[:allergenTagId]::BIGINT[]")
+    Flux<Long> findUserIdsByAllergenTagId(long allergenTagId);
 }
@@ -1,15 +1,20 @@
 package cn.cuckoox.wisediet.repository;
 
 import cn.cuckoox.wisediet.model.User;
-import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface UserRepository extends ReactiveCrudRepository<User, Long> {
     Mono<User> findByProviderAndProviderUserId(String provider, String providerUserId);
 
-    @Modifying
-    @Query("UPDATE users SET onboarding_step = 0 WHERE id = :userId")
-    Mono<Void> completeOnboarding(Long userId);
+    /**
+     * 标记引导完成并返回写入后的 onboarding_step，调用方据此同步会话，不必自行假定步骤值。
+     */
+    @Query("UPDATE users SET onboarding_step = 0 WHERE id = :userId RETURNING onboarding_step")
+    Mono<Integer> completeOnboarding(Long userId);
+
+    @Query("SELECT id FROM users WHERE onboarding_step = 0 AND id > :afterId AND id % :partitionCount = :partitionIndex ORDER BY id LIMIT :limit")
+    Flux<Long> findOnboardedIdsAfter(Long afterId, int partitionCount, int partitionIndex, int limit);
 }
@@ -1,9 +1,13 @@
 package cn.cuckoox.wisediet.security;
 
+/**
+ * role 取自已验签 JWT 的 role 声明。
+ */
 public record AuthenticatedUser(
         Long userId,
         String email,
         Integer onboardingStep,
-        String sessionId
+        String sessionId,
+        String role
 ) {
 }
@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet.security;
 
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -10,6 +11,12 @@ import reactor.core.publisher.Mono;
 @Service
 public class CurrentUserService {
 
+    private final AdminWhitelistService adminWhitelistService;
+
+    public CurrentUserService(AdminWhitelistService adminWhitelistService) {
+        this.adminWhitelistService = adminWhitelistService;
+    }
+
     public Mono<AuthenticatedUser> currentUser() {
         return ReactiveSecurityContextHolder.getContext()
                 .map(context -> context.getAuthentication())
@@ -23,4 +30,14 @@ public class CurrentUserService {
     public Mono<Long> currentUserId() {
         return currentUser().map(AuthenticatedUser::userId);
     }
+
+    /**
+     * 管理员校验只读 token 的 role 声明与内存白名单，不访问数据库。
+     */
+    public Mono<Void> requireAdmin() {
+        return currentUser()
+                .filterWhen(user -> adminWhitelistService.hasAdminAccess(user.userId(), user.role()))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN)))
+                .then();
+    }
 }
@@ -4,11 +4,14 @@ import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import cn.cuckoox.wisediet.repository.UserRepository;
 import java.util.Collections;
+import java.util.List;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
@@ -21,11 +24,16 @@ public class JwtAuthenticationFilter implements WebFilter {
     private final JwtService jwtService;
     private final SessionStore sessionStore;
     private final UserRepository userRepository;
+    private final VerifiedTokenCache tokenCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, SessionStore sessionStore, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   SessionStore sessionStore,
+                                   UserRepository userRepository,
+                                   VerifiedTokenCache tokenCache) {
         this.jwtService = jwtService;
         this.sessionStore = sessionStore;
         this.userRepository = userRepository;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -41,37 +49,41 @@ public class JwtAuthenticationFilter implements WebFilter {
         }
 
         String token = authHeader.substring("Bearer ".length());
-        String jti;
+        Jwt jwt;
+        Long tokenUserId;
         try {
-            jti = jwtService.extractJti(token);
+            jwt = tokenCache.resolve(token, jwtService::decodeOnce);
+            tokenUserId = Long.valueOf(jwt.getSubject());
         } catch (Exception ex) {
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
+        String jti = jwt.getId();
+        String role = jwt.getClaimAsString("role");
         if (jti == null || jti.isBlank()) {
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
 
-        return Mono.zip(
-                        jwtService.parseUserId(token),
-                        sessionStore.userIdBySession(jti)
-                                .switchIfEmpty(Mono.error(new IllegalStateException("SESSION_NOT_FOUND")))
-                )
-                .flatMap(tuple -> {
-                    Long tokenUserId = tuple.getT1();
-                    Long sessionUserId = tuple.getT2();
-                    if (!tokenUserId.equals(sessionUserId)) {
+        return sessionStore.principalBySession(jti)
+                .switchIfEmpty(Mono.error(new IllegalStateException("SESSION_NOT_FOUND")))
+                .flatMap(principal -> {
+                    if (!tokenUserId.equals(principal.userId())) {
                         return Mono.error(new IllegalStateException("SESSION_USER_MISMATCH"));
                     }
-                    return userRepository.findById(sessionUserId)
-                            .switchIfEmpty(Mono.error(new IllegalStateException("USER_NOT_FOUND")));
+                    if (principal.isComplete()) {
+                        return Mono.just(new AuthenticatedUser(
+                                principal.userId(), principal.email(), principal.onboardingStep(), jti, role));
+                    }
+                    return userRepository.findById(principal.userId())
+                            .switchIfEmpty(Mono.error(new IllegalStateException("USER_NOT_FOUND")))
+                            .map(user -> new AuthenticatedUser(user.getId(), user.getEmail(), user.getOnboardingStep(), jti, role));
                 })
                 .flatMap(user -> {
                     Authentication authentication = new UsernamePasswordAuthenticationToken(
-                            new AuthenticatedUser(user.getId(), user.getEmail(), user.getOnboardingStep(), jti),
+                            user,
                             token,
-                            Collections.emptyList()
+                            role != null ? List.of(new SimpleGrantedAuthority("ROLE_" + role)) : Collections.emptyList()
                     );
                     return chain.filter(exchange)
                             .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
@@ -0,0 +1,93 @@
+package cn.cuckoox.wisediet.security;
+
+import cn.cuckoox.wisediet.config.JwtProperties;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+/**
+ * 已验签 JWT 的本地缓存：以 token 的 SHA-256 为键，条目在 token 的 exp 到期。
+ * 命中时跳过 HMAC 校验与 JSON 解析；会话是否被吊销仍由 SessionStore 判断。
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Map<String, Jwt> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public VerifiedTokenCache(JwtProperties jwtProperties) {
+        this.maxSize = jwtProperties.getTokenCacheMaxSize();
+    }
+
+    /**
+     * 返回缓存中的 Jwt；未命中或已过期时调用 decoder 验签并写入缓存。
+     * decoder 抛出的异常原样向上传播，失败的 token 不会被缓存。
+     */
+    public Jwt resolve(String token, Function<String, Jwt> decoder) {
+        String key = hash(token);
+        Jwt cached = entries.get(key);
+        if (cached != null) {
+            if (!isExpired(cached, Instant.now())) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            entries.remove(key, cached);
+        }
+        misses.incrementAndGet();
+        Jwt decoded = decoder.apply(token);
+        if (maxSize > 0 && decoded.getExpiresAt() != null) {
+            if (entries.size() >= maxSize) {
+                evict();
+            }
+            entries.put(key, decoded);
+        }
+        return decoded;
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Instant now = Instant.now();
+        entries.values().removeIf(jwt -> isExpired(jwt, now));
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static boolean isExpired(Jwt jwt, Instant now) {
+        return !now.isBefore(jwt.getExpiresAt());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.SessionProperties;
+import cn.cuckoox.wisediet.model.AdminWhitelist;
+import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * 管理员白名单的内存副本：启动时加载，任一节点修改白名单后经失效频道通知所有节点重新加载；
+ * 断线期间错过的失效消息由定期全量重载兜底，过期窗口不超过 app.session.admin-reload-interval。
+ * 管理员判定 = JWT 中已验签的 role=ADMIN 且用户仍在白名单中，两者都不需要访问数据库。
+ */
+@Slf4j
+@Service
+public class AdminWhitelistService {
+
+    public static final String ROLE_ADMIN = "ADMIN";
+
+    private final AdminWhitelistRepository adminWhitelistRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final SessionStore sessionStore;
+    private final String invalidationChannel;
+    private final Duration reloadInterval;
+    private volatile Set<Long> adminIds;
+    private Disposable invalidationSubscription;
+    private Disposable periodicReload;
+
+    public AdminWhitelistService(AdminWhitelistRepository adminWhitelistRepository,
+                                 ReactiveStringRedisTemplate redisTemplate,
+                                 SessionStore sessionStore,
+                                 SessionProperties sessionProperties) {
+        this.adminWhitelistRepository = adminWhitelistRepository;
+        this.redisTemplate = redisTemplate;
+        this.sessionStore = sessionStore;
+        this.invalidationChannel = sessionProperties.getAdminInvalidationChannel();
+        this.reloadInterval = sessionProperties.getAdminReloadInterval();
+    }
+
+    @PostConstruct
+    void subscribeInvalidations() {
+        invalidationSubscription = redisTemplate.listenToChannel(invalidationChannel)
+                .concatMap(message -> reload())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+        periodicReload = Flux.interval(reloadInterval, reloadInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> reload().onErrorResume(ex -> {
+                    log.warn("Periodic admin whitelist reload failed: {}", ex.toString());
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void unsubscribeInvalidations() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+        if (periodicReload != null) {
+            periodicReload.dispose();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload().subscribe(null, ex -> log.warn("Admin whitelist load failed: {}", ex.toString()));
+    }
+
+    /**
+     * 已加载时直接查内存；启动阶段尚未加载时先加载一次。
+     */
+    public Mono<Boolean> isAdmin(Long userId) {
+        Set<Long> ids = adminIds;
+        return ids != null ? Mono.just(ids.contains(userId)) : reload().map(loaded -> loaded.contains(userId));
+    }
+
+    /**
+     * roleClaim 来自已验签的 JWT；被移出白名单的管理员在 token 过期前也会立即失去权限。
+     */
+    public Mono<Boolean> hasAdminAccess(Long userId, String roleClaim) {
+        return ROLE_ADMIN.equals(roleClaim) ? isAdmin(userId) : Mono.just(false);
+    }
+
+    public Mono<Set<Long>> reload() {
+        return adminWhitelistRepository.findAll()
+                .map(AdminWhitelist::getUserId)
+                .collect(Collectors.toUnmodifiableSet())
+                .doOnNext(ids -> adminIds = ids);
+    }
+
+    /**
+     * 加入白名单并吊销该用户现有会话，使其重新登录后拿到 role=ADMIN 的 token。
+     */
+    public Mono<Void> grant(Long userId) {
+        return adminWhitelistRepository.existsByUserId(userId)
+                .flatMap(exists -> exists
+                        ? Mono.<AdminWhitelist>empty()
+                        : adminWhitelistRepository.save(new AdminWhitelist(null, userId)))
+                .then(publishChange())
+                .then(sessionStore.revokeUserSessions(userId));
+    }
+
+    public Mono<Void> revoke(Long userId) {
+        return adminWhitelistRepository.deleteByUserId(userId).then(publishChange());
+    }
+
+    /**
+     * 本节点立即重新加载，其余节点由失效频道触发；直接修改 admin_whitelist 表后也应调用。
+     */
+    public Mono<Void> publishChange() {
+        return reload()
+                .then(redisTemplate.convertAndSend(invalidationChannel, "reload"))
+                .then();
+    }
+}
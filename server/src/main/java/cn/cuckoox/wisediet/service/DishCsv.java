@@ -0,0 +1,85 @@
+package cn.cuckoox.wisediet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 菜品库 CSV 的读写：字段按 RFC 4180 加引号，ingredients / steps / nutrients 列为 JSON 文本。
+ * 导入按表头列名取值，导出的 id / isActive 列在导入时忽略。
+ */
+final class DishCsv {
+
+    static final List<String> COLUMNS = List.of("id", "name", "category", "difficulty", "prepMin", "cookMin",
+            "servings", "ingredients", "steps", "nutrientTags", "nutrients", "isActive");
+
+    static final Set<String> JSON_COLUMNS = Set.of("ingredients", "steps", "nutrients");
+
+    private DishCsv() {
+    }
+
+    /**
+     * 拼成一行（含换行符）；null 写为空字段。
+     */
+    static String line(List<String> cells) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) out.append(',');
+            String cell = cells.get(i);
+            if (cell == null) continue;
+            if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0) {
+                out.append('"').append(cell.replace("\"", "\"\"")).append('"');
+            } else {
+                out.append(cell);
+            }
+        }
+        return out.append('\n').toString();
+    }
+
+    /**
+     * 引号个数为奇数说明引号内含换行，记录需要与下一行拼接。
+     */
+    static boolean isOpen(String record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') quotes++;
+        }
+        return quotes % 2 != 0;
+    }
+
+    static List<String> split(String record) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean afterQuote = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                    afterQuote = true;
+                }
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+                afterQuote = false;
+            } else if (afterQuote) {
+                throw new IllegalArgumentException("Unexpected character after closing quote at column " + (cells.size() + 1));
+            } else if (c == '"' && cell.isEmpty()) {
+                quoted = true;
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
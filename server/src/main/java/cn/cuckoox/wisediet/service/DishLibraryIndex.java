@@ -0,0 +1,402 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.RecommendationProperties;
+import cn.cuckoox.wisediet.model.AllergenTag;
+import cn.cuckoox.wisediet.model.DietaryPreferenceTag;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.AllergenTagRepository;
+import cn.cuckoox.wisediet.repository.DietaryPreferenceTagRepository;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 启用菜品的内存索引：按 id 查找，预先生成供 LLM 使用的紧凑候选清单，
+ * 并以菜品在快照中的下标为位，维护过敏原、饮食禁忌、营养标签、分类与食材的位图。
+ * 快照版本取自重建开始时的 dish_library_meta.version，整体替换快照；并发重建时只保留版本更新的一份。
+ * 本节点写入后立即重建，其他节点写入由定期比对数据库版本发现，落后时重建。
+ */
+@Slf4j
+@Component
+public class DishLibraryIndex {
+
+    /**
+     * 过敏原分类 → 食材关键词；食材名提及任一关键词（或过敏原标签名）即视为含该过敏原，匹配规则见 mentions。
+     */
+    private static final Map<String, List<String>> ALLERGEN_KEYWORDS = Map.of(
+            "nuts", List.of("peanut", "nut", "almond", "cashew", "walnut", "花生", "坚果", "杏仁", "腰果", "核桃"),
+            "dairy", List.of("milk", "cheese", "butter", "cream", "yogurt", "牛奶", "奶酪", "芝士", "黄油", "奶油", "酸奶"),
+            "seafood", List.of("shrimp", "prawn", "crab", "lobster", "clam", "oyster", "虾", "蟹", "贝", "蛤", "蚝"),
+            "eggs", List.of("egg", "蛋"),
+            "grains", List.of("wheat", "flour", "barley", "rye", "bread", "noodle", "pasta", "小麦", "大麦", "面粉", "面条", "面包"),
+            "legumes", List.of("soy", "tofu", "edamame", "大豆", "黄豆", "毛豆", "豆腐", "酱油"));
+
+    private static final List<String> MEAT = List.of("meat", "beef", "pork", "lamb", "mutton", "veal", "chicken",
+            "duck", "goose", "turkey", "bacon", "ham", "sausage", "lard", "gelatin",
+            "牛肉", "猪肉", "羊肉", "鸡肉", "鸭肉", "鹅肉", "鸡胸", "鸡腿", "鸡翅", "排骨", "肉末", "肉丝", "肉片",
+            "五花肉", "腊肉", "火腿", "培根", "香肠", "猪油");
+    private static final List<String> FISH = List.of("seafood", "fish", "salmon", "tuna", "cod", "anchovy",
+            "squid", "鱼");
+    private static final List<String> SHELLFISH = ALLERGEN_KEYWORDS.get("seafood");
+    private static final List<String> PORK = List.of("pork", "bacon", "ham", "lard", "猪", "火腿", "培根", "腊肉");
+
+    /**
+     * 饮食偏好（标签名小写）→ 必须排除的食材关键词，同时匹配食材名与菜品分类（meat_red、seafood 等）。
+     * 偏好标签不会出现在菜品的营养标签里，不能靠标签取交集来表达“不吃什么”；
+     * 未列出的偏好（如 Keto、Paleo）没有硬性排除，只通过标签影响 preferredFor 的排序。
+     */
+    private static final Map<String, List<String>> DIET_EXCLUSIONS = Map.of(
+            "vegetarian", concat(MEAT, FISH, SHELLFISH),
+            "vegan", concat(MEAT, FISH, SHELLFISH, ALLERGEN_KEYWORDS.get("dairy"), ALLERGEN_KEYWORDS.get("eggs"),
+                    List.of("honey", "蜂蜜")),
+            "halal", concat(PORK, List.of("wine", "beer", "rum", "料酒", "黄酒", "啤酒", "白酒")),
+            "kosher", concat(PORK, SHELLFISH));
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final DishLibraryRepository dishLibraryRepository;
+    private final AllergenTagRepository allergenTagRepository;
+    private final DietaryPreferenceTagRepository dietaryPreferenceTagRepository;
+    private final JsonMapper jsonMapper;
+    private final Duration refreshInterval;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private Disposable versionPolling;
+
+    public DishLibraryIndex(DishLibraryRepository dishLibraryRepository,
+                            AllergenTagRepository allergenTagRepository,
+                            DietaryPreferenceTagRepository dietaryPreferenceTagRepository,
+                            JsonMapper jsonMapper,
+                            RecommendationProperties recommendationProperties) {
+        this.dishLibraryRepository = dishLibraryRepository;
+        this.allergenTagRepository = allergenTagRepository;
+        this.dietaryPreferenceTagRepository = dietaryPreferenceTagRepository;
+        this.jsonMapper = jsonMapper;
+        this.refreshInterval = recommendationProperties.getIndexRefreshInterval();
+    }
+
+    /**
+     * 不可变快照；位图只在构建时写入，对外返回的位图均为副本。
+     */
+    public record Snapshot(long version,
+                           List<DishLibrary> dishes,
+                           Map<Long, Integer> positions,
+                           String candidates,
+                           Map<Long, BitSet> allergens,
+                           Map<Long, BitSet> diets,
+                           Map<Long, BitSet> preferences,
+                           Map<String, BitSet> tags,
+                           Map<String, BitSet> categories,
+                           Map<String, BitSet> ingredients) {
+
+        public DishLibrary get(Long id) {
+            Integer position = positions.get(id);
+            return position != null ? dishes.get(position) : null;
+        }
+
+        public boolean isEmpty() {
+            return dishes.isEmpty();
+        }
+
+        /**
+         * 用户可选的菜品位图：全部启用菜品 ANDNOT 所选过敏原 ANDNOT 自定义忌口食材 ANDNOT 饮食偏好排除的食材。
+         */
+        public BitSet candidatesFor(UserProfile profile) {
+            BitSet result = new BitSet(dishes.size());
+            result.set(0, dishes.size());
+            if (profile == null) {
+                return result;
+            }
+            if (profile.getAllergenTagIds() != null) {
+                profile.getAllergenTagIds().stream().forEach(allergenId -> {
+                    BitSet bits = allergens.get(allergenId);
+                    if (bits != null) {
+                        result.andNot(bits);
+                    }
+                });
+            }
+            for (String avoided : splitTerms(profile.getCustomAvoidedIngredients())) {
+                ingredients.forEach((item, bits) -> {
+                    if (mentions(item, avoided)) {
+                        result.andNot(bits);
+                    }
+                });
+            }
+            if (profile.getDietaryPreferenceTagIds() != null) {
+                profile.getDietaryPreferenceTagIds().stream().forEach(preferenceId -> {
+                    BitSet bits = diets.get(preferenceId);
+                    if (bits != null) {
+                        result.andNot(bits);
+                    }
+                });
+            }
+            return result;
+        }
+
+        /**
+         * 候选中优先推荐的子集：逐个 AND 带有偏好标签的菜品，某个偏好会清空结果时跳过该偏好。
+         * 偏好只是排序信号，不会让候选变少。
+         */
+        public BitSet preferredFor(UserProfile profile, BitSet allowed) {
+            BitSet result = (BitSet) allowed.clone();
+            if (profile == null || profile.getDietaryPreferenceTagIds() == null) {
+                return result;
+            }
+            profile.getDietaryPreferenceTagIds().stream().forEach(preferenceId -> {
+                BitSet bits = preferences.get(preferenceId);
+                if (bits == null) {
+                    return;
+                }
+                BitSet narrowed = (BitSet) result.clone();
+                narrowed.and(bits);
+                if (!narrowed.isEmpty()) {
+                    result.and(bits);
+                }
+            });
+            return result;
+        }
+
+        public BitSet withTag(String tag) {
+            return copy(tags.get(normalize(tag)));
+        }
+
+        public BitSet inCategory(String category) {
+            return copy(categories.get(category));
+        }
+
+        public List<DishLibrary> select(BitSet bits) {
+            List<DishLibrary> selected = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0 && i < dishes.size(); i = bits.nextSetBit(i + 1)) {
+                selected.add(dishes.get(i));
+            }
+            return selected;
+        }
+
+        private BitSet copy(BitSet bits) {
+            return bits != null ? (BitSet) bits.clone() : new BitSet(dishes.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        rebuild().subscribe();
+    }
+
+    @PostConstruct
+    void pollVersion() {
+        versionPolling = Flux.interval(refreshInterval, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refreshIfStale().onErrorResume(ex -> {
+                    log.warn("Dish library index refresh failed: {}", ex.toString());
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopPolling() {
+        if (versionPolling != null) {
+            versionPolling.dispose();
+        }
+    }
+
+    public Mono<Snapshot> current() {
+        Snapshot loaded = snapshot.get();
+        return loaded != null ? Mono.just(loaded) : rebuild();
+    }
+
+    /**
+     * 数据库中的菜品库版本比本节点快照新（或尚未加载）时重建。
+     */
+    public Mono<Void> refreshIfStale() {
+        return dishLibraryRepository.currentVersion()
+                .filter(version -> {
+                    Snapshot loaded = snapshot.get();
+                    return loaded == null || loaded.version() < version;
+                })
+                .flatMap(version -> rebuild())
+                .then();
+    }
+
+    /**
+     * 从数据库重新加载启用菜品与标签；返回重建后的最新快照。
+     * 先读版本再读菜品：读取期间的并发写入只会让快照版本偏旧，下一次比对时再重建一次。
+     */
+    public Mono<Snapshot> rebuild() {
+        return dishLibraryRepository.currentVersion()
+                .defaultIfEmpty(0L)
+                .flatMap(version -> Mono.zip(
+                                dishLibraryRepository.findAllActive().collectList(),
+                                allergenTagRepository.findAll().collectList(),
+                                dietaryPreferenceTagRepository.findAll().collectList())
+                        .map(tuple -> build(version, tuple.getT1(), tuple.getT2(), tuple.getT3())))
+                .map(built -> snapshot.updateAndGet(current ->
+                        current == null || current.version() <= built.version() ? built : current));
+    }
+
+    private Snapshot build(long version, List<DishLibrary> dishes,
+                           List<AllergenTag> allergenTags, List<DietaryPreferenceTag> preferenceTags) {
+        Map<Long, Integer> positions = new HashMap<>(dishes.size() * 2);
+        Map<String, BitSet> tags = new HashMap<>();
+        Map<String, BitSet> categories = new HashMap<>();
+        Map<String, BitSet> ingredients = new HashMap<>();
+        StringBuilder candidates = new StringBuilder(dishes.size() * 48);
+        for (int i = 0; i < dishes.size(); i++) {
+            DishLibrary dish = dishes.get(i);
+            positions.put(dish.getId(), i);
+            candidates.append(dish.getId()).append('|')
+                    .append(dish.getName()).append('|')
+                    .append(dish.getCategory()).append('|')
+                    .append(dish.getNutrientTags() != null ? dish.getNutrientTags() : "")
+                    .append('\n');
+            for (String tag : parseTags(dish.getNutrientTags())) {
+                tags.computeIfAbsent(tag, k -> new BitSet(dishes.size())).set(i);
+            }
+            if (dish.getCategory() != null) {
+                categories.computeIfAbsent(dish.getCategory(), k -> new BitSet(dishes.size())).set(i);
+            }
+            for (String item : ingredientNames(dish)) {
+                ingredients.computeIfAbsent(item, k -> new BitSet(dishes.size())).set(i);
+            }
+        }
+
+        Map<Long, BitSet> allergens = new HashMap<>();
+        for (AllergenTag tag : allergenTags) {
+            List<String> keywords = new ArrayList<>(ALLERGEN_KEYWORDS.getOrDefault(tag.getCategory(), List.of()));
+            keywords.add(normalize(tag.getLabel()));
+            allergens.put(tag.getId(), matching(keywords, ingredients, dishes.size()));
+        }
+
+        Map<Long, BitSet> diets = new HashMap<>();
+        Map<Long, BitSet> preferences = new HashMap<>();
+        for (DietaryPreferenceTag tag : preferenceTags) {
+            List<String> excluded = DIET_EXCLUSIONS.get(normalize(tag.getLabel()));
+            if (excluded != null) {
+                BitSet bits = matching(excluded, ingredients, dishes.size());
+                bits.or(matching(excluded, categories, dishes.size()));
+                diets.put(tag.getId(), bits);
+            }
+            BitSet bits = tags.get(normalize(tag.getLabel()));
+            preferences.put(tag.getId(), bits != null ? bits : new BitSet(dishes.size()));
+        }
+
+        return new Snapshot(version, List.copyOf(dishes), Map.copyOf(positions), candidates.toString(),
+                Map.copyOf(allergens), Map.copyOf(diets), Map.copyOf(preferences), Map.copyOf(tags),
+                Map.copyOf(categories), Map.copyOf(ingredients));
+    }
+
+    private static BitSet matching(List<String> keywords, Map<String, BitSet> terms, int size) {
+        BitSet bits = new BitSet(size);
+        terms.forEach((term, dishBits) -> {
+            if (keywords.stream().anyMatch(keyword -> mentions(term, keyword))) {
+                bits.or(dishBits);
+            }
+        });
+        return bits;
+    }
+
+    /**
+     * 中文关键词按子串匹配；拉丁字母关键词按整词匹配（允许复数 s / es），
+     * 避免 egg 命中 eggplant、nut 命中 coconut / nutmeg。分类名中的下划线视为分隔符。
+     */
+    static boolean mentions(String term, String keyword) {
+        if (keyword.isEmpty()) {
+            return false;
+        }
+        if (!keyword.chars().allMatch(c -> c < 0x80)) {
+            return term.contains(keyword);
+        }
+        String words = " " + String.join(" ", NON_WORD.split(term.replace('_', ' '))) + " ";
+        String word = String.join(" ", NON_WORD.split(keyword.strip()));
+        return words.contains(" " + word + " ")
+                || words.contains(" " + word + "s ")
+                || words.contains(" " + word + "es ");
+    }
+
+    @SafeVarargs
+    private static List<String> concat(List<String>... lists) {
+        List<String> all = new ArrayList<>();
+        for (List<String> list : lists) {
+            all.addAll(list);
+        }
+        return List.copyOf(all);
+    }
+
+    private static Set<String> ingredientNames(DishLibrary dish) {
+        if (dish.getIngredients() == null) {
+            return Set.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (Ingredient ingredient : dish.getIngredients().items()) {
+            String name = normalize(ingredient.name());
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 营养标签既可能是 JSON 数组，也可能是逗号分隔的文本。
+     */
+    private Set<String> parseTags(String nutrientTags) {
+        if (nutrientTags == null || nutrientTags.isBlank()) {
+            return Set.of();
+        }
+        String trimmed = nutrientTags.strip();
+        if (trimmed.startsWith("[")) {
+            try {
+                Set<String> tags = new LinkedHashSet<>();
+                for (JsonNode node : jsonMapper.readTree(trimmed)) {
+                    String tag = normalize(node.asString(""));
+                    if (!tag.isEmpty()) {
+                        tags.add(tag);
+                    }
+                }
+                return tags;
+            } catch (RuntimeException ex) {
+                return Set.of();
+            }
+        }
+        return new LinkedHashSet<>(splitTerms(trimmed));
+    }
+
+    static List<String> splitTerms(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : csv.split("[,，]")) {
+            String normalized = normalize(term);
+            if (!normalized.isEmpty()) {
+                terms.add(normalized);
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+}
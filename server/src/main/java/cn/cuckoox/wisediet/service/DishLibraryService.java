@@ -2,39 +2,131 @@ package cn.cuckoox.wisediet.service;
 
 import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
 import cn.cuckoox.wisediet.controller.dto.DishLibraryResponse;
+import cn.cuckoox.wisediet.controller.dto.DishPageResponse;
+import cn.cuckoox.wisediet.model.DishIngredients;
 import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
 import cn.cuckoox.wisediet.repository.DishLibraryRepository;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
 @Service
 public class DishLibraryService {
 
+    public static final int SEARCH_LIMIT = 50;
+    private static final Duration COUNT_TTL = Duration.ofMinutes(1);
+
+    private record Counts(long all, long active) {
+    }
+
     private final DishLibraryRepository dishLibraryRepository;
+    private final DishLibraryIndex dishLibraryIndex;
+    private final NutritionHistoryService nutritionHistoryService;
+    private volatile Mono<Counts> counts;
 
-    public DishLibraryService(DishLibraryRepository dishLibraryRepository) {
+    public DishLibraryService(DishLibraryRepository dishLibraryRepository,
+                              DishLibraryIndex dishLibraryIndex,
+                              NutritionHistoryService nutritionHistoryService) {
         this.dishLibraryRepository = dishLibraryRepository;
+        this.dishLibraryIndex = dishLibraryIndex;
+        this.nutritionHistoryService = nutritionHistoryService;
+        this.counts = loadCounts();
+    }
+
+    /**
+     * 键集分页：cursor 为上一页返回的 nextCursor，首页传 null。
+     * 游标在订阅时才解码，调用方先完成的权限校验失败时，非法游标不会把 401/403 变成 400。
+     */
+    public Mono<DishPageResponse> findPage(String cursor, int size, boolean activeOnly) {
+        int pageSize = Math.max(1, Math.min(size, 200));
+        return Mono.fromCallable(() -> PageCursor.decode(cursor))
+                .flatMapMany(afterId -> activeOnly
+                        ? dishLibraryRepository.findActiveAfter(afterId, pageSize + 1)
+                        : dishLibraryRepository.findAllAfter(afterId, pageSize + 1))
+                .map(DishLibraryResponse::from)
+                .collectList()
+                .zipWith(count(activeOnly))
+                .map(tuple -> {
+                    List<DishLibraryResponse> rows = tuple.getT1();
+                    boolean hasMore = rows.size() > pageSize;
+                    List<DishLibraryResponse> content = hasMore ? rows.subList(0, pageSize) : rows;
+                    String nextCursor = hasMore ? PageCursor.encode(content.get(pageSize - 1).id()) : null;
+                    return new DishPageResponse(content, tuple.getT2(), pageSize, nextCursor);
+                });
     }
 
-    public Flux<DishLibraryResponse> findAll(int page, int size, boolean activeOnly) {
-        PageRequest pageable = PageRequest.of(page, size);
-        Flux<DishLibrary> flux = activeOnly
-                ? dishLibraryRepository.findAllActive(pageable)
-                : dishLibraryRepository.findAllPaged(pageable);
-        return flux.map(this::toResponse);
+    /**
+     * 按菜名、食材与营养标签检索，结果数不超过 SEARCH_LIMIT；没有可检索的词时返回空。
+     */
+    public Flux<DishLibraryResponse> search(String q, int size) {
+        String tsQuery = q != null ? DishSearchQuery.prefixTsQuery(q) : "";
+        if (tsQuery.isEmpty()) {
+            return Flux.empty();
+        }
+        int limit = Math.max(1, Math.min(size, SEARCH_LIMIT));
+        return dishLibraryRepository.search(tsQuery, DishSearchQuery.likePattern(q), q.trim(), limit)
+                .map(DishLibraryResponse::from);
     }
 
+    /**
+     * 缓存的计数：本节点写入时立即失效，其他节点的写入最多滞后 COUNT_TTL。
+     */
     public Mono<Long> count(boolean activeOnly) {
-        return activeOnly ? dishLibraryRepository.countActive() : dishLibraryRepository.countAll();
+        return Mono.defer(() -> counts).map(c -> activeOnly ? c.active() : c.all());
+    }
+
+    private Mono<Counts> loadCounts() {
+        return Mono.zip(dishLibraryRepository.countAll(), dishLibraryRepository.countActive())
+                .map(tuple -> new Counts(tuple.getT1(), tuple.getT2()))
+                .cache(value -> COUNT_TTL, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * 写入后使计数缓存失效，并在返回前重建本节点的菜品索引。
+     */
+    private <T> Mono<T> afterWrite(Mono<T> write) {
+        return write.doOnTerminate(() -> counts = loadCounts())
+                .flatMap(result -> dishLibraryIndex.rebuild().thenReturn(result))
+                .switchIfEmpty(dishLibraryIndex.rebuild().then(Mono.empty()));
+    }
+
+    /**
+     * 批量导入结束后调用一次，代替逐行的 afterWrite。
+     */
+    public Mono<Void> afterBulkWrite() {
+        return afterWrite(Mono.empty());
     }
 
     public Mono<DishLibraryResponse> findById(Long id) {
-        return dishLibraryRepository.findById(id).map(this::toResponse);
+        return dishLibraryRepository.findById(id).map(DishLibraryResponse::from);
     }
 
     public Mono<DishLibraryResponse> create(DishLibraryRequest request) {
+        return uniqueName(dishLibraryRepository.save(newEntity(request)), request.name())
+                .map(DishLibraryResponse::from)
+                .as(this::afterWrite);
+    }
+
+    /**
+     * 菜名受 uk_dish_library_name 约束，重名写入返回 409 而不是 500。
+     */
+    private static <T> Mono<T> uniqueName(Mono<T> write, String name) {
+        return write.onErrorMap(DuplicateKeyException.class,
+                ex -> new ResponseStatusException(HttpStatus.CONFLICT, "Dish name already exists: " + name));
+    }
+
+    /**
+     * 未填写的字段取与表默认值一致的缺省值。
+     */
+    static DishLibrary newEntity(DishLibraryRequest request) {
         DishLibrary entity = new DishLibrary();
         entity.setName(request.name());
         entity.setCategory(request.category());
@@ -42,14 +134,17 @@ public class DishLibraryService {
         entity.setPrepMin(request.prepMin() != null ? request.prepMin() : 5);
         entity.setCookMin(request.cookMin() != null ? request.cookMin() : 15);
         entity.setServings(request.servings() != null ? request.servings() : 2);
-        entity.setIngredients(request.ingredients() != null ? request.ingredients() : "[]");
-        entity.setSteps(request.steps() != null ? request.steps() : "[]");
+        entity.setIngredients(request.ingredients() != null ? request.ingredients() : DishIngredients.EMPTY);
+        entity.setSteps(request.steps() != null ? request.steps() : DishSteps.EMPTY);
         entity.setNutrientTags(request.nutrientTags());
         entity.setNutrients(request.nutrients());
         entity.setIsActive(true);
-        return dishLibraryRepository.save(entity).map(this::toResponse);
+        return entity;
     }
 
+    /**
+     * 营养成分有变化时，在后台重算选中过该菜谱的每日营养汇总。
+     */
     public Mono<DishLibraryResponse> update(Long id, DishLibraryRequest request) {
         return dishLibraryRepository.findById(id)
                 .flatMap(entity -> {
@@ -62,10 +157,17 @@ public class DishLibraryService {
                     if (request.ingredients() != null) entity.setIngredients(request.ingredients());
                     if (request.steps() != null) entity.setSteps(request.steps());
                     entity.setNutrientTags(request.nutrientTags());
+                    boolean nutrientsChanged = !Objects.equals(entity.getNutrients(), request.nutrients());
                     entity.setNutrients(request.nutrients());
-                    return dishLibraryRepository.save(entity);
+                    return uniqueName(dishLibraryRepository.save(entity), request.name())
+                            .doOnNext(saved -> {
+                                if (nutrientsChanged) {
+                                    nutritionHistoryService.refreshDishLibraryAsync(saved.getId());
+                                }
+                            });
                 })
-                .map(this::toResponse);
+                .map(DishLibraryResponse::from)
+                .as(this::afterWrite);
     }
 
     public Mono<DishLibraryResponse> updateStatus(Long id, boolean isActive) {
@@ -74,19 +176,16 @@ public class DishLibraryService {
                     entity.setIsActive(isActive);
                     return dishLibraryRepository.save(entity);
                 })
-                .map(this::toResponse);
+                .map(DishLibraryResponse::from)
+                .as(this::afterWrite);
     }
 
+    /**
+     * 已选过该菜谱的菜品保留 dish_library_id，删除后在后台重算这些日期，去掉它的营养。
+     */
     public Mono<Void> delete(Long id) {
-        return dishLibraryRepository.deleteById(id);
-    }
-
-    private DishLibraryResponse toResponse(DishLibrary d) {
-        return new DishLibraryResponse(
-                d.getId(), d.getName(), d.getCategory(),
-                d.getDifficulty(), d.getPrepMin(), d.getCookMin(), d.getServings(),
-                d.getIngredients(), d.getSteps(), d.getNutrientTags(), d.getNutrients(),
-                d.getIsActive(), d.getCreatedAt()
-        );
+        return dishLibraryRepository.deleteById(id)
+                .doOnSuccess(ignored -> nutritionHistoryService.refreshDishLibraryAsync(id))
+                .as(this::afterWrite);
     }
 }
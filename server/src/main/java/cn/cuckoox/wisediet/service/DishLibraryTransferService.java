@@ -0,0 +1,297 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.DishImportResponse;
+import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
+import cn.cuckoox.wisediet.controller.dto.DishLibraryResponse;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.repository.DishLibraryBatchOperations;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 菜品库的流式导入导出。导入逐行解析校验，按 BATCH_SIZE 行一条多行 upsert 写入；
+ * 同一时刻只缓存一批行，内存占用与文件大小无关。
+ */
+@Service
+public class DishLibraryTransferService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final int BATCH_SIZE = 200;
+    static final int EXPORT_PAGE_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 100;
+    /**
+     * 引号内含换行的 CSV 记录拼接后的长度上限，防止未闭合的引号吞掉整个文件。
+     */
+    static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private static final StringDecoder LINE_DECODER = StringDecoder.textPlainOnly(List.of("\n"), true);
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private record ParsedRow(long line, DishLibrary dish, String error) {
+    }
+
+    private final DishLibraryRepository dishLibraryRepository;
+    private final DishLibraryService dishLibraryService;
+    private final NutritionHistoryService nutritionHistoryService;
+    private final JsonMapper jsonMapper;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+
+    public DishLibraryTransferService(DishLibraryRepository dishLibraryRepository,
+                                      DishLibraryService dishLibraryService,
+                                      NutritionHistoryService nutritionHistoryService,
+                                      JsonMapper jsonMapper,
+                                      Validator validator) {
+        this.dishLibraryRepository = dishLibraryRepository;
+        this.dishLibraryService = dishLibraryService;
+        this.nutritionHistoryService = nutritionHistoryService;
+        this.jsonMapper = jsonMapper;
+        this.requestReader = jsonMapper.readerFor(DishLibraryRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validator = validator;
+    }
+
+    /**
+     * 按菜名 upsert；某一行或某一批失败不影响其余行，失败原因按行号返回。
+     */
+    public Mono<DishImportResponse> importDishes(Flux<DataBuffer> body, Format format) {
+        return Mono.defer(() -> {
+            ImportTally tally = new ImportTally();
+            Flux<Tuple2<Long, String>> lines = LINE_DECODER.decode(body, STRING_TYPE, null, null)
+                    .index((index, line) -> Tuples.of(index + 1, clean(index, line)));
+            Flux<ParsedRow> rows = format == Format.CSV ? csvRows(lines) : ndjsonRows(lines);
+            return rows
+                    .buffer(BATCH_SIZE)
+                    .concatMap(batch -> upsert(batch, tally), 1)
+                    .then(Mono.defer(() -> tally.inserted + tally.updated > 0
+                            ? dishLibraryService.afterBulkWrite()
+                            : Mono.empty()))
+                    .then(Mono.fromSupplier(tally::toResponse));
+        });
+    }
+
+    /**
+     * 去掉 Windows 换行的 \r 与文件开头的 UTF-8 BOM。
+     */
+    private static String clean(long index, String line) {
+        if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+        if (index == 0 && line.startsWith("\uFEFF")) line = line.substring(1);
+        return line;
+    }
+
+    private Flux<ParsedRow> ndjsonRows(Flux<Tuple2<Long, String>> lines) {
+        return lines.filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1(), () -> requestReader.readValue(line.getT2())));
+    }
+
+    /**
+     * 首条非空记录为表头；引号未闭合的行与后续行拼接成一条记录，行号取记录的第一行。
+     */
+    private Flux<ParsedRow> csvRows(Flux<Tuple2<Long, String>> lines) {
+        return Flux.defer(() -> {
+            CsvState state = new CsvState();
+            return lines.<ParsedRow>handle((line, sink) -> {
+                String record = state.pending == null ? line.getT2() : state.pending + "\n" + line.getT2();
+                long start = state.pending == null ? line.getT1() : state.pendingLine;
+                state.pending = null;
+                if (DishCsv.isOpen(record)) {
+                    if (record.length() > MAX_RECORD_CHARS) {
+                        sink.next(new ParsedRow(start, null, "Unterminated quoted field"));
+                    } else {
+                        state.pending = record;
+                        state.pendingLine = start;
+                    }
+                    return;
+                }
+                if (record.isBlank()) {
+                    return;
+                }
+                if (state.header == null) {
+                    try {
+                        state.header = DishCsv.split(record).stream().map(String::trim).toList();
+                    } catch (IllegalArgumentException ex) {
+                        sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid CSV header: " + ex.getMessage()));
+                        return;
+                    }
+                    if (!state.header.contains("name") || !state.header.contains("category")) {
+                        sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain name and category"));
+                    }
+                    return;
+                }
+                sink.next(parse(start, () -> fromCsv(state.header, DishCsv.split(record))));
+            }).concatWith(Mono.fromSupplier(() -> state.pending != null
+                    ? new ParsedRow(state.pendingLine, null, "Unterminated quoted field")
+                    : null));
+        });
+    }
+
+    private DishLibraryRequest fromCsv(List<String> header, List<String> cells) {
+        if (cells.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + cells.size());
+        }
+        ObjectNode node = jsonMapper.createObjectNode();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i);
+            String cell = cells.get(i);
+            if (cell.isEmpty()) continue;
+            if (DishCsv.JSON_COLUMNS.contains(column)) {
+                node.set(column, jsonMapper.readTree(cell));
+            } else {
+                node.put(column, cell);
+            }
+        }
+        return requestReader.readValue(node);
+    }
+
+    private ParsedRow parse(long line, Supplier<DishLibraryRequest> reader) {
+        try {
+            DishLibraryRequest request = reader.get();
+            Set<ConstraintViolation<DishLibraryRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                return new ParsedRow(line, null, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+            return new ParsedRow(line, DishLibraryService.newEntity(request), null);
+        } catch (JacksonException ex) {
+            return new ParsedRow(line, null, ex.getOriginalMessage());
+        } catch (IllegalArgumentException ex) {
+            return new ParsedRow(line, null, ex.getMessage());
+        }
+    }
+
+    /**
+     * 先记录本批的解析错误；同一批内的重名行以最后一行为准，写入失败时整批记为失败。
+     * 覆盖已有菜谱后重算选中过这些菜谱的每日营养汇总。
+     */
+    private Mono<Void> upsert(List<ParsedRow> batch, ImportTally tally) {
+        Map<String, ParsedRow> byName = new LinkedHashMap<>();
+        int superseded = 0;
+        for (ParsedRow row : batch) {
+            if (row.error() != null) {
+                tally.fail(row.line(), row.error());
+            } else if (byName.put(row.dish().getName(), row) != null) {
+                superseded++;
+            }
+        }
+        if (byName.isEmpty()) {
+            return Mono.empty();
+        }
+        int overwritten = superseded;
+        List<DishLibrary> dishes = byName.values().stream().map(ParsedRow::dish).toList();
+        return dishLibraryRepository.upsertAllByName(dishes)
+                .collectList()
+                .onErrorResume(ex -> {
+                    byName.values().forEach(row -> tally.fail(row.line(), ex.getMessage()));
+                    return Mono.empty();
+                })
+                .flatMap(results -> {
+                    List<Long> updatedIds = results.stream()
+                            .filter(result -> !result.inserted())
+                            .map(DishLibraryBatchOperations.Upserted::id)
+                            .toList();
+                    tally.inserted += results.size() - updatedIds.size();
+                    tally.updated += updatedIds.size() + overwritten;
+                    return nutritionHistoryService.refreshDishLibraries(updatedIds);
+                });
+    }
+
+    /**
+     * 按 id 键集分页读取，每次只持有一页。
+     */
+    public Flux<DishLibraryResponse> exportAll() {
+        return dishLibraryRepository.findAllAfter(0L, EXPORT_PAGE_SIZE).collectList()
+                .expand(page -> page.size() < EXPORT_PAGE_SIZE
+                        ? Mono.empty()
+                        : dishLibraryRepository.findAllAfter(page.get(page.size() - 1).getId(), EXPORT_PAGE_SIZE)
+                                .collectList())
+                .concatMapIterable(page -> page)
+                .map(DishLibraryResponse::from);
+    }
+
+    /**
+     * 每个元素为一行（含换行符），首行为表头。
+     */
+    public Flux<String> exportCsv() {
+        return Flux.just(DishCsv.line(DishCsv.COLUMNS))
+                .concatWith(exportAll().map(dish -> DishCsv.line(toCells(dish))));
+    }
+
+    private List<String> toCells(DishLibraryResponse dish) {
+        List<String> cells = new ArrayList<>(DishCsv.COLUMNS.size());
+        cells.add(text(dish.id()));
+        cells.add(dish.name());
+        cells.add(dish.category());
+        cells.add(text(dish.difficulty()));
+        cells.add(text(dish.prepMin()));
+        cells.add(text(dish.cookMin()));
+        cells.add(text(dish.servings()));
+        cells.add(json(dish.ingredients()));
+        cells.add(json(dish.steps()));
+        cells.add(dish.nutrientTags());
+        cells.add(json(dish.nutrients()));
+        cells.add(text(dish.isActive()));
+        return cells;
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private String json(Object value) {
+        return value != null ? jsonMapper.writeValueAsString(value) : null;
+    }
+
+    private static final class CsvState {
+        private List<String> header;
+        private String pending;
+        private long pendingLine;
+    }
+
+    /**
+     * 仅在 concatMap 的串行回调中修改。
+     */
+    private static final class ImportTally {
+        private long inserted;
+        private long updated;
+        private long failed;
+        private final List<DishImportResponse.RowError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new DishImportResponse.RowError(line, message));
+            }
+        }
+
+        DishImportResponse toResponse() {
+            return new DishImportResponse(inserted, updated, failed, List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cn.cuckoox.wisediet.service;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 把管理员输入的检索词转成 SQL 参数：每个词做前缀匹配的 tsquery，以及转义后的 ILIKE 子串模式。
+ */
+final class DishSearchQuery {
+
+    private DishSearchQuery() {
+    }
+
+    /**
+     * "番茄 鸡" → "番茄:* & 鸡:*"；只保留字母和数字，避免 tsquery 语法错误。没有可用的词时返回空串。
+     */
+    static String prefixTsQuery(String q) {
+        return Arrays.stream(q.trim().split("\\s+"))
+                .map(term -> term.codePoints()
+                        .filter(Character::isLetterOrDigit)
+                        .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                        .toString()
+                        .toLowerCase())
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    static String likePattern(String q) {
+        return "%" + q.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,65 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.DishSyncResponse;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 移动端菜品库增量同步。版本号由 dish_library 上的触发器维护，DishLibraryService 的增删改与批量导入都会推进版本。
+ * 先读当前版本 v，再只取 (since, v] 区间的变更：v 之前的写入都已提交，之后的写入留给下一次同步。
+ */
+@Service
+public class DishSyncService {
+
+    private final DishLibraryRepository dishLibraryRepository;
+
+    public DishSyncService(DishLibraryRepository dishLibraryRepository) {
+        this.dishLibraryRepository = dishLibraryRepository;
+    }
+
+    /**
+     * since 不大于 0（首次同步）或大于当前版本（服务端数据被重置）时返回全量快照。
+     */
+    public Mono<DishSyncResponse> changesSince(long since) {
+        return dishLibraryRepository.currentVersion()
+                .defaultIfEmpty(0L)
+                .flatMap(version -> {
+                    if (since <= 0 || since > version) {
+                        return snapshot(version);
+                    }
+                    if (since == version) {
+                        return Mono.just(new DishSyncResponse(version, false, List.of(), List.of()));
+                    }
+                    return delta(since, version);
+                });
+    }
+
+    private Mono<DishSyncResponse> snapshot(long version) {
+        return dishLibraryRepository.findActiveUpTo(version)
+                .map(DishSyncResponse.SyncedDish::from)
+                .collectList()
+                .map(dishes -> new DishSyncResponse(version, true, dishes, List.of()));
+    }
+
+    private Mono<DishSyncResponse> delta(long since, long version) {
+        return Mono.zip(dishLibraryRepository.findChangedBetween(since, version).collectList(),
+                        dishLibraryRepository.findDeletedIdsBetween(since, version).collectList())
+                .map(tuple -> {
+                    List<DishSyncResponse.SyncedDish> upserts = new ArrayList<>();
+                    List<Long> deleted = new ArrayList<>(tuple.getT2());
+                    for (DishLibrary dish : tuple.getT1()) {
+                        if (Boolean.TRUE.equals(dish.getIsActive())) {
+                            upserts.add(DishSyncResponse.SyncedDish.from(dish));
+                        } else {
+                            deleted.add(dish.getId());
+                        }
+                    }
+                    return new DishSyncResponse(version, false, upserts, deleted);
+                });
+    }
+}
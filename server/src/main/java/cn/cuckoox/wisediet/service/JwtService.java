@@ -10,6 +10,7 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
@@ -52,16 +53,24 @@ public class JwtService {
         });
     }
 
+    /**
+     * 验签并解析一次，返回包含 sub / jti / role / exp 的完整 Jwt，
+     * 调用方应从同一个结果中读取所需字段，避免重复解码。
+     */
+    public Jwt decodeOnce(String token) {
+        return jwtDecoder.decode(token);
+    }
+
     public Mono<Long> parseUserId(String token) {
-        return Mono.fromSupplier(() -> Long.valueOf(jwtDecoder.decode(token).getSubject()));
+        return Mono.fromSupplier(() -> Long.valueOf(decodeOnce(token).getSubject()));
     }
 
     public String extractJti(String token) {
-        return jwtDecoder.decode(token).getId();
+        return decodeOnce(token).getId();
     }
 
     public String extractRole(String token) {
-        return jwtDecoder.decode(token).getClaimAsString("role");
+        return decodeOnce(token).getClaimAsString("role");
     }
 
     private static byte[] hashSecret(String secret) {
@@ -0,0 +1,112 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.PlanGenerationProperties;
+import cn.cuckoox.wisediet.controller.dto.PlanGenerationStatus;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 夜间预生成次日膳食计划，把早高峰的首次请求从写路径变成读路径。
+ * 按 id 键集分页遍历已引导用户，flatMap 并发度即同时写库的计划数上限。
+ */
+@Slf4j
+@Component
+public class MealPlanGenerationJob {
+
+    private final UserRepository userRepository;
+    private final TodayService todayService;
+    private final PlanGenerationProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDate date;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public MealPlanGenerationJob(UserRepository userRepository,
+                                 TodayService todayService,
+                                 PlanGenerationProperties properties) {
+        this.userRepository = userRepository;
+        this.todayService = todayService;
+        this.properties = properties;
+    }
+
+    @Scheduled(cron = "${app.plan-generation.cron:0 0 2 * * *}")
+    public Mono<Void> generateTomorrow() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return generate(LocalDate.now().plusDays(1));
+    }
+
+    /**
+     * 为所有已引导用户生成指定日期的计划；已有任务在跑时直接返回。
+     */
+    public Mono<Void> generate(LocalDate targetDate) {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            date = targetDate;
+            processed.set(0);
+            created.set(0);
+            failed.set(0);
+            startedAt = Instant.now();
+            finishedAt = null;
+            return onboardedUserIds()
+                    .flatMap(userId -> todayService.ensurePlan(userId, targetDate)
+                                    .doOnNext(isNew -> {
+                                        if (isNew) created.incrementAndGet();
+                                    })
+                                    .onErrorResume(ex -> {
+                                        failed.incrementAndGet();
+                                        log.warn("Plan generation failed for user {} on {}", userId, targetDate, ex);
+                                        return Mono.empty();
+                                    })
+                                    .doFinally(signal -> processed.incrementAndGet()),
+                            Math.max(1, properties.getParallelism()))
+                    .then()
+                    .doFinally(signal -> {
+                        finishedAt = Instant.now();
+                        running.set(false);
+                        log.info("Plan generation for {} finished: {}", targetDate, status());
+                    });
+        });
+    }
+
+    public PlanGenerationStatus status() {
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = start != null ? Duration.between(start, end).toMillis() / 1000.0 : 0;
+        long done = processed.get();
+        return new PlanGenerationStatus(date, running.get(), done, created.get(), failed.get(),
+                start, finishedAt, seconds > 0 ? done / seconds : 0);
+    }
+
+    private Flux<Long> onboardedUserIds() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        return nextPage(0L, batchSize)
+                .expand(page -> page.size() < batchSize
+                        ? Mono.empty()
+                        : nextPage(page.get(page.size() - 1), batchSize))
+                .flatMapIterable(page -> page);
+    }
+
+    private Mono<List<Long>> nextPage(Long afterId, int batchSize) {
+        return userRepository.findOnboardedIdsAfter(afterId,
+                        Math.max(1, properties.getPartitionCount()), properties.getPartitionIndex(), batchSize)
+                .collectList();
+    }
+}
@@ -0,0 +1,77 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.DailyNutritionResponse;
+import cn.cuckoox.wisediet.repository.DailyNutritionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 近 7 天营养历史：daily_nutrition 按 (user_id, date) 物化，确认菜单或修改菜谱营养时只重算受影响的日期，
+ * 查看历史时按主键范围读取至多 7 行，不再跨 meal_plans / dishes 聚合。
+ */
+@Slf4j
+@Service
+public class NutritionHistoryService {
+
+    public static final int WINDOW_DAYS = 7;
+    static final int REFRESH_BATCH = 500;
+
+    private final DailyNutritionRepository dailyNutritionRepository;
+    private final Map<Long, Disposable> running = new ConcurrentHashMap<>();
+
+    public NutritionHistoryService(DailyNutritionRepository dailyNutritionRepository) {
+        this.dailyNutritionRepository = dailyNutritionRepository;
+    }
+
+    public Mono<Void> refreshPlan(Long mealPlanId) {
+        return dailyNutritionRepository.refreshPlan(mealPlanId).then();
+    }
+
+    /**
+     * 菜谱营养被修改或菜谱被删除后，在后台重算选中过它的日期，不占用管理员请求。
+     * 同一菜谱的上一次重算尚未结束时先取消，新的一次会读到最新的菜谱数据。
+     */
+    public void refreshDishLibraryAsync(Long dishLibraryId) {
+        Disposable.Swap current = Disposables.swap();
+        Disposable previous = running.put(dishLibraryId, current);
+        if (previous != null) {
+            previous.dispose();
+        }
+        current.update(refreshDishLibrary(dishLibraryId)
+                .doFinally(signal -> running.remove(dishLibraryId, current))
+                .subscribe(null, ex -> log.warn("Nutrition refresh for dish {} failed: {}", dishLibraryId, ex.toString())));
+    }
+
+    /**
+     * 受影响的计划每 REFRESH_BATCH 个一条语句重算，热门菜谱不会在一条语句里锁住大量汇总行。
+     */
+    public Mono<Void> refreshDishLibrary(Long dishLibraryId) {
+        return dailyNutritionRepository.findSelectedPlanIds(dishLibraryId)
+                .buffer(REFRESH_BATCH)
+                .concatMap(ids -> dailyNutritionRepository.refreshPlans(ids.toArray(Long[]::new)))
+                .then();
+    }
+
+    public Mono<Void> refreshDishLibraries(List<Long> dishLibraryIds) {
+        return dishLibraryIds.isEmpty()
+                ? Mono.empty()
+                : dailyNutritionRepository.refreshByDishLibraryIds(dishLibraryIds.toArray(Long[]::new)).then();
+    }
+
+    /**
+     * 截至 today（含）的 7 天；没有确认记录的日期不返回。
+     */
+    public Mono<List<DailyNutritionResponse>> lastWeek(Long userId, LocalDate today) {
+        return dailyNutritionRepository.findWindow(userId, today.minusDays(WINDOW_DAYS), today)
+                .map(DailyNutritionResponse::from)
+                .collectList();
+    }
+}
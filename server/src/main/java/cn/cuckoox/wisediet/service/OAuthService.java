@@ -4,7 +4,6 @@ import cn.cuckoox.wisediet.config.JwtProperties;
 import cn.cuckoox.wisediet.controller.dto.AuthTokenResponse;
 import cn.cuckoox.wisediet.controller.dto.AuthUriResponse;
 import cn.cuckoox.wisediet.model.User;
-import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
 import java.time.Duration;
 import java.util.UUID;
@@ -28,7 +27,7 @@ public class OAuthService {
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final SessionStore sessionStore;
-    private final AdminWhitelistRepository adminWhitelistRepository;
+    private final AdminWhitelistService adminWhitelistService;
     private final JwtProperties jwtProperties;
     private final WebClientReactiveAuthorizationCodeTokenResponseClient tokenResponseClient;
     private final DefaultReactiveOAuth2UserService oauth2UserService;
@@ -37,13 +36,13 @@ public class OAuthService {
                         UserRepository userRepository,
                         JwtService jwtService,
                         SessionStore sessionStore,
-                        AdminWhitelistRepository adminWhitelistRepository,
+                        AdminWhitelistService adminWhitelistService,
                         JwtProperties jwtProperties) {
         this.clientRegistrationRepository = clientRegistrationRepository;
         this.userRepository = userRepository;
         this.jwtService = jwtService;
         this.sessionStore = sessionStore;
-        this.adminWhitelistRepository = adminWhitelistRepository;
+        this.adminWhitelistService = adminWhitelistService;
         this.jwtProperties = jwtProperties;
         this.tokenResponseClient = new WebClientReactiveAuthorizationCodeTokenResponseClient();
         this.oauth2UserService = new DefaultReactiveOAuth2UserService();
@@ -97,13 +96,14 @@ public class OAuthService {
                                     providerId,
                                     1)));
                 })
-                .flatMap(user -> adminWhitelistRepository.existsByUserId(user.getId())
-                        .flatMap(isAdmin -> jwtService.createAccessToken(user.getId(), isAdmin ? "ADMIN" : "USER"))
-                        .flatMap(accessToken -> sessionStore.saveSession(
-                                        jwtService.extractJti(accessToken),
-                                        user.getId(),
-                                        Duration.ofMinutes(jwtProperties.getAccessTtlMinutes()))
-                                .thenReturn(new AuthTokenResponse(accessToken, UUID.randomUUID().toString(), user.getOnboardingStep()))));
+                .flatMap(user -> adminWhitelistService.isAdmin(user.getId())
+                        .map(isAdmin -> isAdmin ? AdminWhitelistService.ROLE_ADMIN : "USER")
+                        .flatMap(role -> jwtService.createAccessToken(user.getId(), role)
+                                .flatMap(accessToken -> sessionStore.saveSession(
+                                                jwtService.extractJti(accessToken),
+                                                new SessionPrincipal(user.getId(), user.getEmail(), user.getOnboardingStep(), role),
+                                                Duration.ofMinutes(jwtProperties.getAccessTtlMinutes()))
+                                        .thenReturn(new AuthTokenResponse(accessToken, UUID.randomUUID().toString(), user.getOnboardingStep())))));
     }
 
     public Mono<AuthUriResponse> getAuthUri(String authType) {
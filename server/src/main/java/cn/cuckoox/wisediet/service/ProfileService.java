@@ -3,6 +3,7 @@ package cn.cuckoox.wisediet.service;
 import cn.cuckoox.wisediet.controller.dto.ProfileUpdateRequest;
 import cn.cuckoox.wisediet.model.UserProfile;
 import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import cn.cuckoox.wisediet.repository.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,9 +13,15 @@ import reactor.core.publisher.Mono;
 public class ProfileService {
 
     private final UserProfileRepository userProfileRepository;
+    private final UserRepository userRepository;
+    private final SessionStore sessionStore;
 
-    public ProfileService(UserProfileRepository userProfileRepository) {
+    public ProfileService(UserProfileRepository userProfileRepository,
+                          UserRepository userRepository,
+                          SessionStore sessionStore) {
         this.userProfileRepository = userProfileRepository;
+        this.userRepository = userRepository;
+        this.sessionStore = sessionStore;
     }
 
     public Mono<UserProfile> getProfile(Long userId) {
@@ -22,6 +29,20 @@ public class ProfileService {
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Profile not found")));
     }
 
+    /**
+     * 引导页提交完整档案：按用户覆盖已有档案，并完成引导。
+     */
+    public Mono<UserProfile> saveOnboardingProfile(Long userId, UserProfile profile) {
+        return userProfileRepository.findByUserId(userId)
+                .defaultIfEmpty(new UserProfile())
+                .flatMap(existing -> {
+                    profile.setId(existing.getId());
+                    profile.setUserId(userId);
+                    return userProfileRepository.save(profile);
+                })
+                .flatMap(saved -> completeOnboarding(userId).thenReturn(saved));
+    }
+
     public Mono<UserProfile> patchProfile(Long userId, ProfileUpdateRequest req) {
         return userProfileRepository.findByUserId(userId)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Profile not found")))
@@ -36,6 +57,16 @@ public class ProfileService {
                     if (req.dietaryPreferenceTagIds() != null) profile.setDietaryPreferenceTagIds(req.dietaryPreferenceTagIds());
                     if (req.customAvoidedIngredients() != null) profile.setCustomAvoidedIngredients(req.customAvoidedIngredients());
                     return userProfileRepository.save(profile);
-                });
+                })
+                .flatMap(saved -> completeOnboarding(userId).thenReturn(saved));
+    }
+
+    /**
+     * 引导状态只在这里改写：已有档案即视为引导完成，会话中的 onboardingStep 取数据库写入后的值，
+     * 两条写档案的路径都经过这里，中途失败后任一路径重试都会把会话补齐。
+     */
+    private Mono<Void> completeOnboarding(Long userId) {
+        return userRepository.completeOnboarding(userId)
+                .flatMap(step -> sessionStore.updateOnboardingStep(userId, step));
     }
 }
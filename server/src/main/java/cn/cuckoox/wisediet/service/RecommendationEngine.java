@@ -0,0 +1,291 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.RecommendationProperties;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 库内选菜：把启用菜品的 id 与名称作为上下文交给 LLM，模型只返回 id、餐次与推荐理由。
+ * 候选清单对应的 system prompt 按菜品库版本缓存，所有用户共享；模型返回的 id 必须存在于 DishLibraryIndex。
+ * 模型调用受并发上限与超时约束，失败、超时或名额不足时以确定性的规则选菜补齐。
+ */
+@Slf4j
+@Service
+public class RecommendationEngine {
+
+    public static final List<String> MEAL_TYPES = List.of("breakfast", "lunch", "snack", "dinner");
+
+    private static final int MAX_REASON_LENGTH = 200;
+
+    private static final String INSTRUCTIONS = """
+            You are a nutritionist planning one day of home cooking.
+            Choose dishes only from the candidate list below; each line is id|name|category|nutrient tags.
+            Reply with JSON only, no prose:
+            {"picks":[{"id":<candidate id>,"meal":"breakfast|lunch|snack|dinner","reason":"<one short sentence>"}]}
+            Never invent dishes or ids.
+            CANDIDATES:
+            """;
+
+    public record Pick(DishLibrary dish, String mealType, String reason) {
+    }
+
+    private record PromptContext(long version, SystemMessage systemMessage) {
+    }
+
+    private final ChatModel chatModel;
+    private final DishLibraryIndex dishLibraryIndex;
+    private final UserProfileRepository userProfileRepository;
+    private final JsonMapper jsonMapper;
+    private final Semaphore permits;
+    private final Duration timeout;
+    private final int dishesPerMeal;
+    private volatile PromptContext promptContext;
+
+    public RecommendationEngine(ChatModel chatModel,
+                                DishLibraryIndex dishLibraryIndex,
+                                UserProfileRepository userProfileRepository,
+                                JsonMapper jsonMapper,
+                                RecommendationProperties properties) {
+        this.chatModel = chatModel;
+        this.dishLibraryIndex = dishLibraryIndex;
+        this.userProfileRepository = userProfileRepository;
+        this.jsonMapper = jsonMapper;
+        this.permits = new Semaphore(properties.getMaxConcurrentCalls());
+        this.timeout = properties.getTimeout();
+        this.dishesPerMeal = properties.getDishesPerMeal();
+    }
+
+    /**
+     * 为用户选出当日菜品，每个餐次 dishesPerMeal 道；菜品库为空时不发出元素。
+     * 过敏原、忌口与饮食禁忌排除了所有菜品时返回空列表，调用方不应再退回到不受约束的菜品。
+     */
+    public Mono<List<Pick>> recommend(Long userId, LocalDate date) {
+        return recommend(userId, date, pick -> { });
+    }
+
+    /**
+     * 同上；每确定一道菜即回调 onPick（按餐次顺序，在返回完整列表之前），供调用方在落库前推送进度。
+     */
+    public Mono<List<Pick>> recommend(Long userId, LocalDate date, Consumer<Pick> onPick) {
+        return dishLibraryIndex.current()
+                .filter(snapshot -> !snapshot.isEmpty())
+                .flatMap(snapshot -> userProfileRepository.findByUserId(userId)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(profile -> {
+                            BitSet allowed = snapshot.candidatesFor(profile.orElse(null));
+                            BitSet preferred = snapshot.preferredFor(profile.orElse(null), allowed);
+                            return askModel(snapshot, allowed, preferred, profile.orElse(null), date)
+                                    .map(picks -> complete(picks, snapshot, allowed, preferred, userId, date, onPick));
+                        }));
+    }
+
+    private Mono<List<Pick>> askModel(DishLibraryIndex.Snapshot snapshot, BitSet allowed, BitSet preferred,
+                                      UserProfile profile, LocalDate date) {
+        if (allowed.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        Prompt prompt = new Prompt(List.of(systemMessage(snapshot),
+                new UserMessage(userContext(snapshot, allowed, preferred, profile, date))));
+        return Mono.fromCallable(() -> {
+                    if (!permits.tryAcquire()) {
+                        return null;
+                    }
+                    try {
+                        return chatModel.call(prompt).getResult().getOutput().getText();
+                    } catch (Exception ex) {
+                        // 超时取消会中断调用线程，此时已无订阅者接收结果
+                        if (ex instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                            Thread.currentThread().interrupt();
+                            return null;
+                        }
+                        throw ex;
+                    } finally {
+                        permits.release();
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(timeout)
+                .map(text -> parse(text, snapshot, allowed))
+                .onErrorResume(ex -> {
+                    log.warn("Recommendation model call failed, using rule-based picks: {}", ex.toString());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    private SystemMessage systemMessage(DishLibraryIndex.Snapshot snapshot) {
+        PromptContext context = promptContext;
+        if (context == null || context.version() != snapshot.version()) {
+            context = new PromptContext(snapshot.version(), new SystemMessage(INSTRUCTIONS + snapshot.candidates()));
+            promptContext = context;
+        }
+        return context.systemMessage();
+    }
+
+    /**
+     * 每个用户不同的部分只放在 user message 中；有菜品被过敏原、忌口或饮食禁忌排除时，
+     * 列出候选位图中剩余的 id，带有偏好标签、应优先选择的菜品同样以 id 列出。
+     */
+    private String userContext(DishLibraryIndex.Snapshot snapshot, BitSet allowed, BitSet preferred,
+                               UserProfile profile, LocalDate date) {
+        StringBuilder context = new StringBuilder(256)
+                .append("Date: ").append(date).append('\n')
+                .append("Dishes per meal: ").append(dishesPerMeal).append('\n');
+        if (allowed.cardinality() < snapshot.dishes().size()) {
+            context.append("Only pick these ids: ");
+            for (int i = allowed.nextSetBit(0); i >= 0; i = allowed.nextSetBit(i + 1)) {
+                context.append(snapshot.dishes().get(i).getId()).append(',');
+            }
+            context.setLength(context.length() - 1);
+            context.append('\n');
+        }
+        if (!preferred.isEmpty() && preferred.cardinality() < allowed.cardinality()) {
+            context.append("Prefer these ids: ");
+            for (int i = preferred.nextSetBit(0); i >= 0; i = preferred.nextSetBit(i + 1)) {
+                context.append(snapshot.dishes().get(i).getId()).append(',');
+            }
+            context.setLength(context.length() - 1);
+            context.append('\n');
+        }
+        if (profile != null) {
+            context.append("Gender: ").append(profile.getGender()).append('\n')
+                    .append("Age: ").append(profile.getAge()).append('\n')
+                    .append("Height cm: ").append(profile.getHeight()).append('\n')
+                    .append("Weight kg: ").append(profile.getWeight()).append('\n');
+            if (profile.getCustomAvoidedIngredients() != null && !profile.getCustomAvoidedIngredients().isBlank()) {
+                context.append("Avoid ingredients: ").append(profile.getCustomAvoidedIngredients()).append('\n');
+            }
+        }
+        return context.toString();
+    }
+
+    /**
+     * 解析模型输出；丢弃不在索引或不在候选位图中的 id、未知餐次、重复菜品以及超出每餐名额的条目。
+     */
+    List<Pick> parse(String text, DishLibraryIndex.Snapshot snapshot, BitSet allowed) {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            return List.of();
+        }
+        JsonNode picks = jsonMapper.readTree(text.substring(start, end + 1)).path("picks");
+        List<Pick> result = new ArrayList<>();
+        Set<Long> used = new HashSet<>();
+        Map<String, Integer> perMeal = new HashMap<>();
+        for (JsonNode node : picks) {
+            Integer position = snapshot.positions().get(node.path("id").asLong(-1L));
+            String meal = node.path("meal").asString("");
+            if (position == null || !allowed.get(position) || !MEAL_TYPES.contains(meal)) {
+                continue;
+            }
+            DishLibrary dish = snapshot.dishes().get(position);
+            if (!used.add(dish.getId())) {
+                continue;
+            }
+            if (perMeal.merge(meal, 1, Integer::sum) > dishesPerMeal) {
+                continue;
+            }
+            String reason = node.path("reason").asString("").strip();
+            if (reason.length() > MAX_REASON_LENGTH) {
+                reason = reason.substring(0, MAX_REASON_LENGTH);
+            }
+            result.add(new Pick(dish, meal, reason.isEmpty() ? defaultReason(dish) : reason));
+        }
+        return result;
+    }
+
+    /**
+     * 以 (userId, date) 为种子轮转候选位图补齐缺少的餐次，同一用户同一天的结果稳定；
+     * 先从偏好子集中取，偏好子集用完后再取其余候选。
+     */
+    List<Pick> complete(List<Pick> picks, DishLibraryIndex.Snapshot snapshot, BitSet allowed, BitSet preferred,
+                        Long userId, LocalDate date, Consumer<Pick> onPick) {
+        if (allowed.isEmpty()) {
+            return List.of();
+        }
+        BitSet others = (BitSet) allowed.clone();
+        others.andNot(preferred);
+        int seed = Objects.hash(userId, date);
+        Rotation first = new Rotation(snapshot.select(preferred), seed);
+        Rotation second = new Rotation(snapshot.select(others), seed);
+        Set<Long> used = new HashSet<>();
+        Map<String, List<Pick>> byMeal = new HashMap<>();
+        for (Pick pick : picks) {
+            used.add(pick.dish().getId());
+            byMeal.computeIfAbsent(pick.mealType(), k -> new ArrayList<>()).add(pick);
+        }
+        List<Pick> result = new ArrayList<>(MEAL_TYPES.size() * dishesPerMeal);
+        for (String meal : MEAL_TYPES) {
+            List<Pick> chosen = byMeal.getOrDefault(meal, List.of());
+            for (Pick pick : chosen) {
+                result.add(pick);
+                onPick.accept(pick);
+            }
+            for (int missing = dishesPerMeal - chosen.size(); missing > 0; missing--) {
+                DishLibrary dish = first.next(used);
+                if (dish == null) {
+                    dish = second.next(used);
+                }
+                if (dish == null) {
+                    break;
+                }
+                Pick pick = new Pick(dish, meal, defaultReason(dish));
+                result.add(pick);
+                onPick.accept(pick);
+            }
+        }
+        return result;
+    }
+
+    private static final class Rotation {
+        private final List<DishLibrary> dishes;
+        private int cursor;
+
+        Rotation(List<DishLibrary> dishes, int seed) {
+            this.dishes = dishes;
+            this.cursor = dishes.isEmpty() ? 0 : Math.floorMod(seed, dishes.size());
+        }
+
+        DishLibrary next(Set<Long> used) {
+            for (int scanned = 0; scanned < dishes.size(); scanned++) {
+                DishLibrary candidate = dishes.get(cursor);
+                cursor = (cursor + 1) % dishes.size();
+                if (used.add(candidate.getId())) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String defaultReason(DishLibrary dish) {
+        return dish.getNutrientTags() != null && !dish.getNutrientTags().isBlank()
+                ? "Good source of " + dish.getNutrientTags()
+                : "Balanced choice for today";
+    }
+}
@@ -0,0 +1,120 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.SessionProperties;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本节点的 jti → SessionPrincipal 近端缓存，位于 SessionStore 的 Redis 读取之前。
+ * 条目按 TTL 与容量双重限制；吊销或更新时通过 Redis 频道通知各节点立即驱逐。
+ * 驱逐用户时留下带序号的墓碑：在驱逐之前开始的 Redis 读取（stamp 早于墓碑）不能再把旧会话放回缓存。
+ */
+@Component
+public class SessionNearCache {
+
+    private record Entry(SessionPrincipal principal, long expiresAtNanos) {
+    }
+
+    private record Tombstone(long sequence, long expiresAtNanos) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SessionNearCache(SessionProperties sessionProperties) {
+        Duration ttl = sessionProperties.getNearCacheTtl();
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = sessionProperties.getNearCacheMaxSize();
+    }
+
+    public SessionPrincipal get(String jti) {
+        Entry entry = entries.get(jti);
+        if (entry != null) {
+            if (System.nanoTime() - entry.expiresAtNanos() < 0) {
+                hits.incrementAndGet();
+                return entry.principal();
+            }
+            entries.remove(jti, entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 读取 Redis 之前取得的序号，回填时交给 put。
+     */
+    public long stamp() {
+        return sequence.get();
+    }
+
+    public void put(String jti, SessionPrincipal principal) {
+        put(jti, principal, stamp());
+    }
+
+    /**
+     * stamp 之后该用户被驱逐过时不写入；写入后再检查一次，与并发的 evictUser 之间不留空隙。
+     */
+    public void put(String jti, SessionPrincipal principal, long stamp) {
+        if (maxSize <= 0 || ttlNanos <= 0 || evictedSince(principal.userId(), stamp)) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evictOverflow();
+        }
+        Entry entry = new Entry(principal, System.nanoTime() + ttlNanos);
+        entries.put(jti, entry);
+        if (evictedSince(principal.userId(), stamp)) {
+            entries.remove(jti, entry);
+        }
+    }
+
+    public void evict(String jti) {
+        entries.remove(jti);
+    }
+
+    /**
+     * 先记墓碑再删除条目；墓碑保留一个 TTL，足以覆盖驱逐前已开始的读取。
+     */
+    public void evictUser(Long userId) {
+        long now = System.nanoTime();
+        tombstones.values().removeIf(tombstone -> now - tombstone.expiresAtNanos() >= 0);
+        tombstones.put(userId, new Tombstone(sequence.incrementAndGet(), now + ttlNanos));
+        entries.values().removeIf(entry -> entry.principal().userId().equals(userId));
+    }
+
+    private boolean evictedSince(Long userId, long stamp) {
+        Tombstone tombstone = tombstones.get(userId);
+        return tombstone != null && tombstone.sequence() > stamp;
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cn.cuckoox.wisediet.service;
+
+/**
+ * 随会话一起存放在 Redis 中的精简身份信息，认证过滤器据此构建当前用户，无需再查 users 表。
+ * 仅以 userId 建立的会话其余字段为 null，由调用方回源数据库补齐。
+ */
+public record SessionPrincipal(
+        Long userId,
+        String email,
+        Integer onboardingStep,
+        String role
+) {
+    public static SessionPrincipal ofUserId(Long userId) {
+        return new SessionPrincipal(userId, null, null, null);
+    }
+
+    public boolean isComplete() {
+        return email != null && onboardingStep != null;
+    }
+}
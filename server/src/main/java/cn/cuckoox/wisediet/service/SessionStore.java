@@ -1,24 +1,158 @@
 package cn.cuckoox.wisediet.service;
 
+import cn.cuckoox.wisediet.config.SessionProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.redis.connection.ReactiveSubscription;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 @Service
 public class SessionStore {
     private final ReactiveStringRedisTemplate redisTemplate;
+    private final SessionNearCache nearCache;
+    private final String invalidationChannel;
+    private Disposable invalidationSubscription;
 
-    public SessionStore(ReactiveStringRedisTemplate redisTemplate) {
+    public SessionStore(ReactiveStringRedisTemplate redisTemplate,
+                        SessionNearCache nearCache,
+                        SessionProperties sessionProperties) {
         this.redisTemplate = redisTemplate;
+        this.nearCache = nearCache;
+        this.invalidationChannel = sessionProperties.getInvalidationChannel();
     }
 
+    /**
+     * 订阅失效频道：任一节点吊销或更新用户会话后，所有节点都会驱逐该用户的近端缓存条目。
+     */
+    @PostConstruct
+    void subscribeInvalidations() {
+        invalidationSubscription = redisTemplate.listenToChannel(invalidationChannel)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::evictInvalidatedUser)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void unsubscribeInvalidations() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    private static final String FIELD_USER_ID = "uid";
+    private static final String FIELD_EMAIL = "email";
+    private static final String FIELD_ONBOARDING_STEP = "step";
+    private static final String FIELD_ROLE = "role";
+
+    private static final String SESSION_KEY_PREFIX = "session:";
+
+    /**
+     * 原子写入会话：重建会话 hash、设置 TTL、登记到用户会话集合，
+     * 并把集合的过期时间推到不早于最新一次会话的到期时间。
+     * KEYS = [sessionKey, userKey]，ARGV = [ttlMillis, jti, field1, value1, ...]
+     */
+    private static final RedisScript<Long> SAVE_SESSION = RedisScript.of("""
+            local ttl = tonumber(ARGV[1])
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            redis.call('PEXPIRE', KEYS[1], ttl)
+            redis.call('SADD', KEYS[2], ARGV[2])
+            if redis.call('PTTL', KEYS[2]) < ttl then
+                redis.call('PEXPIRE', KEYS[2], ttl)
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 原子吊销用户全部会话并广播失效消息，返回被吊销的会话数；集合在读取后有变化时返回 -1。
+     * KEYS = [userKey, sessionKey...]，ARGV = [channel, userId, jti...]（jti 与 KEYS[2..] 一一对应）
+     */
+    private static final RedisScript<Long> REVOKE_USER_SESSIONS = RedisScript.of("""
+            if redis.call('SCARD', KEYS[1]) ~= #KEYS - 1 then
+                return -1
+            end
+            for i = 2, #KEYS do
+                if redis.call('SISMEMBER', KEYS[1], ARGV[i + 1]) == 0 then
+                    return -1
+                end
+            end
+            for i = 2, #KEYS, 1000 do
+                redis.call('DEL', unpack(KEYS, i, math.min(i + 999, #KEYS)))
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('PUBLISH', ARGV[1], ARGV[2])
+            return #KEYS - 1
+            """, Long.class);
+
+    /**
+     * 就地更新用户所有仍存活会话中的一个字段并广播失效消息；已过期的会话不会被重建。
+     * 集合在读取后有变化时返回 -1。
+     * KEYS = [userKey, sessionKey...]，ARGV = [channel, userId, field, value, jti...]（jti 与 KEYS[2..] 一一对应）
+     */
+    private static final RedisScript<Long> UPDATE_USER_SESSIONS = RedisScript.of("""
+            if redis.call('SCARD', KEYS[1]) ~= #KEYS - 1 then
+                return -1
+            end
+            for i = 2, #KEYS do
+                if redis.call('SISMEMBER', KEYS[1], ARGV[i + 3]) == 0 then
+                    return -1
+                end
+            end
+            local updated = 0
+            for i = 2, #KEYS do
+                if redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('HSET', KEYS[i], ARGV[3], ARGV[4])
+                    updated = updated + 1
+                end
+            end
+            redis.call('PUBLISH', ARGV[1], ARGV[2])
+            return updated
+            """, Long.class);
+
+    /**
+     * 从用户会话集合中移除已过期的 jti，返回移除数量；读取之后新登记的会话留到下一轮。
+     * KEYS = [userKey, sessionKey...]，ARGV = [jti...]（与 KEYS[2..] 一一对应）
+     */
+    private static final RedisScript<Long> PRUNE_USER_SESSIONS = RedisScript.of("""
+            local removed = 0
+            for i = 2, #KEYS do
+                if redis.call('EXISTS', KEYS[i]) == 0 then
+                    removed = removed + redis.call('SREM', KEYS[1], ARGV[i - 1])
+                end
+            end
+            return removed
+            """, Long.class);
+
+    /** 吊销/更新脚本发现会话集合在读取后变化时的重读次数上限。 */
+    private static final int MAX_SESSION_SET_RETRIES = 5;
+
     public Mono<Boolean> saveSession(String jti, Long userId, Duration ttl) {
-        String sessionKey = sessionKey(jti);
-        String userKey = userKey(userId);
-        return redisTemplate.opsForValue()
-                .set(sessionKey, String.valueOf(userId), ttl)
-                .flatMap(saved -> redisTemplate.opsForSet().add(userKey, jti).thenReturn(saved));
+        return saveSession(jti, SessionPrincipal.ofUserId(userId), ttl);
+    }
+
+    public Mono<Boolean> saveSession(String jti, SessionPrincipal principal, Duration ttl) {
+        List<String> args = new ArrayList<>(10);
+        args.add(String.valueOf(ttl.toMillis()));
+        args.add(jti);
+        toHash(principal).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return redisTemplate.execute(SAVE_SESSION, List.of(sessionKey(jti), userKey(principal.userId())), args)
+                .next()
+                .map(result -> result == 1L);
     }
 
     public Mono<Boolean> exists(String jti) {
@@ -26,24 +160,107 @@ public class SessionStore {
     }
 
     public Mono<Long> userIdBySession(String jti) {
-        return redisTemplate.opsForValue()
-                .get(sessionKey(jti))
-                .flatMap(value -> {
-                    try {
-                        return Mono.just(Long.parseLong(value));
-                    } catch (NumberFormatException ex) {
-                        return Mono.empty();
-                    }
-                });
+        return principalBySession(jti).map(SessionPrincipal::userId);
+    }
+
+    public Mono<SessionPrincipal> principalBySession(String jti) {
+        SessionPrincipal cached = nearCache.get(jti);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long stamp = nearCache.stamp();
+        return redisTemplate.<String, String>opsForHash()
+                .entries(sessionKey(jti))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(fields -> Mono.justOrEmpty(fromHash(fields)))
+                .doOnNext(principal -> nearCache.put(jti, principal, stamp));
+    }
+
+    /**
+     * 引导完成后就地更新该用户所有在线会话中的 onboardingStep，并通知各节点驱逐近端缓存。
+     */
+    public Mono<Void> updateOnboardingStep(Long userId, int onboardingStep) {
+        return executeOnUserSessions(UPDATE_USER_SESSIONS, userKey(userId),
+                        List.of(invalidationChannel, String.valueOf(userId),
+                                FIELD_ONBOARDING_STEP, String.valueOf(onboardingStep)))
+                .then(Mono.fromRunnable(() -> nearCache.evictUser(userId)));
     }
 
     public Mono<Void> revokeUserSessions(Long userId) {
-        String userKey = userKey(userId);
-        return redisTemplate.opsForSet()
-                .members(userKey)
-                .flatMap(jti -> redisTemplate.delete(sessionKey(jti)))
-                .then(redisTemplate.delete(userKey))
-                .then();
+        return executeOnUserSessions(REVOKE_USER_SESSIONS, userKey(userId),
+                        List.of(invalidationChannel, String.valueOf(userId)))
+                .then(Mono.fromRunnable(() -> nearCache.evictUser(userId)));
+    }
+
+    /**
+     * 扫描所有用户会话集合，剔除已过期的 jti，返回剔除总数。
+     */
+    public Mono<Long> pruneExpiredSessions() {
+        return redisTemplate.scan(ScanOptions.scanOptions().match("user:*:sessions").count(500).build())
+                .flatMap(userKey -> redisTemplate.opsForSet().members(userKey)
+                        .collectList()
+                        .filter(jtis -> !jtis.isEmpty())
+                        .flatMap(jtis -> redisTemplate.execute(PRUNE_USER_SESSIONS, sessionKeys(userKey, jtis), jtis)
+                                .next()), 4)
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * 脚本访问的每个 key 都必须经 KEYS 传入：先读出会话集合，再把 userKey 与各会话 key 一并交给脚本，
+     * jti 按相同顺序追加在 fixedArgs 之后。脚本在集合已变化时返回 -1 且不做任何修改，此时重新读取。
+     */
+    private Mono<Long> executeOnUserSessions(RedisScript<Long> script, String userKey, List<String> fixedArgs) {
+        return Mono.defer(() -> redisTemplate.opsForSet().members(userKey)
+                        .collectList()
+                        .flatMap(jtis -> {
+                            List<String> args = new ArrayList<>(fixedArgs.size() + jtis.size());
+                            args.addAll(fixedArgs);
+                            args.addAll(jtis);
+                            return redisTemplate.execute(script, sessionKeys(userKey, jtis), args).next();
+                        }))
+                .filter(result -> result >= 0)
+                .repeatWhenEmpty(MAX_SESSION_SET_RETRIES, attempts -> attempts);
+    }
+
+    private List<String> sessionKeys(String userKey, List<String> jtis) {
+        List<String> keys = new ArrayList<>(jtis.size() + 1);
+        keys.add(userKey);
+        jtis.forEach(jti -> keys.add(sessionKey(jti)));
+        return keys;
+    }
+
+    private void evictInvalidatedUser(String message) {
+        try {
+            nearCache.evictUser(Long.parseLong(message));
+        } catch (NumberFormatException ignored) {
+            // 非法消息直接忽略
+        }
+    }
+
+    private static Map<String, String> toHash(SessionPrincipal principal) {
+        Map<String, String> fields = new LinkedHashMap<>(4);
+        fields.put(FIELD_USER_ID, String.valueOf(principal.userId()));
+        if (principal.email() != null) fields.put(FIELD_EMAIL, principal.email());
+        if (principal.onboardingStep() != null) fields.put(FIELD_ONBOARDING_STEP, String.valueOf(principal.onboardingStep()));
+        if (principal.role() != null) fields.put(FIELD_ROLE, principal.role());
+        return fields;
+    }
+
+    private static SessionPrincipal fromHash(Map<String, String> fields) {
+        try {
+            String userId = fields.get(FIELD_USER_ID);
+            if (userId == null) {
+                return null;
+            }
+            String step = fields.get(FIELD_ONBOARDING_STEP);
+            return new SessionPrincipal(
+                    Long.parseLong(userId),
+                    fields.get(FIELD_EMAIL),
+                    step != null ? Integer.valueOf(step) : null,
+                    fields.get(FIELD_ROLE));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 
     private static final Duration OAUTH_STATE_TTL = Duration.ofMinutes(5);
@@ -66,7 +283,7 @@ public class SessionStore {
     }
 
     private String sessionKey(String jti) {
-        return "session:" + jti;
+        return SESSION_KEY_PREFIX + jti;
     }
 
     private String userKey(Long userId) {
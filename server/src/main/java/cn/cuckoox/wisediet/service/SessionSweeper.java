@@ -0,0 +1,35 @@
+package cn.cuckoox.wisediet.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定期清理 user:{id}:sessions 集合中已过期的 jti，防止集合无限增长。
+ */
+@Slf4j
+@Component
+public class SessionSweeper {
+
+    private final SessionStore sessionStore;
+
+    public SessionSweeper(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * 在调度线程上阻塞到本轮清理结束，fixedDelay 才能保证两轮清理不会重叠。
+     */
+    @Scheduled(initialDelayString = "${app.session.sweep-interval:PT10M}",
+            fixedDelayString = "${app.session.sweep-interval:PT10M}")
+    public void sweep() {
+        try {
+            Long removed = sessionStore.pruneExpiredSessions().block();
+            if (removed != null && removed > 0) {
+                log.info("Pruned {} expired session ids", removed);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Session sweep failed", ex);
+        }
+    }
+}
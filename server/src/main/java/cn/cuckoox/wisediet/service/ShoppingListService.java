@@ -0,0 +1,182 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.ShoppingListResponse;
+import cn.cuckoox.wisediet.model.Dish;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.ShoppingItem;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.DishRepository;
+import cn.cuckoox.wisediet.repository.MealPlanRepository;
+import cn.cuckoox.wisediet.repository.ShoppingListRepository;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 采购清单：确认菜单后异步计算，按货架分区逐个写入 shopping_lists，打开清单时只做一次按键读取。
+ * 选中菜品的食材按 家庭人数 / 菜谱份数 折算，同名同单位的食材合并。
+ */
+@Slf4j
+@Service
+public class ShoppingListService {
+
+    static final String DEFAULT_AISLE = "other";
+
+    /**
+     * 折算与合并前的一行食材。
+     */
+    record Line(String aisle, String name, String unit, Double quantity) {
+    }
+
+    private final DishRepository dishRepository;
+    private final DishLibraryRepository dishLibraryRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final MealPlanRepository mealPlanRepository;
+    private final ShoppingListRepository shoppingListRepository;
+    private final JsonMapper jsonMapper;
+    private final Map<Long, Disposable> running = new ConcurrentHashMap<>();
+
+    public ShoppingListService(DishRepository dishRepository,
+                               DishLibraryRepository dishLibraryRepository,
+                               UserProfileRepository userProfileRepository,
+                               MealPlanRepository mealPlanRepository,
+                               ShoppingListRepository shoppingListRepository,
+                               JsonMapper jsonMapper) {
+        this.dishRepository = dishRepository;
+        this.dishLibraryRepository = dishLibraryRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.mealPlanRepository = mealPlanRepository;
+        this.shoppingListRepository = shoppingListRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * 当日清单；已确认但尚未生成（如确认发生在升级之前）时现场计算一次。
+     */
+    public Mono<ShoppingListResponse> getTodayList(Long userId) {
+        LocalDate today = LocalDate.now();
+        return shoppingListRepository.findByUserIdAndDate(userId, today)
+                .switchIfEmpty(Mono.defer(() -> mealPlanRepository.findByUserIdAndDate(userId, today)
+                        .filter(plan -> "confirmed".equals(plan.getStatus()))
+                        .flatMap(plan -> rebuild(plan.getId(), userId)
+                                .then(shoppingListRepository.findById(plan.getId())))))
+                .map(ShoppingListResponse::from)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "No shopping list for today")));
+    }
+
+    /**
+     * 后台重新计算；同一计划上尚未完成的上一次计算会被取消。
+     * 取消无法撤回已发出的语句，旧计算的迟到写入由 rebuild 的 generation 条件丢弃。
+     */
+    public void refreshAsync(Long mealPlanId, Long userId) {
+        Disposable.Swap current = Disposables.swap();
+        Disposable previous = running.put(mealPlanId, current);
+        if (previous != null) {
+            previous.dispose();
+        }
+        current.update(rebuild(mealPlanId, userId)
+                .doFinally(signal -> running.remove(mealPlanId, current))
+                .subscribe(null, ex -> log.warn("Shopping list for plan {} failed: {}", mealPlanId, ex.toString())));
+    }
+
+    /**
+     * 流式读取选中菜品的菜谱，按货架分区分组，每个分区合并完成即写入。
+     * reset 递增并返回本次的 generation，分区写入与置为 ready 都以它为条件：
+     * 同一计划的多次计算（连续确认、打开清单时的现场计算、其他节点）交错执行时，
+     * 只有最后一次 reset 的计算能写入，它读取菜品时已能看到最新一次确认。
+     */
+    public Mono<Void> rebuild(Long mealPlanId, Long userId) {
+        return Mono.zip(familyMembers(userId), shoppingListRepository.reset(mealPlanId))
+                .flatMap(tuple -> dishRepository.findByMealPlanId(mealPlanId)
+                        .filter(dish -> Boolean.TRUE.equals(dish.getSelected()) && dish.getDishLibraryId() != null)
+                        .map(Dish::getDishLibraryId)
+                        .collectList()
+                        .flatMapMany(dishLibraryRepository::findAllById)
+                        .flatMapIterable(recipe -> lines(recipe, tuple.getT1()))
+                        .groupBy(Line::aisle)
+                        .flatMap(aisle -> aisle.collectList()
+                                .flatMap(lines -> shoppingListRepository.putAisle(mealPlanId, tuple.getT2(),
+                                        aisle.key(), jsonMapper.writeValueAsString(merge(lines)))))
+                        .then(shoppingListRepository.markReady(mealPlanId, tuple.getT2())))
+                .then();
+    }
+
+    private Mono<Integer> familyMembers(Long userId) {
+        return userProfileRepository.findByUserId(userId)
+                .map(UserProfile::getFamilyMembers)
+                .filter(members -> members > 0)
+                .defaultIfEmpty(0);
+    }
+
+    /**
+     * 菜谱食材按 家庭人数 / 菜谱份数 折算；未填写家庭人数时按菜谱原量。非按克计量的食材沿用原单位。
+     */
+    static List<Line> lines(DishLibrary recipe, int familyMembers) {
+        if (recipe.getIngredients() == null) {
+            return List.of();
+        }
+        int servings = recipe.getServings() != null && recipe.getServings() > 0 ? recipe.getServings() : 1;
+        double scale = familyMembers > 0 ? (double) familyMembers / servings : 1.0;
+        List<Line> lines = new ArrayList<>(recipe.getIngredients().items().size());
+        for (Ingredient ingredient : recipe.getIngredients().items()) {
+            if (ingredient.name() == null || ingredient.name().isBlank()) {
+                continue;
+            }
+            String aisle = ingredient.aisle() != null && !ingredient.aisle().isBlank()
+                    ? ingredient.aisle().strip().toLowerCase(Locale.ROOT)
+                    : DEFAULT_AISLE;
+            if (ingredient.grams() != null) {
+                lines.add(new Line(aisle, ingredient.name().strip(), "g", ingredient.grams() * scale));
+            } else {
+                lines.add(new Line(aisle, ingredient.name().strip(), ingredient.unit(),
+                        ingredient.amount() != null ? ingredient.amount() * scale : null));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 以（小写名称, 单位）合并同一分区内的食材，数量累加后克数取整、其他单位保留一位小数，结果按名称排序。
+     */
+    static List<ShoppingItem> merge(List<Line> lines) {
+        Map<String, ShoppingItem> merged = new LinkedHashMap<>();
+        for (Line line : lines) {
+            String key = line.name().toLowerCase(Locale.ROOT) + '|' + (line.unit() != null ? line.unit() : "");
+            merged.merge(key, new ShoppingItem(line.name(), line.unit(), line.quantity()),
+                    (a, b) -> new ShoppingItem(a.name(), a.unit(), sum(a.quantity(), b.quantity())));
+        }
+        return merged.values().stream()
+                .map(item -> item.quantity() != null
+                        ? new ShoppingItem(item.name(), item.unit(), round(item.quantity(), item.unit()))
+                        : item)
+                .sorted(Comparator.comparing(ShoppingItem::name))
+                .toList();
+    }
+
+    private static double round(double quantity, String unit) {
+        return "g".equals(unit) ? Math.round(quantity) : Math.round(quantity * 10) / 10.0;
+    }
+
+    private static Double sum(Double a, Double b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Double.valueOf(a + b);
+    }
+}
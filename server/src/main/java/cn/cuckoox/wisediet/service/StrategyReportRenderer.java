@@ -0,0 +1,66 @@
+package cn.cuckoox.wisediet.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * 引导策略报告：每个 Locale 只解析一次文案并编译为不可变结构，
+ * 请求时仅拼接日期等按请求变化的字段。Locale 由 RequestLocaleResolver 限定在支持的语言内，缓存大小有界。
+ */
+@Component
+public class StrategyReportRenderer {
+
+    private final MessageSource messageSource;
+    private final Map<Locale, Map<String, Object>> compiled = new ConcurrentHashMap<>();
+
+    public StrategyReportRenderer(MessageSource messageSource) {
+        this.messageSource = messageSource;
+    }
+
+    public Map<String, Object> render(Locale locale, LocalDate date) {
+        Map<String, Object> template = compiled.computeIfAbsent(locale, this::compile);
+        Map<String, Object> response = new HashMap<>(template.size() + 1, 1.0f);
+        response.putAll(template);
+        response.put("date", date.toString());
+        return response;
+    }
+
+    private Map<String, Object> compile(Locale locale) {
+        Map<String, Object> report = new HashMap<>();
+        report.put("title", message("onboarding.strategy.title", locale));
+        report.put("summary", message("onboarding.strategy.summary", locale));
+
+        Map<String, String> keyPoints = new LinkedHashMap<>();
+        keyPoints.put(message("onboarding.strategy.key.energy", locale), message("onboarding.strategy.value.energy", locale));
+        keyPoints.put(message("onboarding.strategy.key.eyes", locale), message("onboarding.strategy.value.eyes", locale));
+        keyPoints.put(message("onboarding.strategy.key.stress", locale), message("onboarding.strategy.value.stress", locale));
+        report.put("key_points", Collections.unmodifiableMap(keyPoints));
+
+        Map<String, String> projectedImpact = new LinkedHashMap<>();
+        projectedImpact.put("focus_boost", message("onboarding.strategy.impact.focusBoost", locale));
+        projectedImpact.put("calorie_target", message("onboarding.strategy.impact.calorieTarget", locale));
+        report.put("projected_impact", Collections.unmodifiableMap(projectedImpact));
+
+        Map<String, String> preferences = new LinkedHashMap<>();
+        preferences.put("daily_focus", message("onboarding.strategy.preference.dailyFocus", locale));
+        preferences.put("meal_frequency", message("onboarding.strategy.preference.mealFrequency", locale));
+        preferences.put("cooking_level", message("onboarding.strategy.preference.cookingLevel", locale));
+        preferences.put("budget", message("onboarding.strategy.preference.budget", locale));
+        report.put("preferences", Collections.unmodifiableMap(preferences));
+
+        report.put("info_hint", message("onboarding.strategy.infoHint", locale));
+        report.put("cta_text", message("onboarding.strategy.ctaText", locale));
+        return Map.copyOf(report);
+    }
+
+    private String message(String code, Locale locale) {
+        return messageSource.getMessage(code, null, locale);
+    }
+}
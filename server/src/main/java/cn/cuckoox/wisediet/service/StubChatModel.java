@@ -0,0 +1,52 @@
+package cn.cuckoox.wisediet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+/**
+ * 离线的确定性 ChatModel：按候选清单顺序依次为每个餐次选菜（user message 限定了 id 时只取其中的菜），
+ * 输出与 RecommendationEngine 约定的 JSON 格式。
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final Pattern CANDIDATE = Pattern.compile("(?m)^(\\d+)\\|");
+    private static final Pattern PER_MEAL = Pattern.compile("per meal: (\\d+)");
+    private static final Pattern ONLY_IDS = Pattern.compile("Only pick these ids: ([\\d,]+)");
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        List<String> ids = new ArrayList<>();
+        Matcher candidates = CANDIDATE.matcher(prompt.getSystemMessage().getText());
+        while (candidates.find()) {
+            ids.add(candidates.group(1));
+        }
+        Matcher only = ONLY_IDS.matcher(prompt.getUserMessage().getText());
+        if (only.find()) {
+            ids.retainAll(List.of(only.group(1).split(",")));
+        }
+        Matcher perMealMatcher = PER_MEAL.matcher(prompt.getUserMessage().getText());
+        int perMeal = perMealMatcher.find() ? Integer.parseInt(perMealMatcher.group(1)) : 2;
+
+        StringBuilder json = new StringBuilder("{\"picks\":[");
+        int next = 0;
+        for (String meal : RecommendationEngine.MEAL_TYPES) {
+            for (int i = 0; i < perMeal && next < ids.size(); i++, next++) {
+                if (next > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":").append(ids.get(next))
+                        .append(",\"meal\":\"").append(meal)
+                        .append("\",\"reason\":\"Balanced choice for ").append(meal).append("\"}");
+            }
+        }
+        json.append("]}");
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(json.toString()))));
+    }
+}
@@ -0,0 +1,84 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.repository.AllergenTagRepository;
+import cn.cuckoox.wisediet.repository.DietaryPreferenceTagRepository;
+import cn.cuckoox.wisediet.repository.OccupationTagRepository;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * 标签字典的内存快照：启动时加载三张标签表，预先序列化为 JSON 字节并计算强 ETag。
+ * 快照不可变，reload 成功后整体替换引用，读请求不加锁也不访问数据库。
+ */
+@Service
+public class TagCatalog {
+
+    private final OccupationTagRepository occupationTagRepository;
+    private final AllergenTagRepository allergenTagRepository;
+    private final DietaryPreferenceTagRepository dietaryPreferenceTagRepository;
+    private final JsonMapper jsonMapper;
+
+    private volatile Snapshot snapshot;
+
+    public TagCatalog(OccupationTagRepository occupationTagRepository,
+                      AllergenTagRepository allergenTagRepository,
+                      DietaryPreferenceTagRepository dietaryPreferenceTagRepository,
+                      JsonMapper jsonMapper) {
+        this.occupationTagRepository = occupationTagRepository;
+        this.allergenTagRepository = allergenTagRepository;
+        this.dietaryPreferenceTagRepository = dietaryPreferenceTagRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public record EncodedTags(byte[] body, String etag) {
+    }
+
+    public record Snapshot(EncodedTags occupations, EncodedTags allergens, EncodedTags dietaryPreferences) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        reload().subscribe();
+    }
+
+    /**
+     * 当前快照；启动预热尚未完成时按需加载一次。
+     */
+    public Mono<Snapshot> current() {
+        Snapshot loaded = snapshot;
+        return loaded != null ? Mono.just(loaded) : reload();
+    }
+
+    /**
+     * 从数据库重新加载并替换快照；加载失败时保留旧快照。
+     */
+    public Mono<Snapshot> reload() {
+        return Mono.zip(
+                        occupationTagRepository.findAll().collectList().map(this::encode),
+                        allergenTagRepository.findAll().collectList().map(this::encode),
+                        dietaryPreferenceTagRepository.findAll().collectList().map(this::encode))
+                .map(tuple -> new Snapshot(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .doOnNext(loaded -> snapshot = loaded);
+    }
+
+    private EncodedTags encode(List<?> tags) {
+        byte[] body = jsonMapper.writeValueAsBytes(tags);
+        return new EncodedTags(body, etag(body));
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -1,37 +1,148 @@
 package cn.cuckoox.wisediet.service;
 
 import cn.cuckoox.wisediet.controller.dto.MealPlanResponse;
+import cn.cuckoox.wisediet.controller.dto.PlanEvent;
 import cn.cuckoox.wisediet.model.Dish;
 import cn.cuckoox.wisediet.model.MealPlan;
 import cn.cuckoox.wisediet.repository.DishRepository;
 import cn.cuckoox.wisediet.repository.MealPlanRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 public class TodayService {
 
+    private record PlanKey(Long userId, LocalDate date) {
+    }
+
+    /**
+     * 一份计划的进度流；drafted 记录落库前已推送的菜谱 id，仅在选菜线程追加。
+     */
+    private static final class PlanStream {
+        private final Sinks.Many<PlanEvent> sink = Sinks.many().replay().all();
+        private final List<Long> drafted = new CopyOnWriteArrayList<>();
+    }
+
     private final MealPlanRepository mealPlanRepository;
     private final DishRepository dishRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final RecommendationEngine recommendationEngine;
+    private final ShoppingListService shoppingListService;
+    private final NutritionHistoryService nutritionHistoryService;
+    private final Map<PlanKey, Mono<MealPlanResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<PlanKey, PlanStream> streams = new ConcurrentHashMap<>();
 
-    public TodayService(MealPlanRepository mealPlanRepository, DishRepository dishRepository) {
+    public TodayService(MealPlanRepository mealPlanRepository,
+                        DishRepository dishRepository,
+                        TransactionalOperator transactionalOperator,
+                        RecommendationEngine recommendationEngine,
+                        ShoppingListService shoppingListService,
+                        NutritionHistoryService nutritionHistoryService) {
         this.mealPlanRepository = mealPlanRepository;
         this.dishRepository = dishRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.recommendationEngine = recommendationEngine;
+        this.shoppingListService = shoppingListService;
+        this.nutritionHistoryService = nutritionHistoryService;
     }
 
+    /**
+     * 已引导用户的当日计划由 MealPlanGenerationJob 在前一晚生成，这里通常只是一次读取；
+     * 任务之后才完成引导的用户仍在首次请求时现场生成。
+     * 同一用户的并发请求共享同一个进行中的 Mono，只有第一个会真正访问数据库。
+     */
     public Mono<MealPlanResponse> getOrCreateTodayPlan(Long userId) {
-        LocalDate today = LocalDate.now();
-        return mealPlanRepository.findByUserIdAndDate(userId, today)
+        return Mono.defer(() -> sharedPlan(new PlanKey(userId, LocalDate.now())));
+    }
+
+    private Mono<MealPlanResponse> sharedPlan(PlanKey key) {
+        return inFlight.computeIfAbsent(key, k -> loadOrCreate(k)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    /**
+     * 当日计划的生成进度：先发 pending，选菜过程中每选定一道即发出（尚未落库，id 为空），
+     * 计划提交后发 ready，带 id 的菜品以 ready 中的 mealPlanId 读取。
+     * 计划已存在、或生成早于本次订阅开始时，在 ready 之前逐道发出已落库的菜品；
+     * 与其他节点并发生成而以对方的计划为准时同样补发，客户端以最后一组菜品为准。
+     * 同一计划的所有订阅者（多个标签页、断线重连）共享一个回放 sink，生成只进行一次；
+     * 订阅者全部断开不会取消生成，完成后 sink 即被移除，之后的订阅直接回放已有计划。
+     */
+    public Flux<PlanEvent> streamTodayPlan(Long userId) {
+        return Flux.defer(() -> {
+            PlanKey key = new PlanKey(userId, LocalDate.now());
+            PlanStream created = new PlanStream();
+            // 放入 map 之前先发 pending，选菜线程看到 sink 时 pending 一定在前
+            created.sink.tryEmitNext(PlanEvent.pending());
+            PlanStream existing = streams.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing.sink.asFlux();
+            }
+            sharedPlan(key).subscribe(
+                    plan -> {
+                        List<Long> persisted = plan.dishes().stream().map(Dish::getDishLibraryId).toList();
+                        if (persisted.size() != created.drafted.size() || !persisted.containsAll(created.drafted)) {
+                            plan.dishes().forEach(dish -> created.sink.tryEmitNext(PlanEvent.dish(plan.id(), dish)));
+                        }
+                        created.sink.tryEmitNext(PlanEvent.ready(plan.id(), plan.status()));
+                        streams.remove(key, created);
+                        created.sink.tryEmitComplete();
+                    },
+                    error -> {
+                        streams.remove(key, created);
+                        created.sink.tryEmitError(error);
+                    });
+            return created.sink.asFlux();
+        });
+    }
+
+    /**
+     * 有订阅者在等待该计划的进度时，推送刚选定、尚未落库的菜品。
+     */
+    private void draft(PlanKey key, RecommendationEngine.Pick pick) {
+        PlanStream stream = streams.get(key);
+        if (stream != null) {
+            stream.drafted.add(pick.dish().getId());
+            stream.sink.tryEmitNext(PlanEvent.dish(null, toDish(null, pick)));
+        }
+    }
+
+    private Mono<MealPlanResponse> loadOrCreate(PlanKey key) {
+        return mealPlanRepository.findByUserIdAndDate(key.userId(), key.date())
                 .flatMap(this::buildResponse)
-                .switchIfEmpty(createMockPlan(userId, today).flatMap(this::buildResponse));
+                .switchIfEmpty(Mono.defer(() -> createPlan(key.userId(), key.date())))
+                // 其他节点或预生成任务抢先写入：冲突后读取胜出的那份计划
+                .switchIfEmpty(Mono.defer(() -> mealPlanRepository.findByUserIdAndDate(key.userId(), key.date())
+                        .flatMap(this::buildResponse)));
     }
 
+    /**
+     * 确保用户在指定日期有一份计划，供夜间预生成任务调用；返回 true 表示本次新建。
+     */
+    public Mono<Boolean> ensurePlan(Long userId, LocalDate date) {
+        return mealPlanRepository.findByUserIdAndDate(userId, date)
+                .map(existing -> false)
+                .switchIfEmpty(Mono.defer(() -> createPlan(userId, date)
+                        .map(created -> true)
+                        .defaultIfEmpty(false)));
+    }
+
+    /**
+     * 确认后同步重算当日营养汇总，采购清单在后台生成，不阻塞确认响应。
+     */
     public Mono<MealPlanResponse> confirmMenu(Long userId, List<Long> dishIds) {
         LocalDate today = LocalDate.now();
         return mealPlanRepository.findByUserIdAndDate(userId, today)
@@ -39,14 +150,12 @@ public class TodayService {
                 .flatMap(plan -> {
                     plan.setStatus("confirmed");
                     return mealPlanRepository.save(plan)
-                            .then(dishRepository.findByMealPlanId(plan.getId())
-                                    .flatMap(dish -> {
-                                        dish.setSelected(dishIds.contains(dish.getId()));
-                                        return dishRepository.save(dish);
-                                    })
-                                    .then())
-                            .then(buildResponse(plan));
-                });
+                            .flatMap(saved -> dishRepository.updateSelection(saved.getId(), dishIds)
+                                    .collectList()
+                                    .map(dishes -> MealPlanResponse.from(saved, dishes)));
+                })
+                .flatMap(response -> nutritionHistoryService.refreshPlan(response.id()).thenReturn(response))
+                .doOnNext(response -> shoppingListService.refreshAsync(response.id(), userId));
     }
 
     private Mono<MealPlanResponse> buildResponse(MealPlan plan) {
@@ -55,39 +164,66 @@ public class TodayService {
                 .map(dishes -> MealPlanResponse.from(plan, dishes));
     }
 
-    private Mono<MealPlan> createMockPlan(Long userId, LocalDate date) {
-        MealPlan plan = new MealPlan(null, userId, date, "pending");
-        return mealPlanRepository.save(plan)
-                .flatMap(savedPlan -> {
-                    List<Dish> mockDishes = List.of(
-                            new Dish(null, savedPlan.getId(), "Greek Yogurt Berry Bowl",
-                                    "High-protein breakfast to stabilize morning blood sugar",
-                                    "https://images.unsplash.com/photo-1488477181946-6428a0291777", 1, 5, 5, "High Protein,Probiotics", false, "breakfast"),
-                            new Dish(null, savedPlan.getId(), "Spinach Egg Wrap",
-                                    "Iron-rich greens with eggs for longer satiety",
-                                    "https://images.unsplash.com/photo-1513442542250-854d436a73f2", 2, 8, 6, "Iron,High Protein", false, "breakfast"),
-                            new Dish(null, savedPlan.getId(), "Quinoa Avocado Salad",
-                                    "Low GI lunch to avoid afternoon energy crash",
-                                    "https://images.unsplash.com/photo-1546069901-ba9599a7e63c", 2, 10, 8, "Low GI,High Fiber", false, "lunch"),
-                            new Dish(null, savedPlan.getId(), "Miso Chicken Rice Bowl",
-                                    "Balanced carb + lean protein for focused work blocks",
-                                    "https://images.unsplash.com/photo-1512621776951-a57141f2eefd", 3, 12, 14, "Lean Protein,B Vitamins", false, "lunch"),
-                            new Dish(null, savedPlan.getId(), "Apple Peanut Butter Cups",
-                                    "Portable snack with fiber and healthy fats",
-                                    "https://images.unsplash.com/photo-1560807707-8cc77767d783", 1, 5, 3, "Fiber,Healthy Fats", false, "snack"),
-                            new Dish(null, savedPlan.getId(), "Edamame Citrus Mix",
-                                    "Plant protein snack to curb pre-dinner cravings",
-                                    "https://images.unsplash.com/photo-1615486363979-110f1dc7f9c3", 1, 6, 4, "Plant Protein,Vitamin C", false, "snack"),
-                            new Dish(null, savedPlan.getId(), "Grilled Salmon & Asparagus",
-                                    "Omega-3 rich dinner supports recovery after long days",
-                                    "https://images.unsplash.com/photo-1467003909585-2f8a72700288", 3, 10, 20, "Omega-3,High Protein", false, "dinner"),
-                            new Dish(null, savedPlan.getId(), "Zucchini Noodles Pesto",
-                                    "Lower-carb dinner helps avoid late-night heaviness",
-                                    "https://images.unsplash.com/photo-1621996346565-e3dbc353d2e5", 2, 10, 15, "Low Carb,Vitamins", false, "dinner")
-                    );
-                    return Flux.fromIterable(mockDishes)
-                            .flatMap(dishRepository::save)
-                            .then(Mono.just(savedPlan));
-                });
+    /**
+     * 先在事务外完成选菜（可能调用 LLM），再在同一事务中写入计划与菜品；
+     * (user_id, date) 冲突时返回空，此时并发的另一方已提交完整的计划与菜品。
+     * 仅当菜品库为空时退回内置的示例菜品；用户的限制排除了所有菜品时计划不含菜品，
+     * 示例菜品没有经过过敏原与饮食禁忌过滤。
+     */
+    private Mono<MealPlanResponse> createPlan(Long userId, LocalDate date) {
+        PlanKey key = new PlanKey(userId, date);
+        return recommendationEngine.recommend(userId, date, pick -> draft(key, pick))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(picks -> mealPlanRepository.insertIfAbsent(userId, date, "pending")
+                        .flatMap(savedPlan -> dishRepository.insertAll(picks
+                                        .map(found -> toDishes(savedPlan.getId(), found))
+                                        .orElseGet(() -> mockDishes(savedPlan.getId())))
+                                .collectList()
+                                .map(dishes -> MealPlanResponse.from(savedPlan, dishes)))
+                        .as(transactionalOperator::transactional));
+    }
+
+    /**
+     * 菜品库没有图片字段，库内菜品的 imageUrl 留空。
+     */
+    private static List<Dish> toDishes(Long mealPlanId, List<RecommendationEngine.Pick> picks) {
+        return picks.stream().map(pick -> toDish(mealPlanId, pick)).toList();
+    }
+
+    private static Dish toDish(Long mealPlanId, RecommendationEngine.Pick pick) {
+        return new Dish(null, mealPlanId, pick.dish().getName(), pick.reason(),
+                null, pick.dish().getDifficulty(),
+                pick.dish().getPrepMin(), pick.dish().getCookMin(),
+                pick.dish().getNutrientTags(), false, pick.mealType(), pick.dish().getId());
+    }
+
+    private static List<Dish> mockDishes(Long mealPlanId) {
+        return List.of(
+                new Dish(null, mealPlanId, "Greek Yogurt Berry Bowl",
+                        "High-protein breakfast to stabilize morning blood sugar",
+                        "https://images.unsplash.com/photo-1488477181946-6428a0291777", 1, 5, 5, "High Protein,Probiotics", false, "breakfast", null),
+                new Dish(null, mealPlanId, "Spinach Egg Wrap",
+                        "Iron-rich greens with eggs for longer satiety",
+                        "https://images.unsplash.com/photo-1513442542250-854d436a73f2", 2, 8, 6, "Iron,High Protein", false, "breakfast", null),
+                new Dish(null, mealPlanId, "Quinoa Avocado Salad",
+                        "Low GI lunch to avoid afternoon energy crash",
+                        "https://images.unsplash.com/photo-1546069901-ba9599a7e63c", 2, 10, 8, "Low GI,High Fiber", false, "lunch", null),
+                new Dish(null, mealPlanId, "Miso Chicken Rice Bowl",
+                        "Balanced carb + lean protein for focused work blocks",
+                        "https://images.unsplash.com/photo-1512621776951-a57141f2eefd", 3, 12, 14, "Lean Protein,B Vitamins", false, "lunch", null),
+                new Dish(null, mealPlanId, "Apple Peanut Butter Cups",
+                        "Portable snack with fiber and healthy fats",
+                        "https://images.unsplash.com/photo-1560807707-8cc77767d783", 1, 5, 3, "Fiber,Healthy Fats", false, "snack", null),
+                new Dish(null, mealPlanId, "Edamame Citrus Mix",
+                        "Plant protein snack to curb pre-dinner cravings",
+                        "https://images.unsplash.com/photo-1615486363979-110f1dc7f9c3", 1, 6, 4, "Plant Protein,Vitamin C", false, "snack", null),
+                new Dish(null, mealPlanId, "Grilled Salmon & Asparagus",
+                        "Omega-3 rich dinner supports recovery after long days",
+                        "https://images.unsplash.com/photo-1467003909585-2f8a72700288", 3, 10, 20, "Omega-3,High Protein", false, "dinner", null),
+                new Dish(null, mealPlanId, "Zucchini Noodles Pesto",
+                        "Lower-carb dinner helps avoid late-night heaviness",
+                        "https://images.unsplash.com/photo-1621996346565-e3dbc353d2e5", 2, 10, 15, "Low Carb,Vitamins", false, "dinner", null)
+        );
     }
 }
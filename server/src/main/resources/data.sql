@@ -1,32 +1,71 @@
-DELETE FROM "occupation_tags";
-
-INSERT INTO "occupation_tags" (label, icon, category) VALUES
-('Programmer (Sedentary)', 'terminal', 'Occupation'),
-('Doctor (Shifts)', NULL, 'Occupation'),
-('Freelancer (Irregular)', NULL, 'Occupation'),
-('Teacher (Standing)', NULL, 'Occupation'),
-('Seeking Pregnancy', NULL, 'Health'),
-('Sugar Control', 'monitor_heart', 'Health'),
-('Muscle Gain', NULL, 'Health'),
-('Frequent Traveler', NULL, 'Lifestyle'),
-('Post-Op Recovery', NULL, 'Health');
-
-DELETE FROM "allergen_tags";
-
-INSERT INTO "allergen_tags" (label, emoji, description, category) VALUES
-('Peanuts', '🥜', 'Tree nuts included', 'nuts'),
-('Dairy', '🥛', 'Milk, cheese, butter', 'dairy'),
-('Shellfish', '🦐', 'Shrimp, crab, lobster', 'seafood'),
-('Eggs', '🥚', 'All forms', 'eggs'),
-('Gluten', '🌾', 'Wheat, barley, rye', 'grains'),
-('Soy', '🫘', 'Soy sauce, tofu', 'legumes');
-
-DELETE FROM "dietary_preference_tags";
-
-INSERT INTO "dietary_preference_tags" (label, emoji) VALUES
-('Vegetarian', '🌿'),
-('Vegan', '🌱'),
-('Halal', '🕌'),
-('Kosher', '✡️'),
-('Keto', '🔥'),
-('Paleo', '🥩');
+-- 标签 id 固定写死并按 id 幂等写入：user_profiles 里存的是标签 id，推荐时按 id 查过敏原与饮食偏好，
+-- 每次启动重建标签行会让这些 id 全部失效。
+-- 旧版本每次启动都会删表重插，已有库里的标签行与档案引用可能停在漂移后的 id 上：
+-- 先把档案里的旧 id 按标签名改写为同名的最小 id（即下面写死的 id），再删掉同名的旧行。
+
+INSERT INTO "occupation_tags" (id, label, icon, category) VALUES
+(1, 'Programmer (Sedentary)', 'terminal', 'Occupation'),
+(2, 'Doctor (Shifts)', NULL, 'Occupation'),
+(3, 'Freelancer (Irregular)', NULL, 'Occupation'),
+(4, 'Teacher (Standing)', NULL, 'Occupation'),
+(5, 'Seeking Pregnancy', NULL, 'Health'),
+(6, 'Sugar Control', 'monitor_heart', 'Health'),
+(7, 'Muscle Gain', NULL, 'Health'),
+(8, 'Frequent Traveler', NULL, 'Lifestyle'),
+(9, 'Post-Op Recovery', NULL, 'Health')
+ON CONFLICT (id) DO UPDATE SET label = EXCLUDED.label, icon = EXCLUDED.icon, category = EXCLUDED.category;
+
+UPDATE "user_profiles" p SET occupation_tag_ids = ARRAY(
+    SELECT DISTINCT COALESCE((SELECT MIN(n.id) FROM "occupation_tags" o
+                              JOIN "occupation_tags" n ON n.label = o.label WHERE o.id = t), t)
+    FROM unnest(p.occupation_tag_ids) t ORDER BY 1)
+WHERE EXISTS (SELECT 1 FROM unnest(p.occupation_tag_ids) t
+              JOIN "occupation_tags" o ON o.id = t
+              JOIN "occupation_tags" n ON n.label = o.label AND n.id < o.id);
+
+DELETE FROM "occupation_tags" o USING "occupation_tags" n WHERE n.label = o.label AND n.id < o.id;
+
+SELECT setval(pg_get_serial_sequence('occupation_tags', 'id'), (SELECT MAX(id) FROM "occupation_tags"));
+
+INSERT INTO "allergen_tags" (id, label, emoji, description, category) VALUES
+(1, 'Peanuts', '🥜', 'Tree nuts included', 'nuts'),
+(2, 'Dairy', '🥛', 'Milk, cheese, butter', 'dairy'),
+(3, 'Shellfish', '🦐', 'Shrimp, crab, lobster', 'seafood'),
+(4, 'Eggs', '🥚', 'All forms', 'eggs'),
+(5, 'Gluten', '🌾', 'Wheat, barley, rye', 'grains'),
+(6, 'Soy', '🫘', 'Soy sauce, tofu', 'legumes')
+ON CONFLICT (id) DO UPDATE SET label = EXCLUDED.label, emoji = EXCLUDED.emoji,
+    description = EXCLUDED.description, category = EXCLUDED.category;
+
+UPDATE "user_profiles" p SET allergen_tag_ids = ARRAY(
+    SELECT DISTINCT COALESCE((SELECT MIN(n.id) FROM "allergen_tags" o
+                              JOIN "allergen_tags" n ON n.label = o.label WHERE o.id = t), t)
+    FROM unnest(p.allergen_tag_ids) t ORDER BY 1)
+WHERE EXISTS (SELECT 1 FROM unnest(p.allergen_tag_ids) t
+              JOIN "allergen_tags" o ON o.id = t
+              JOIN "allergen_tags" n ON n.label = o.label AND n.id < o.id);
+
+DELETE FROM "allergen_tags" o USING "allergen_tags" n WHERE n.label = o.label AND n.id < o.id;
+
+SELECT setval(pg_get_serial_sequence('allergen_tags', 'id'), (SELECT MAX(id) FROM "allergen_tags"));
+
+INSERT INTO "dietary_preference_tags" (id, label, emoji) VALUES
+(1, 'Vegetarian', '🌿'),
+(2, 'Vegan', '🌱'),
+(3, 'Halal', '🕌'),
+(4, 'Kosher', '✡️'),
+(5, 'Keto', '🔥'),
+(6, 'Paleo', '🥩')
+ON CONFLICT (id) DO UPDATE SET label = EXCLUDED.label, emoji = EXCLUDED.emoji;
+
+UPDATE "user_profiles" p SET dietary_preference_tag_ids = ARRAY(
+    SELECT DISTINCT COALESCE((SELECT MIN(n.id) FROM "dietary_preference_tags" o
+                              JOIN "dietary_preference_tags" n ON n.label = o.label WHERE o.id = t), t)
+    FROM unnest(p.dietary_preference_tag_ids) t ORDER BY 1)
+WHERE EXISTS (SELECT 1 FROM unnest(p.dietary_preference_tag_ids) t
+              JOIN "dietary_preference_tags" o ON o.id = t
+              JOIN "dietary_preference_tags" n ON n.label = o.label AND n.id < o.id);
+
+DELETE FROM "dietary_preference_tags" o USING "dietary_preference_tags" n WHERE n.label = o.label AND n.id < o.id;
+
+SELECT setval(pg_get_serial_sequence('dietary_preference_tags', 'id'), (SELECT MAX(id) FROM "dietary_preference_tags"));
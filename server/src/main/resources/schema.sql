@@ -30,13 +30,37 @@ CREATE TABLE IF NOT EXISTS "user_profiles" (
     age INT,                     -- 年龄
     height FLOAT,                -- 身高 (cm)
     weight FLOAT,                -- 体重 (kg)
-    occupation_tag_ids TEXT,     -- 关联的职业标签ID (逗号分隔或JSON)
+    occupation_tag_ids BIGINT[], -- 关联的职业标签ID
     family_members INT,          -- 家庭成员数量
-    allergen_tag_ids TEXT,              -- 关联的过敏原标签ID (逗号分隔)
-    dietary_preference_tag_ids TEXT,    -- 关联的饮食偏好标签ID (逗号分隔)
+    allergen_tag_ids BIGINT[],          -- 关联的过敏原标签ID
+    dietary_preference_tag_ids BIGINT[], -- 关联的饮食偏好标签ID
     custom_avoided_ingredients TEXT     -- 自定义忌口成分 (逗号分隔)
 );
 
+-- 旧库中标签 id 列为逗号分隔 TEXT：仅当列仍为 text 时转换为 BIGINT[]，重复执行无副作用。
+-- 脚本按分号切分语句，DO 块因此使用单引号包裹。
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''user_profiles''
+                 AND column_name = ''occupation_tag_ids'' AND data_type = ''text'') THEN
+        ALTER TABLE user_profiles ALTER COLUMN occupation_tag_ids TYPE BIGINT[]
+            USING array_remove(string_to_array(replace(occupation_tag_ids, '' '', ''''), '',''), '''')::BIGINT[];
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''user_profiles''
+                 AND column_name = ''allergen_tag_ids'' AND data_type = ''text'') THEN
+        ALTER TABLE user_profiles ALTER COLUMN allergen_tag_ids TYPE BIGINT[]
+            USING array_remove(string_to_array(replace(allergen_tag_ids, '' '', ''''), '',''), '''')::BIGINT[];
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''user_profiles''
+                 AND column_name = ''dietary_preference_tag_ids'' AND data_type = ''text'') THEN
+        ALTER TABLE user_profiles ALTER COLUMN dietary_preference_tag_ids TYPE BIGINT[]
+            USING array_remove(string_to_array(replace(dietary_preference_tag_ids, '' '', ''''), '',''), '''')::BIGINT[];
+    END IF;
+END';
+
 -- 用户表：核心用户账号信息
 CREATE TABLE IF NOT EXISTS "users" (
     id SERIAL PRIMARY KEY,
@@ -73,8 +97,45 @@ CREATE TABLE IF NOT EXISTS "dishes" (
     cook_min INT DEFAULT 10,      -- 烹饪时间 (分钟)
     nutrient_tags TEXT,           -- 营养标签 (如 高蛋白, 低碳水)
     selected BOOLEAN DEFAULT FALSE, -- 用户是否选中该菜品
-    meal_type VARCHAR(20) NOT NULL  -- 餐别 (BREAKFAST, LUNCH, DINNER)
+    meal_type VARCHAR(20) NOT NULL, -- 餐别 (BREAKFAST, LUNCH, DINNER)
+    dish_library_id BIGINT          -- 来源菜谱ID（示例菜品为空）
+);
+ALTER TABLE "dishes" ADD COLUMN IF NOT EXISTS dish_library_id BIGINT;
+
+-- 每日营养汇总表：每个用户每天一行，确认菜单或修改菜谱营养时增量重算
+CREATE TABLE IF NOT EXISTS "daily_nutrition" (
+    id         BIGSERIAL PRIMARY KEY,
+    user_id    BIGINT           NOT NULL, -- 关联用户ID
+    date       DATE             NOT NULL, -- 日期
+    kcal       DOUBLE PRECISION NOT NULL DEFAULT 0,
+    protein    DOUBLE PRECISION NOT NULL DEFAULT 0,
+    carbs      DOUBLE PRECISION NOT NULL DEFAULT 0,
+    fat        DOUBLE PRECISION NOT NULL DEFAULT 0,
+    dish_count INT              NOT NULL DEFAULT 0, -- 选中的菜品数
+    updated_at TIMESTAMP        NOT NULL DEFAULT NOW()
+);
+-- 支撑 ON CONFLICT (user_id, date) 与 7 天滑动窗口的范围读取
+CREATE UNIQUE INDEX IF NOT EXISTS "uk_daily_nutrition_user_date" ON "daily_nutrition" (user_id, date);
+
+-- 采购清单表：每份已确认计划一行，按货架分区存放合并后的食材
+CREATE TABLE IF NOT EXISTS "shopping_lists" (
+    meal_plan_id BIGINT PRIMARY KEY,                      -- 关联的膳食计划ID
+    status       VARCHAR(20) NOT NULL DEFAULT 'computing', -- computing: 分区写入中, ready: 已完成
+    aisles       JSONB       NOT NULL DEFAULT '{}',        -- {"produce":[{"name":"番茄","unit":"g","quantity":400}]}
+    generation   BIGINT      NOT NULL DEFAULT 0,           -- 每次重新计算加一，旧计算的分区写入按此作废
+    updated_at   TIMESTAMP   NOT NULL DEFAULT NOW()
 );
+ALTER TABLE "shopping_lists" ADD COLUMN IF NOT EXISTS generation BIGINT NOT NULL DEFAULT 0;
+
+-- 每个用户每天只有一份计划，支撑 INSERT ... ON CONFLICT (user_id, date) DO NOTHING。
+-- 旧库可能已有重复计划：保留 id 最小的一份，先删其余计划的菜品与采购清单，再删计划本身，然后建唯一索引。
+-- 没有重复时不删任何行；放在 dishes / shopping_lists 建表之后，新库也能执行。
+DELETE FROM "dishes" WHERE meal_plan_id IN (SELECT p.id FROM "meal_plans" p JOIN "meal_plans" k
+    ON k.user_id = p.user_id AND k.date = p.date AND k.id < p.id);
+DELETE FROM "shopping_lists" WHERE meal_plan_id IN (SELECT p.id FROM "meal_plans" p JOIN "meal_plans" k
+    ON k.user_id = p.user_id AND k.date = p.date AND k.id < p.id);
+DELETE FROM "meal_plans" p USING "meal_plans" k WHERE k.user_id = p.user_id AND k.date = p.date AND k.id < p.id;
+CREATE UNIQUE INDEX IF NOT EXISTS "uk_meal_plans_user_date" ON "meal_plans" (user_id, date);
 
 COMMENT ON TABLE "occupation_tags" IS '职业标签表：存储职业相关的标签信息';
 COMMENT ON COLUMN "occupation_tags".label IS '标签名称';
@@ -86,10 +147,10 @@ COMMENT ON COLUMN "user_profiles".gender IS '性别';
 COMMENT ON COLUMN "user_profiles".age IS '年龄';
 COMMENT ON COLUMN "user_profiles".height IS '身高 (cm)';
 COMMENT ON COLUMN "user_profiles".weight IS '体重 (kg)';
-COMMENT ON COLUMN "user_profiles".occupation_tag_ids IS '关联的职业标签ID (逗号分隔或JSON)';
+COMMENT ON COLUMN "user_profiles".occupation_tag_ids IS '关联的职业标签ID';
 COMMENT ON COLUMN "user_profiles".family_members IS '家庭成员数量';
-COMMENT ON COLUMN "user_profiles".allergen_tag_ids IS '关联的过敏原标签ID (逗号分隔)';
-COMMENT ON COLUMN "user_profiles".dietary_preference_tag_ids IS '关联的饮食偏好标签ID (逗号分隔)';
+COMMENT ON COLUMN "user_profiles".allergen_tag_ids IS '关联的过敏原标签ID';
+COMMENT ON COLUMN "user_profiles".dietary_preference_tag_ids IS '关联的饮食偏好标签ID';
 COMMENT ON COLUMN "user_profiles".custom_avoided_ingredients IS '自定义忌口成分 (逗号分隔)';
 
 COMMENT ON TABLE "users" IS '用户表：核心用户账号信息';
@@ -117,6 +178,13 @@ COMMENT ON COLUMN "dishes".cook_min IS '烹饪时间 (分钟)';
 COMMENT ON COLUMN "dishes".nutrient_tags IS '营养标签 (如 高蛋白, 低碳水)';
 COMMENT ON COLUMN "dishes".selected IS '用户是否选中该菜品';
 COMMENT ON COLUMN "dishes".meal_type IS '餐别 (BREAKFAST, LUNCH, DINNER)';
+COMMENT ON COLUMN "dishes".dish_library_id IS '来源菜谱ID（示例菜品为空）';
+
+COMMENT ON TABLE "daily_nutrition" IS '每日营养汇总表：选中菜品的菜谱每份营养之和';
+COMMENT ON COLUMN "daily_nutrition".dish_count IS '选中的菜品数';
+
+COMMENT ON TABLE "shopping_lists" IS '采购清单表：已确认计划的食材按货架分区汇总';
+COMMENT ON COLUMN "shopping_lists".aisles IS '货架分区 → 合并后的采购项';
 
 COMMENT ON TABLE "allergen_tags" IS '过敏原标签表：存储常见过敏原信息';
 COMMENT ON COLUMN "allergen_tags".label IS '标签名称';
@@ -137,10 +205,148 @@ CREATE TABLE IF NOT EXISTS "dish_library" (
     prep_min    INT          NOT NULL DEFAULT 5,
     cook_min    INT          NOT NULL DEFAULT 15,
     servings    INT          NOT NULL DEFAULT 2,
-    ingredients TEXT         NOT NULL DEFAULT '[]',
-    steps       TEXT         NOT NULL DEFAULT '[]',
+    ingredients JSONB        NOT NULL DEFAULT '[]', -- [{"name":"虾仁","grams":200,"aisle":"seafood"},{"name":"鸡蛋","amount":2,"unit":"个"}]
+    steps       JSONB        NOT NULL DEFAULT '[]', -- ["步骤1", "步骤2"]
     nutrient_tags TEXT,
-    nutrients   TEXT,
+    nutrients   JSONB,                          -- {"kcal":200,"protein":20,"carbs":10,"fat":5}
     is_active   BOOLEAN      NOT NULL DEFAULT TRUE,
     created_at  TIMESTAMP    NOT NULL DEFAULT NOW()
 );
+
+-- 旧库中 ingredients / steps / nutrients 为 JSON 文本：仅当列仍为 text 时转换为 JSONB，
+-- 并把旧字段名（item/amount/unit、calories/protein_g/carb_g/fat_g）改写为新结构。
+-- 食材的质量单位折算为 grams（与 Ingredient.of 一致）；"2 个"、"1 tbsp" 等保留 amount / unit，
+-- "适量" 这类非数字数量并入 unit，不丢弃原文。
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''dish_library''
+                 AND column_name = ''ingredients'' AND data_type = ''text'') THEN
+        ALTER TABLE dish_library ALTER COLUMN ingredients DROP DEFAULT,
+            ALTER COLUMN ingredients TYPE JSONB USING COALESCE(NULLIF(btrim(ingredients), ''''), ''[]'')::JSONB,
+            ALTER COLUMN ingredients SET DEFAULT ''[]''::JSONB;
+        UPDATE dish_library SET ingredients = (
+            SELECT COALESCE(jsonb_agg(jsonb_strip_nulls(jsonb_build_object(
+                       ''name'', COALESCE(e ->> ''name'', e ->> ''item''),
+                       ''grams'', COALESCE(e -> ''grams'', to_jsonb(q.amount * q.factor)),
+                       ''amount'', CASE WHEN e -> ''grams'' IS NULL AND q.factor IS NULL THEN to_jsonb(q.amount) END,
+                       ''unit'', CASE WHEN e -> ''grams'' IS NULL AND (q.amount IS NULL OR q.factor IS NULL)
+                                     THEN NULLIF(concat_ws('' '', CASE WHEN q.amount IS NULL THEN q.amount_text END, q.unit), '''') END,
+                       ''aisle'', e ->> ''aisle''))), ''[]''::JSONB)
+            FROM jsonb_array_elements(ingredients) e
+            CROSS JOIN LATERAL (SELECT NULLIF(btrim(e ->> ''amount''), '''') AS amount_text,
+                                       NULLIF(btrim(e ->> ''unit''), '''') AS unit) r
+            CROSS JOIN LATERAL (SELECT r.amount_text, r.unit,
+                       CASE WHEN r.amount_text ~ ''^[0-9]+([.][0-9]+)?$'' THEN r.amount_text::NUMERIC END AS amount,
+                       CASE lower(r.unit) WHEN ''g'' THEN 1 WHEN ''克'' THEN 1
+                                          WHEN ''kg'' THEN 1000 WHEN ''千克'' THEN 1000 WHEN ''公斤'' THEN 1000
+                                          WHEN ''斤'' THEN 500 WHEN ''两'' THEN 50
+                                          WHEN ''mg'' THEN 0.001 WHEN ''毫克'' THEN 0.001 END AS factor) q
+            WHERE jsonb_typeof(e) = ''object'')
+        WHERE jsonb_typeof(ingredients) = ''array'';
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''dish_library''
+                 AND column_name = ''steps'' AND data_type = ''text'') THEN
+        ALTER TABLE dish_library ALTER COLUMN steps DROP DEFAULT,
+            ALTER COLUMN steps TYPE JSONB USING COALESCE(NULLIF(btrim(steps), ''''), ''[]'')::JSONB,
+            ALTER COLUMN steps SET DEFAULT ''[]''::JSONB;
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''dish_library''
+                 AND column_name = ''nutrients'' AND data_type = ''text'') THEN
+        ALTER TABLE dish_library ALTER COLUMN nutrients TYPE JSONB USING NULLIF(btrim(nutrients), '''')::JSONB;
+        UPDATE dish_library SET nutrients = jsonb_strip_nulls(jsonb_build_object(
+                   ''kcal'', COALESCE(nutrients -> ''kcal'', nutrients -> ''calories''),
+                   ''protein'', COALESCE(nutrients -> ''protein'', nutrients -> ''protein_g''),
+                   ''carbs'', COALESCE(nutrients -> ''carbs'', nutrients -> ''carb_g''),
+                   ''fat'', COALESCE(nutrients -> ''fat'', nutrients -> ''fat_g'')))
+        WHERE jsonb_typeof(nutrients) = ''object'';
+    END IF;
+END';
+
+-- 菜品库检索列（须在上方 JSONB 转换之后）：search_vector 供全文检索与排序，按菜名 A / 食材 B / 营养标签 C 加权；
+-- search_text 拼接同样三部分，供 pg_trgm 做子串与模糊匹配（'simple' 分词不切分中文，中文检索主要靠它）
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE "dish_library" ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', name), 'A')
+        || setweight(jsonb_to_tsvector('simple', jsonb_path_query_array(ingredients, '$[*].name'), '["string"]'), 'B')
+        || setweight(to_tsvector('simple', COALESCE(nutrient_tags, '')), 'C')
+) STORED;
+ALTER TABLE "dish_library" ADD COLUMN IF NOT EXISTS search_text TEXT GENERATED ALWAYS AS (
+    name || ' ' || jsonb_path_query_array(ingredients, '$[*].name')::TEXT || ' ' || COALESCE(nutrient_tags, '')
+) STORED;
+
+-- 菜品库版本：每次新增、删除或实际修改菜品都从 dish_library_meta 取下一个版本号并记在该行上，删除记入墓碑表。
+-- 取号时持有 meta 行锁直到提交，版本号顺序与提交顺序一致；客户端按 since 增量同步时不会漏掉并发写入
+CREATE TABLE IF NOT EXISTS "dish_library_meta" (
+    id      INT    PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL DEFAULT 0  -- 当前菜品库版本
+);
+INSERT INTO "dish_library_meta" (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+ALTER TABLE "dish_library" ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS "dish_library_tombstones" (
+    dish_id BIGINT PRIMARY KEY,  -- 已删除的菜品ID
+    version BIGINT NOT NULL      -- 删除时的菜品库版本
+);
+
+CREATE OR REPLACE FUNCTION dish_library_bump_version() RETURNS TRIGGER AS '
+DECLARE
+    next_version BIGINT;
+BEGIN
+    UPDATE dish_library_meta SET version = version + 1 WHERE id = 1 RETURNING version INTO next_version;
+    IF TG_OP = ''DELETE'' THEN
+        INSERT INTO dish_library_tombstones (dish_id, version) VALUES (OLD.id, next_version)
+        ON CONFLICT (dish_id) DO UPDATE SET version = EXCLUDED.version;
+        RETURN OLD;
+    END IF;
+    NEW.version := next_version;
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER "trg_dish_library_version_insert_delete"
+    BEFORE INSERT OR DELETE ON "dish_library"
+    FOR EACH ROW EXECUTE FUNCTION dish_library_bump_version();
+-- 内容未变的更新不改写行版本，重复导入同一文件时客户端不会重新下载这些菜品
+CREATE OR REPLACE TRIGGER "trg_dish_library_version_update"
+    BEFORE UPDATE ON "dish_library"
+    FOR EACH ROW
+    WHEN ((OLD.name, OLD.category, OLD.difficulty, OLD.prep_min, OLD.cook_min, OLD.servings, OLD.ingredients,
+           OLD.steps, OLD.nutrient_tags, OLD.nutrients, OLD.is_active)
+          IS DISTINCT FROM
+          (NEW.name, NEW.category, NEW.difficulty, NEW.prep_min, NEW.cook_min, NEW.servings, NEW.ingredients,
+           NEW.steps, NEW.nutrient_tags, NEW.nutrients, NEW.is_active))
+    EXECUTE FUNCTION dish_library_bump_version();
+
+-- 热点查询的二级索引（CREATE INDEX IF NOT EXISTS 可随 schema.sql 重复执行）
+-- meal_plans(user_id, date) 由上方唯一索引 uk_meal_plans_user_date 覆盖；user_profiles(user_id) 由 UNIQUE 约束覆盖
+-- DishRepository.findByMealPlanId / updateSelection：按计划取菜品
+CREATE INDEX IF NOT EXISTS "idx_dishes_meal_plan_id" ON "dishes" (meal_plan_id);
+-- AdminWhitelistRepository.existsByUserId / findByUserId
+CREATE INDEX IF NOT EXISTS "idx_admin_whitelist_user_id" ON "admin_whitelist" (user_id);
+-- DishLibraryRepository.upsertAllByName：批量导入按菜名覆盖已有菜品
+-- 旧库可能已有重名菜品：保留 id 最小的一道，其余在菜名后追加 #id 后再建唯一索引；
+-- 菜谱与 dishes.dish_library_id 的引用都保留，管理员可在后台合并或改名。没有重名时不改写任何行。
+UPDATE "dish_library" d SET name = left(d.name, 100 - length(' #' || d.id)) || ' #' || d.id
+WHERE EXISTS (SELECT 1 FROM "dish_library" k WHERE k.name = d.name AND k.id < d.id);
+CREATE UNIQUE INDEX IF NOT EXISTS "uk_dish_library_name" ON "dish_library" (name);
+-- DishLibraryRepository.search：全文检索、子串匹配与菜名模糊匹配各走一个 GIN 索引
+CREATE INDEX IF NOT EXISTS "idx_dish_library_search_vector" ON "dish_library" USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS "idx_dish_library_search_text_trgm" ON "dish_library" USING GIN (search_text gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS "idx_dish_library_name_trgm" ON "dish_library" USING GIN (name gin_trgm_ops);
+-- DishLibraryRepository.findChangedBetween / findDeletedIdsBetween：按版本区间增量同步
+CREATE INDEX IF NOT EXISTS "idx_dish_library_version" ON "dish_library" (version);
+CREATE INDEX IF NOT EXISTS "idx_dish_library_tombstones_version" ON "dish_library_tombstones" (version);
+-- DishLibraryRepository.findActiveAfter / countActive：只索引启用的菜品
+CREATE INDEX IF NOT EXISTS "idx_dish_library_active" ON "dish_library" (id) WHERE is_active;
+-- UserRepository.findOnboardedIdsAfter：夜间预生成任务按 id 遍历已引导用户
+CREATE INDEX IF NOT EXISTS "idx_users_onboarded" ON "users" (id) WHERE onboarding_step = 0;
+-- 标签包含查询（如 allergen_tag_ids @> ARRAY[3]）：UserProfileRepository.findUserIdsByAllergenTagId
+CREATE INDEX IF NOT EXISTS "idx_user_profiles_allergen_tag_ids" ON "user_profiles" USING GIN (allergen_tag_ids);
+CREATE INDEX IF NOT EXISTS "idx_user_profiles_dietary_preference_tag_ids" ON "user_profiles" USING GIN (dietary_preference_tag_ids);
+-- 食材包含查询（如 ingredients @> '[{"name":"虾仁"}]'）：DishLibraryRepository.findActiveByIngredientName
+CREATE INDEX IF NOT EXISTS "idx_dish_library_ingredients" ON "dish_library" USING GIN (ingredients jsonb_path_ops);
+CREATE INDEX IF NOT EXISTS "idx_dish_library_nutrients" ON "dish_library" USING GIN (nutrients jsonb_path_ops);
+-- DailyNutritionRepository.refreshByDishLibraryId：修改菜谱营养后定位选中过它的计划
+CREATE INDEX IF NOT EXISTS "idx_dishes_dish_library_selected" ON "dishes" (dish_library_id) WHERE selected;
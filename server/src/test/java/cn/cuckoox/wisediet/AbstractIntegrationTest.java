@@ -55,6 +55,7 @@ public abstract class AbstractIntegrationTest {
         registry.add("spring.r2dbc.password", postgres::getPassword);
         registry.add("spring.data.redis.host", redis::getHost);
         registry.add("spring.data.redis.port", redis::getFirstMappedPort);
+        registry.add("spring.ai.model.chat", () -> "stub");
 
         // Google
         registry.add("spring.security.oauth2.client.registration.google.client-id", () -> "google-client");
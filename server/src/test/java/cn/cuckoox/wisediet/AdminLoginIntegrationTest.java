@@ -2,10 +2,10 @@ package cn.cuckoox.wisediet;
 
 import cn.cuckoox.wisediet.controller.dto.AuthTokenResponse;
 import cn.cuckoox.wisediet.controller.dto.OAuthLoginRequest;
-import cn.cuckoox.wisediet.model.AdminWhitelist;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,13 +17,14 @@ class AdminLoginIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
     @Autowired private AdminWhitelistRepository adminWhitelistRepository;
+    @Autowired private AdminWhitelistService adminWhitelistService;
     @Autowired private SessionStore sessionStore;
     @Autowired private JwtService jwtService;
 
     @BeforeEach
     void cleanData() {
         StepVerifier.create(
-            adminWhitelistRepository.deleteAll()
+            adminWhitelistRepository.deleteAll().then(adminWhitelistService.publishChange())
                 .then(userRepository.deleteAll())
         ).verifyComplete();
     }
@@ -35,7 +36,7 @@ class AdminLoginIntegrationTest extends AbstractIntegrationTest {
         StepVerifier.create(
             sessionStore.saveOAuthState(state)
                 .then(userRepository.save(new User(null, "u@test.com", "google", "provider-id-1", 0)))
-                .flatMap(user -> adminWhitelistRepository.save(new AdminWhitelist(null, user.getId())))
+                .flatMap(user -> adminWhitelistService.grant(user.getId()))
                 .then()
         ).verifyComplete();
 
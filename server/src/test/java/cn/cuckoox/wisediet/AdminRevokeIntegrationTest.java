@@ -1,9 +1,8 @@
 package cn.cuckoox.wisediet;
 
-import cn.cuckoox.wisediet.model.AdminWhitelist;
 import cn.cuckoox.wisediet.model.User;
-import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import java.time.Duration;
@@ -19,7 +18,7 @@ class AdminRevokeIntegrationTest extends AbstractIntegrationTest {
     private UserRepository userRepository;
 
     @Autowired
-    private AdminWhitelistRepository adminWhitelistRepository;
+    private AdminWhitelistService adminWhitelistService;
 
     @Autowired
     private SessionStore sessionStore;
@@ -30,10 +29,10 @@ class AdminRevokeIntegrationTest extends AbstractIntegrationTest {
     @Test
     void adminCanRevokeAllUserSessions() {
         Mono<Void> flow = userRepository.save(new User(null, "admin@a.com", "google", "aid", 0))
-                .flatMap(admin -> adminWhitelistRepository.save(new AdminWhitelist(null, admin.getId()))
+                .flatMap(admin -> adminWhitelistService.grant(admin.getId())
                         .then(userRepository.save(new User(null, "t@a.com", "google", "tid", 0)))
                         .flatMap(target -> sessionStore.saveSession("jti-1", target.getId(), Duration.ofMinutes(15))
-                                .then(jwtService.createAccessToken(admin.getId()))
+                                .then(jwtService.createAccessToken(admin.getId(), "ADMIN"))
                                 .flatMap(adminToken -> sessionStore.saveSession(
                                                 jwtService.extractJti(adminToken),
                                                 admin.getId(),
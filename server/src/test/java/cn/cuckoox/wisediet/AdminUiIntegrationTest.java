@@ -1,10 +1,10 @@
 package cn.cuckoox.wisediet;
 
-import cn.cuckoox.wisediet.model.AdminWhitelist;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.DishLibraryRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +20,7 @@ class AdminUiIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
     @Autowired private AdminWhitelistRepository adminWhitelistRepository;
+    @Autowired private AdminWhitelistService adminWhitelistService;
     @Autowired private DishLibraryRepository dishLibraryRepository;
     @Autowired private JwtService jwtService;
     @Autowired private SessionStore sessionStore;
@@ -28,14 +29,14 @@ class AdminUiIntegrationTest extends AbstractIntegrationTest {
     void cleanData() {
         StepVerifier.create(
             dishLibraryRepository.deleteAll()
-                .then(adminWhitelistRepository.deleteAll())
+                .then(adminWhitelistRepository.deleteAll().then(adminWhitelistService.publishChange()))
                 .then(userRepository.deleteAll())
         ).verifyComplete();
     }
 
     private Mono<String> createAdminToken() {
         return userRepository.save(new User(null, "admin@test.com", "google", "admin-ui-pid", 0))
-                .flatMap(u -> adminWhitelistRepository.save(new AdminWhitelist(null, u.getId()))
+                .flatMap(u -> adminWhitelistService.grant(u.getId())
                         .then(jwtService.createAccessToken(u.getId(), "ADMIN"))
                         .flatMap(token -> sessionStore.saveSession(
                                 jwtService.extractJti(token), u.getId(), Duration.ofMinutes(15))
@@ -116,4 +117,61 @@ class AdminUiIntegrationTest extends AbstractIntegrationTest {
                 ).subscribeOn(Schedulers.boundedElastic()))
         ).verifyComplete();
     }
+
+    @Test
+    void shouldRenderSearchResultsIntoDishListFragment_whenAdmin() {
+        StepVerifier.create(
+            createAdminToken()
+                .flatMap(token -> Mono.fromRunnable(() -> {
+                    for (String name : new String[]{"番茄炒蛋", "清蒸鲈鱼"}) {
+                        webTestClient.post()
+                                .uri("/admin/ui/dishes?token=" + token)
+                                .contentType(org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED)
+                                .bodyValue("name=" + name + "&category=veggie_mixed&ingredients=[]&steps=[]")
+                                .exchange()
+                                .expectStatus().isOk();
+                    }
+
+                    webTestClient.get().uri("/admin/ui/dishes/search?token=" + token + "&q=番茄")
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(String.class)
+                            .value(body -> org.assertj.core.api.Assertions.assertThat(body)
+                                    .contains("id=\"dish-list\"")
+                                    .contains("番茄炒蛋")
+                                    .containsPattern("hx-post=\"/admin/ui/dishes/\\d+/toggle\\?token=" + token + "\"")
+                                    .doesNotContain("清蒸鲈鱼")
+                                    .doesNotContain("菜品库管理"));
+                }).subscribeOn(Schedulers.boundedElastic()))
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldRenderFormWithError_whenDishNameAlreadyExists() {
+        StepVerifier.create(
+            createAdminToken()
+                .flatMap(token -> Mono.fromRunnable(() -> {
+                    String form = "name=番茄炒蛋&category=veggie_mixed&ingredients=[]&steps=[]";
+                    webTestClient.post()
+                            .uri("/admin/ui/dishes?token=" + token)
+                            .contentType(org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED)
+                            .bodyValue(form)
+                            .exchange()
+                            .expectStatus().isOk();
+
+                    webTestClient.post()
+                            .uri("/admin/ui/dishes?token=" + token)
+                            .contentType(org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED)
+                            .bodyValue(form)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectHeader().valueEquals("HX-Retarget", "#form-area")
+                            .expectBody(String.class)
+                            .value(body -> org.assertj.core.api.Assertions.assertThat(body)
+                                    .contains("菜品名称已存在")
+                                    .contains("value=\"番茄炒蛋\"")
+                                    .doesNotContain("id=\"dish-list\""));
+                }).subscribeOn(Schedulers.boundedElastic()))
+        ).verifyComplete();
+    }
 }
@@ -2,6 +2,7 @@ package cn.cuckoox.wisediet;
 
 import cn.cuckoox.wisediet.model.AllergenTag;
 import cn.cuckoox.wisediet.model.DietaryPreferenceTag;
+import cn.cuckoox.wisediet.model.TagIds;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.model.UserProfile;
 import cn.cuckoox.wisediet.repository.UserProfileRepository;
@@ -17,6 +18,8 @@ import reactor.test.StepVerifier;
 
 import java.time.Duration;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 class AllergenTagIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired
@@ -56,11 +59,36 @@ class AllergenTagIntegrationTest extends AbstractIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldReturnNotModified_whenEtagMatches() {
+        String etag = webTestClient.get()
+                .uri("/api/tags/allergens")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueMatches("Cache-Control", ".*max-age=86400.*")
+                .returnResult(byte[].class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(etag).isNotBlank().startsWith("\"");
+
+        String revalidated = webTestClient.get()
+                .uri("/api/tags/allergens")
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty()
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(revalidated).isEqualTo(etag);
+    }
+
     @Test
     void shouldPersistProfileWithAllergenAndDietaryFields() {
         UserProfile request = new UserProfile(
-                null, null, "Female", 25, 165.0, 55.0, "1,2", 2,
-                "1,3", "2,4", "Cilantro,Bitter melon"
+                null, null, "Female", 25, 165.0, 55.0, TagIds.parse("1,2"), 2,
+                TagIds.parse("1,3"), TagIds.parse("2,4"), "Cilantro,Bitter melon"
         );
 
         Mono<Boolean> requestFlow = issueAuthenticatedToken()
@@ -73,12 +101,10 @@ class AllergenTagIntegrationTest extends AbstractIntegrationTest {
                             .expectStatus().isOk()
                             .expectBody(UserProfile.class)
                             .value(profile -> {
-                                if (profile.getId() == null
-                                        || !"1,3".equals(profile.getAllergenTagIds())
-                                        || !"2,4".equals(profile.getDietaryPreferenceTagIds())
-                                        || !"Cilantro,Bitter melon".equals(profile.getCustomAvoidedIngredients())) {
-                                    throw new AssertionError("unexpected saved profile payload");
-                                }
+                                assertThat(profile.getId()).isNotNull();
+                                assertThat(profile.getAllergenTagIds()).isEqualTo(TagIds.parse("1,3"));
+                                assertThat(profile.getDietaryPreferenceTagIds()).isEqualTo(TagIds.parse("2,4"));
+                                assertThat(profile.getCustomAvoidedIngredients()).isEqualTo("Cilantro,Bitter melon");
                             });
                     return true;
                 }).subscribeOn(Schedulers.boundedElastic()));
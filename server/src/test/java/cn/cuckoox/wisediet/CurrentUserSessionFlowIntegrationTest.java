@@ -1,10 +1,9 @@
 package cn.cuckoox.wisediet;
 
 import cn.cuckoox.wisediet.controller.dto.AdminRevokeRequest;
-import cn.cuckoox.wisediet.model.AdminWhitelist;
 import cn.cuckoox.wisediet.model.User;
-import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import java.time.Duration;
@@ -20,7 +19,7 @@ class CurrentUserSessionFlowIntegrationTest extends AbstractIntegrationTest {
     private UserRepository userRepository;
 
     @Autowired
-    private AdminWhitelistRepository adminWhitelistRepository;
+    private AdminWhitelistService adminWhitelistService;
 
     @Autowired
     private SessionStore sessionStore;
@@ -31,9 +30,9 @@ class CurrentUserSessionFlowIntegrationTest extends AbstractIntegrationTest {
     @Test
     void shouldAllowAdminRevokeWhenTokenAndSessionBelongToSameUser() {
         Mono<Boolean> flow = userRepository.save(new User(null, "admin-flow@a.com", "google", "aid-flow", 0))
-                .flatMap(admin -> adminWhitelistRepository.save(new AdminWhitelist(null, admin.getId()))
+                .flatMap(admin -> adminWhitelistService.grant(admin.getId())
                         .then(userRepository.save(new User(null, "target-flow@a.com", "google", "tid-flow", 0)))
-                        .flatMap(target -> jwtService.createAccessToken(admin.getId())
+                        .flatMap(target -> jwtService.createAccessToken(admin.getId(), "ADMIN")
                                 .flatMap(adminToken -> sessionStore.saveSession(
                                                 jwtService.extractJti(adminToken),
                                                 admin.getId(),
@@ -56,9 +55,9 @@ class CurrentUserSessionFlowIntegrationTest extends AbstractIntegrationTest {
     @Test
     void shouldRejectWhenTokenUserDoesNotMatchSessionUser() {
         Mono<Boolean> flow = userRepository.save(new User(null, "admin-mismatch@a.com", "google", "aid-mismatch", 0))
-                .flatMap(admin -> adminWhitelistRepository.save(new AdminWhitelist(null, admin.getId()))
+                .flatMap(admin -> adminWhitelistService.grant(admin.getId())
                         .then(userRepository.save(new User(null, "other-mismatch@a.com", "google", "oid-mismatch", 0)))
-                        .flatMap(otherUser -> jwtService.createAccessToken(admin.getId())
+                        .flatMap(otherUser -> jwtService.createAccessToken(admin.getId(), "ADMIN")
                                 .flatMap(adminToken -> sessionStore.saveSession(
                                                 jwtService.extractJti(adminToken),
                                                 otherUser.getId(),
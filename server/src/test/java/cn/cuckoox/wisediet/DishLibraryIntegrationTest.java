@@ -1,27 +1,33 @@
 package cn.cuckoox.wisediet;
 
-import cn.cuckoox.wisediet.model.AdminWhitelist;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
 import cn.cuckoox.wisediet.repository.DishLibraryRepository;
 import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 class DishLibraryIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired private UserRepository userRepository;
     @Autowired private AdminWhitelistRepository adminWhitelistRepository;
+    @Autowired private AdminWhitelistService adminWhitelistService;
     @Autowired private DishLibraryRepository dishLibraryRepository;
     @Autowired private JwtService jwtService;
     @Autowired private SessionStore sessionStore;
@@ -30,7 +36,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
     void cleanData() {
         StepVerifier.create(
             dishLibraryRepository.deleteAll()
-                .then(adminWhitelistRepository.deleteAll())
+                .then(adminWhitelistRepository.deleteAll().then(adminWhitelistService.publishChange()))
                 .then(userRepository.deleteAll())
         ).verifyComplete();
     }
@@ -38,7 +44,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
     // 返回 Mono<String> 而不是 String，避免 .block()
     private Mono<String> createAdminToken() {
         return userRepository.save(new User(null, "admin@test.com", "google", "admin-pid", 0))
-                .flatMap(u -> adminWhitelistRepository.save(new AdminWhitelist(null, u.getId())).thenReturn(u))
+                .flatMap(u -> adminWhitelistService.grant(u.getId()).thenReturn(u))
                 .flatMap(u -> jwtService.createAccessToken(u.getId(), "ADMIN")
                         .flatMap(token -> sessionStore.saveSession(jwtService.extractJti(token),
                                 u.getId(), Duration.ofMinutes(15))
@@ -58,18 +64,47 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
         webTestClient.get().uri("/api/admin/dishes")
                 .exchange()
                 .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/api/admin/dishes?cursor=not-a-cursor")
+                .exchange()
+                .expectStatus().isUnauthorized();
     }
 
     @Test
     void shouldReturn403_whenNonAdminAccesses() {
         StepVerifier.create(
             createUserToken().flatMap(token ->
-                Mono.fromRunnable(() ->
+                Mono.fromRunnable(() -> {
                     webTestClient.get().uri("/api/admin/dishes")
                             .header("Authorization", "Bearer " + token)
                             .exchange()
-                            .expectStatus().isForbidden()
-                ).subscribeOn(Schedulers.boundedElastic())
+                            .expectStatus().isForbidden();
+                    webTestClient.get().uri("/api/admin/dishes?cursor=not-a-cursor")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isForbidden();
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldRejectAdminToken_afterWhitelistRevoke() {
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                userRepository.findByProviderAndProviderUserId("google", "admin-pid")
+                        .flatMap(admin -> Mono.fromRunnable(() ->
+                                webTestClient.get().uri("/api/admin/dishes")
+                                        .header("Authorization", "Bearer " + token)
+                                        .exchange()
+                                        .expectStatus().isOk()
+                        ).subscribeOn(Schedulers.boundedElastic())
+                                .then(adminWhitelistService.revoke(admin.getId())))
+                        .then(Mono.fromRunnable(() ->
+                                webTestClient.get().uri("/api/admin/dishes")
+                                        .header("Authorization", "Bearer " + token)
+                                        .exchange()
+                                        .expectStatus().isForbidden()
+                        ).subscribeOn(Schedulers.boundedElastic()))
             )
         ).verifyComplete();
     }
@@ -83,10 +118,10 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                 "prepMin", 5,
                 "cookMin", 10,
                 "servings", 2,
-                "ingredients", "[{\"item\":\"番茄\",\"amount\":200,\"unit\":\"g\"}]",
-                "steps", "[\"番茄切块\",\"炒制\"]",
+                "ingredients", List.of(Map.of("name", "番茄", "grams", 200, "aisle", "produce")),
+                "steps", List.of("番茄切块", "炒制"),
                 "nutrientTags", "[\"高蛋白\"]",
-                "nutrients", "{\"calories\":150}"
+                "nutrients", Map.of("kcal", 150, "protein", 8)
         );
 
         StepVerifier.create(
@@ -100,6 +135,10 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                             .expectBody()
                             .jsonPath("$.id").exists()
                             .jsonPath("$.name").isEqualTo("番茄炒蛋")
+                            .jsonPath("$.ingredients[0].name").isEqualTo("番茄")
+                            .jsonPath("$.ingredients[0].grams").isEqualTo(200.0)
+                            .jsonPath("$.steps[1]").isEqualTo("炒制")
+                            .jsonPath("$.nutrients.kcal").isEqualTo(150.0)
                             .jsonPath("$.isActive").isEqualTo(true);
 
                     webTestClient.get().uri("/api/admin/dishes")
@@ -123,8 +162,8 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                 "prepMin", 10,
                 "cookMin", 20,
                 "servings", 2,
-                "ingredients", "[]",
-                "steps", "[]"
+                "ingredients", List.of(),
+                "steps", List.of()
         );
 
         StepVerifier.create(
@@ -174,7 +213,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                             .header("Authorization", "Bearer " + token)
                             .bodyValue(Map.of("name", "红烧肉", "category", "meat_red",
                                     "difficulty", 2, "prepMin", 15, "cookMin", 60,
-                                    "servings", 4, "ingredients", "[]", "steps", "[]"))
+                                    "servings", 4, "ingredients", List.of(), "steps", List.of()))
                             .exchange()
                             .expectStatus().isCreated()
                             .expectBody(Map.class)
@@ -206,7 +245,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                             .header("Authorization", "Bearer " + token)
                             .bodyValue(Map.of("name", "原始菜名", "category", "meat_red",
                                     "difficulty", 1, "prepMin", 5, "cookMin", 10,
-                                    "servings", 2, "ingredients", "[]", "steps", "[]"))
+                                    "servings", 2, "ingredients", List.of(), "steps", List.of()))
                             .exchange()
                             .expectStatus().isCreated()
                             .expectBody(Map.class)
@@ -216,7 +255,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                             .header("Authorization", "Bearer " + token)
                             .bodyValue(Map.of("name", "更新后菜名", "category", "meat_poultry",
                                     "difficulty", 2, "prepMin", 10, "cookMin", 20,
-                                    "servings", 2, "ingredients", "[]", "steps", "[]"))
+                                    "servings", 2, "ingredients", List.of(), "steps", List.of()))
                             .exchange()
                             .expectStatus().isOk()
                             .expectBody()
@@ -227,6 +266,38 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
         ).verifyComplete();
     }
 
+    @Test
+    void shouldReturn409_whenDishNameAlreadyExists() {
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                Mono.fromRunnable(() -> {
+                    AtomicLong otherId = new AtomicLong();
+                    for (String name : List.of("番茄炒蛋", "清炒时蔬")) {
+                        webTestClient.post().uri("/api/admin/dishes")
+                                .header("Authorization", "Bearer " + token)
+                                .bodyValue(Map.of("name", name, "category", "veggie_mixed"))
+                                .exchange()
+                                .expectStatus().isCreated()
+                                .expectBody(Map.class)
+                                .consumeWith(r -> otherId.set(((Number) r.getResponseBody().get("id")).longValue()));
+                    }
+
+                    webTestClient.post().uri("/api/admin/dishes")
+                            .header("Authorization", "Bearer " + token)
+                            .bodyValue(Map.of("name", "番茄炒蛋", "category", "veggie_mixed"))
+                            .exchange()
+                            .expectStatus().isEqualTo(409);
+
+                    webTestClient.put().uri("/api/admin/dishes/" + otherId.get())
+                            .header("Authorization", "Bearer " + token)
+                            .bodyValue(Map.of("name", "番茄炒蛋", "category", "veggie_mixed"))
+                            .exchange()
+                            .expectStatus().isEqualTo(409);
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
     @Test
     void shouldDeleteDish_whenAdmin() {
         StepVerifier.create(
@@ -237,7 +308,7 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
                             .header("Authorization", "Bearer " + token)
                             .bodyValue(Map.of("name", "待删菜", "category", "veggie_leafy",
                                     "difficulty", 1, "prepMin", 5, "cookMin", 5,
-                                    "servings", 2, "ingredients", "[]", "steps", "[]"))
+                                    "servings", 2, "ingredients", List.of(), "steps", List.of()))
                             .exchange()
                             .expectStatus().isCreated()
                             .expectBody(Map.class)
@@ -256,4 +327,204 @@ class DishLibraryIntegrationTest extends AbstractIntegrationTest {
             )
         ).verifyComplete();
     }
+
+    @Test
+    void shouldPageWithCursor_whenAdmin() {
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                Mono.fromRunnable(() -> {
+                    for (String name : new String[]{"菜一", "菜二", "菜三"}) {
+                        webTestClient.post().uri("/api/admin/dishes")
+                                .header("Authorization", "Bearer " + token)
+                                .bodyValue(Map.of("name", name, "category", "veggie_leafy"))
+                                .exchange()
+                                .expectStatus().isCreated();
+                    }
+
+                    AtomicReference<String> cursor = new AtomicReference<>();
+                    webTestClient.get().uri("/api/admin/dishes?size=2")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.content.length()").isEqualTo(2)
+                            .jsonPath("$.content[0].name").isEqualTo("菜一")
+                            .jsonPath("$.total").isEqualTo(3)
+                            .jsonPath("$.nextCursor").value(value -> cursor.set((String) value));
+
+                    webTestClient.get().uri("/api/admin/dishes?size=2&cursor=" + cursor.get())
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.content.length()").isEqualTo(1)
+                            .jsonPath("$.content[0].name").isEqualTo("菜三")
+                            .jsonPath("$.nextCursor").doesNotExist();
+
+                    webTestClient.get().uri("/api/admin/dishes?cursor=not-a-cursor")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isBadRequest();
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldImportNdjsonWithRowErrors_andUpsertByName() {
+        String body = """
+                {"name":"番茄炒蛋","category":"veggie_mixed","servings":2,"nutrients":{"kcal":150}}
+                {"name":"","category":"veggie_mixed"}
+                not json
+                {"name":"清蒸鱼","category":"seafood","ingredients":[{"name":"鲈鱼","grams":500}]}
+                """;
+        String update = "{\"name\":\"番茄炒蛋\",\"category\":\"veggie_mixed\",\"servings\":4}\n";
+
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                Mono.fromRunnable(() -> {
+                    webTestClient.post().uri("/api/admin/dishes/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .bodyValue(body)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.inserted").isEqualTo(2)
+                            .jsonPath("$.updated").isEqualTo(0)
+                            .jsonPath("$.failed").isEqualTo(2)
+                            .jsonPath("$.errors[0].line").isEqualTo(2)
+                            .jsonPath("$.errors[1].line").isEqualTo(3);
+
+                    webTestClient.post().uri("/api/admin/dishes/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .bodyValue(update)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.inserted").isEqualTo(0)
+                            .jsonPath("$.updated").isEqualTo(1);
+
+                    webTestClient.get().uri("/api/admin/dishes")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.total").isEqualTo(2)
+                            .jsonPath("$.content[0].servings").isEqualTo(4)
+                            .jsonPath("$.content[1].ingredients[0].name").isEqualTo("鲈鱼");
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldRoundTripCsvExportThroughImport() {
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                Mono.fromRunnable(() -> {
+                    webTestClient.post().uri("/api/admin/dishes")
+                            .header("Authorization", "Bearer " + token)
+                            .bodyValue(Map.of("name", "宫保鸡丁", "category", "meat_poultry",
+                                    "steps", List.of("鸡丁腌制, 备用", "爆炒"),
+                                    "nutrientTags", "[\"高蛋白\"]"))
+                            .exchange()
+                            .expectStatus().isCreated();
+
+                    String csv = webTestClient.get().uri("/api/admin/dishes/export?format=csv")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(String.class)
+                            .returnResult()
+                            .getResponseBody();
+
+                    webTestClient.post().uri("/api/admin/dishes/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.parseMediaType("text/csv"))
+                            .bodyValue(csv)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.updated").isEqualTo(1)
+                            .jsonPath("$.failed").isEqualTo(0);
+
+                    webTestClient.get().uri("/api/admin/dishes/export")
+                            .header("Authorization", "Bearer " + token)
+                            .accept(MediaType.APPLICATION_NDJSON)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(String.class)
+                            .value(ndjson -> assertThat(ndjson)
+                                    .contains("\"steps\":[\"鸡丁腌制, 备用\",\"爆炒\"]")
+                                    .contains("\"nutrientTags\":\"[\\\"高蛋白\\\"]\""));
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldRejectImport_whenNotAdmin() {
+        StepVerifier.create(
+            createUserToken().flatMap(token ->
+                Mono.fromRunnable(() ->
+                    webTestClient.post().uri("/api/admin/dishes/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .bodyValue("{\"name\":\"菜\",\"category\":\"soup\"}\n")
+                            .exchange()
+                            .expectStatus().isForbidden()
+                ).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldSearchByNamePrefixIngredientAndTag_rankingNameHitsFirst() {
+        String body = """
+                {"name":"番茄炒蛋","category":"veggie_mixed","ingredients":[{"name":"番茄"},{"name":"鸡蛋"}]}
+                {"name":"罗宋汤","category":"soup","ingredients":[{"name":"牛肉"},{"name":"番茄"}]}
+                {"name":"Beef Stew","category":"meat_red","nutrientTags":"high protein","ingredients":[{"name":"beef"}]}
+                """;
+
+        StepVerifier.create(
+            createAdminToken().flatMap(token ->
+                Mono.fromRunnable(() -> {
+                    webTestClient.post().uri("/api/admin/dishes/import")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .bodyValue(body)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.inserted").isEqualTo(3);
+
+                    webTestClient.get().uri("/api/admin/dishes/search?q=番茄")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.length()").isEqualTo(2)
+                            .jsonPath("$[0].name").isEqualTo("番茄炒蛋")
+                            .jsonPath("$[1].name").isEqualTo("罗宋汤");
+
+                    webTestClient.get().uri("/api/admin/dishes/search?q=prot")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.length()").isEqualTo(1)
+                            .jsonPath("$[0].name").isEqualTo("Beef Stew");
+
+                    webTestClient.get().uri("/api/admin/dishes/search?q=Bef Stew")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$[0].name").isEqualTo("Beef Stew");
+                }).subscribeOn(Schedulers.boundedElastic())
+            )
+        ).verifyComplete();
+    }
 }
@@ -0,0 +1,111 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
+import cn.cuckoox.wisediet.controller.dto.DishSyncResponse;
+import cn.cuckoox.wisediet.model.User;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.DishLibraryService;
+import cn.cuckoox.wisediet.service.JwtService;
+import cn.cuckoox.wisediet.service.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DishSyncIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private DishLibraryRepository dishLibraryRepository;
+    @Autowired private DishLibraryService dishLibraryService;
+    @Autowired private JwtService jwtService;
+    @Autowired private SessionStore sessionStore;
+
+    @BeforeEach
+    void cleanData() {
+        StepVerifier.create(dishLibraryRepository.deleteAll().then(userRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    private Mono<String> createUserToken() {
+        return userRepository.save(new User(null, "sync@test.com", "google", "sync-pid", 0))
+                .flatMap(u -> jwtService.createAccessToken(u.getId(), "USER")
+                        .flatMap(token -> sessionStore.saveSession(jwtService.extractJti(token),
+                                u.getId(), Duration.ofMinutes(15))
+                                .thenReturn(token)));
+    }
+
+    private static DishLibraryRequest request(String name, Integer servings) {
+        return new DishLibraryRequest(name, "veggie_mixed", null, null, null, servings, null, null, null, null);
+    }
+
+    private DishSyncResponse sync(String token, long since) {
+        return webTestClient.get().uri("/api/dishes/sync?since=" + since)
+                .header("Authorization", "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(DishSyncResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    void shouldReturn401_whenNotAuthenticated() {
+        webTestClient.get().uri("/api/dishes/sync?since=0")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldSyncOnlyChangedAndDeletedDishes() {
+        AtomicReference<Long> kept = new AtomicReference<>();
+        AtomicReference<Long> paused = new AtomicReference<>();
+        AtomicReference<Long> removed = new AtomicReference<>();
+        StepVerifier.create(
+            dishLibraryService.create(request("番茄炒蛋", 2)).doOnNext(d -> kept.set(d.id()))
+                .then(dishLibraryService.create(request("清蒸鱼", 2))).doOnNext(d -> paused.set(d.id()))
+                .then(dishLibraryService.create(request("凉拌黄瓜", 2))).doOnNext(d -> removed.set(d.id()))
+                .then(createUserToken())
+                .flatMap(token -> Mono.fromRunnable(() -> {
+                    DishSyncResponse full = sync(token, 0);
+                    assertThat(full.reset()).isTrue();
+                    assertThat(full.upserts()).hasSize(3);
+
+                    dishLibraryService.update(kept.get(), request("番茄炒蛋", 4)).block();
+                    dishLibraryService.updateStatus(paused.get(), false).block();
+                    dishLibraryService.delete(removed.get()).block();
+
+                    DishSyncResponse delta = sync(token, full.version());
+                    assertThat(delta.reset()).isFalse();
+                    assertThat(delta.version()).isGreaterThan(full.version());
+                    assertThat(delta.upserts()).extracting(DishSyncResponse.SyncedDish::id).containsExactly(kept.get());
+                    assertThat(delta.upserts().get(0).servings()).isEqualTo(4);
+                    assertThat(delta.deleted()).containsExactlyInAnyOrder(paused.get(), removed.get());
+
+                    DishSyncResponse current = sync(token, delta.version());
+                    assertThat(current.version()).isEqualTo(delta.version());
+                    assertThat(current.upserts()).isEmpty();
+                    assertThat(current.deleted()).isEmpty();
+                }).subscribeOn(Schedulers.boundedElastic()))
+        ).verifyComplete();
+    }
+
+    @Test
+    void shouldNotBumpVersion_whenUpdateChangesNothing() {
+        AtomicReference<Long> id = new AtomicReference<>();
+        StepVerifier.create(
+            dishLibraryService.create(request("番茄炒蛋", 2)).doOnNext(d -> id.set(d.id()))
+                .then(dishLibraryRepository.currentVersion())
+                .flatMap(before -> dishLibraryService.update(id.get(), request("番茄炒蛋", 2))
+                        .then(dishLibraryRepository.currentVersion())
+                        .map(after -> after.equals(before)))
+        ).expectNext(true).verifyComplete();
+    }
+}
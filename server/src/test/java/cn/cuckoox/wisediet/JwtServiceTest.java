@@ -32,4 +32,16 @@ class JwtServiceTest extends AbstractIntegrationTest {
                 .expectNextMatches(jti -> jti != null && !jti.isBlank())
                 .verifyComplete();
     }
+
+    @Test
+    void shouldDecodeAllClaimsOnce() {
+        Mono<String> flow = jwtService.createAccessToken(9L, "ADMIN")
+                .map(jwtService::decodeOnce)
+                .map(jwt -> jwt.getSubject() + ":" + jwt.getClaimAsString("role")
+                        + ":" + (jwt.getId() != null) + ":" + (jwt.getExpiresAt() != null));
+
+        StepVerifier.create(flow)
+                .expectNext("9:ADMIN:true:true")
+                .verifyComplete();
+    }
 }
@@ -0,0 +1,112 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.model.User;
+import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.AdminWhitelistService;
+import cn.cuckoox.wisediet.service.JwtService;
+import cn.cuckoox.wisediet.service.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "app.metrics.scrape-token=" + MetricsIntegrationTest.SCRAPE_TOKEN)
+class MetricsIntegrationTest extends AbstractIntegrationTest {
+
+    static final String SCRAPE_TOKEN = "test-scrape-token";
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private AdminWhitelistRepository adminWhitelistRepository;
+    @Autowired private AdminWhitelistService adminWhitelistService;
+    @Autowired private JwtService jwtService;
+    @Autowired private SessionStore sessionStore;
+
+    @BeforeEach
+    void cleanData() {
+        StepVerifier.create(
+            adminWhitelistRepository.deleteAll().then(adminWhitelistService.publishChange())
+                .then(userRepository.deleteAll())
+        ).verifyComplete();
+    }
+
+    private Mono<String> createToken(String email, String role, boolean whitelisted) {
+        return userRepository.save(new User(null, email, "google", email + "-pid", 0))
+                .flatMap(u -> (whitelisted ? adminWhitelistService.grant(u.getId()) : Mono.<Void>empty()).thenReturn(u))
+                .flatMap(u -> jwtService.createAccessToken(u.getId(), role)
+                        .flatMap(token -> sessionStore.saveSession(jwtService.extractJti(token),
+                                u.getId(), Duration.ofMinutes(15))
+                                .thenReturn(token)));
+    }
+
+    @Test
+    void shouldRejectPrometheusScrape_withoutScrapeToken() {
+        Mono<Void> flow = Mono.zip(createToken("plain@test.com", "USER", false),
+                        createToken("admin@test.com", "ADMIN", true))
+                .flatMap(tokens -> Mono.<Void>fromRunnable(() -> {
+                    webTestClient.get()
+                            .uri("/actuator/prometheus")
+                            .exchange()
+                            .expectStatus().isUnauthorized();
+                    webTestClient.get()
+                            .uri("/actuator/prometheus")
+                            .header("Authorization", "Bearer wrong-" + SCRAPE_TOKEN)
+                            .exchange()
+                            .expectStatus().isUnauthorized();
+                    webTestClient.get()
+                            .uri("/actuator/prometheus")
+                            .header("Authorization", "Bearer " + tokens.getT1())
+                            .exchange()
+                            .expectStatus().isUnauthorized();
+                    webTestClient.get()
+                            .uri("/actuator/prometheus")
+                            .header("Authorization", "Bearer " + tokens.getT2())
+                            .exchange()
+                            .expectStatus().isUnauthorized();
+                    webTestClient.get()
+                            .uri("/actuator/health")
+                            .exchange()
+                            .expectStatus().isOk();
+                }).subscribeOn(Schedulers.boundedElastic()));
+
+        StepVerifier.create(flow).verifyComplete();
+    }
+
+    @Test
+    void shouldScrapeFilterServiceRepositoryAndPoolMetrics() {
+        Mono<String> flow = Mono.fromCallable(() -> {
+            webTestClient.get()
+                    .uri("/api/tags/occupations")
+                    .exchange()
+                    .expectStatus().isOk();
+            webTestClient.get()
+                    .uri("/api/today/recommendations")
+                    .exchange()
+                    .expectStatus().isUnauthorized();
+            return webTestClient.get()
+                    .uri("/actuator/prometheus")
+                    .header("Authorization", "Bearer " + SCRAPE_TOKEN)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        StepVerifier.create(flow)
+                .assertNext(body -> assertThat(body)
+                        .contains("wisediet_filter_seconds_count{application=\"wisediet\",endpoint=\"GET /api/today/recommendations\",filter=\"jwt-authentication\",outcome=\"passed\"")
+                        .contains("wisediet_service_seconds_count{application=\"wisediet\",class=\"TagCatalog\"")
+                        .contains("spring_data_repository_invocations_seconds_count")
+                        .contains("r2dbc_pool_acquired_connections")
+                        .contains("wisediet_token_cache_requests_total"))
+                .verifyComplete();
+    }
+}
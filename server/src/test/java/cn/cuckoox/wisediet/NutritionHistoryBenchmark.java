@@ -0,0 +1,110 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.repository.DailyNutritionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+
+/**
+ * 7 天营养历史：按需跨 meal_plans / dishes / dish_library 聚合 与 读取 daily_nutrition 汇总行 的对比。
+ * 类名不以 Test 结尾，默认构建不会运行；
+ * 手动执行：mvn test -Dtest=NutritionHistoryBenchmark [-Dbench.users=100000]
+ */
+class NutritionHistoryBenchmark extends AbstractIntegrationTest {
+
+    private static final int USERS = Integer.getInteger("bench.users", 100_000);
+    private static final int DAYS = 7;
+    private static final int RECIPES = 500;
+    private static final int QUERIES = 2_000;
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 8);
+
+    private static final String ON_THE_FLY = "SELECT p.date, "
+            + "COALESCE(SUM((l.nutrients ->> 'kcal')::DOUBLE PRECISION), 0) AS kcal, "
+            + "COALESCE(SUM((l.nutrients ->> 'protein')::DOUBLE PRECISION), 0) AS protein, "
+            + "COALESCE(SUM((l.nutrients ->> 'carbs')::DOUBLE PRECISION), 0) AS carbs, "
+            + "COALESCE(SUM((l.nutrients ->> 'fat')::DOUBLE PRECISION), 0) AS fat, COUNT(d.id) AS dish_count "
+            + "FROM meal_plans p "
+            + "LEFT JOIN dishes d ON d.meal_plan_id = p.id AND d.selected "
+            + "LEFT JOIN dish_library l ON l.id = d.dish_library_id "
+            + "WHERE p.user_id = :userId AND p.date > :from AND p.date <= :to "
+            + "GROUP BY p.date ORDER BY p.date";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private DailyNutritionRepository dailyNutritionRepository;
+
+    @Test
+    void slidingWindowRollupVersusOnTheFly() {
+        List<String> seed = List.of(
+                "INSERT INTO dish_library (name, category, servings, nutrients) "
+                        + "SELECT 'bench ' || g, 'veggie_mixed', 2, jsonb_build_object('kcal', 200 + g % 300, "
+                        + "'protein', 10 + g % 20, 'carbs', 20 + g % 40, 'fat', 5 + g % 10) "
+                        + "FROM generate_series(1, " + RECIPES + ") g",
+                "INSERT INTO meal_plans (user_id, date, status) "
+                        + "SELECT 5000000 + u, DATE '" + TODAY + "' - d, 'confirmed' "
+                        + "FROM generate_series(1, " + USERS + ") u, generate_series(0, " + (DAYS - 1) + ") d",
+                "INSERT INTO dishes (meal_plan_id, name, meal_type, selected, dish_library_id) "
+                        + "SELECT p.id, 'bench dish', 'lunch', k % 2 = 0, "
+                        + "(SELECT min(id) FROM dish_library) + (p.id * 4 + k) % " + RECIPES + " "
+                        + "FROM meal_plans p, generate_series(1, 4) k WHERE p.user_id > 5000000",
+                "ANALYZE");
+        StepVerifier.create(Flux.fromIterable(seed).concatMap(sql -> databaseClient.sql(sql).then()))
+                .expectComplete()
+                .verify(Duration.ofMinutes(10));
+
+        long backfillStart = System.nanoTime();
+        StepVerifier.create(databaseClient.sql(DailyNutritionRepository.ROLLUP_SELECT
+                        + "WHERE p.user_id > 5000000 " + DailyNutritionRepository.ROLLUP_UPSERT).then())
+                .expectComplete()
+                .verify(Duration.ofMinutes(10));
+        System.out.printf("backfill of %d users x %d days: %.1f s%n", USERS, DAYS, (System.nanoTime() - backfillStart) / 1e9);
+
+        LocalDate from = TODAY.minusDays(DAYS);
+        LongFunction<Mono<Long>> onTheFly = userId -> databaseClient.sql(ON_THE_FLY)
+                .bind("userId", userId).bind("from", from).bind("to", TODAY)
+                .map(row -> 1L).all().count();
+        LongFunction<Mono<Long>> rollup = userId -> dailyNutritionRepository.findWindow(userId, from, TODAY).count();
+        LongFunction<Mono<Long>> refresh = userId -> databaseClient.sql(
+                        "SELECT id FROM meal_plans WHERE user_id = :userId AND date = :date")
+                .bind("userId", userId).bind("date", TODAY)
+                .map(row -> row.get(0, Long.class)).one()
+                .flatMap(planId -> dailyNutritionRepository.refreshPlan(planId))
+                .map(Integer::longValue);
+
+        System.out.printf("%-24s %12s %12s %12s%n", "query", "p50(ms)", "p99(ms)", "rows/query");
+        measure("on-the-fly aggregation", onTheFly);
+        measure("daily_nutrition window", rollup);
+        measure("refresh one day", refresh);
+    }
+
+    private void measure(String label, LongFunction<Mono<Long>> query) {
+        for (int i = 0; i < 200; i++) {
+            query.apply(randomUser()).block(Duration.ofSeconds(10));
+        }
+        long[] samples = new long[QUERIES];
+        long rows = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            rows += query.apply(randomUser()).block(Duration.ofSeconds(10));
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf("%-24s %12.3f %12.3f %12.1f%n", label,
+                samples[QUERIES / 2] / 1e6, samples[QUERIES * 99 / 100] / 1e6, (double) rows / QUERIES);
+    }
+
+    private static long randomUser() {
+        return 5_000_001L + ThreadLocalRandom.current().nextInt(USERS);
+    }
+}
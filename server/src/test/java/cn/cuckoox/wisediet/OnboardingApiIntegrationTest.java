@@ -1,6 +1,7 @@
 package cn.cuckoox.wisediet;
 
 import cn.cuckoox.wisediet.model.OccupationTag;
+import cn.cuckoox.wisediet.model.TagIds;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.model.UserProfile;
 import cn.cuckoox.wisediet.repository.UserProfileRepository;
@@ -58,7 +59,7 @@ class OnboardingApiIntegrationTest extends AbstractIntegrationTest {
                 30,
                 180.0,
                 70.0,
-                "1,2",
+                TagIds.parse("1,2"),
                 2,
                 null,
                 null,
@@ -94,7 +95,7 @@ class OnboardingApiIntegrationTest extends AbstractIntegrationTest {
         StepVerifier.create(userProfileRepository.findAll()
                         .filter(profile -> "Male".equals(profile.getGender()))
                         .take(1))
-                .expectNextMatches(profile -> "1,2".equals(profile.getOccupationTagIds()))
+                .expectNextMatches(profile -> TagIds.parse("1,2").equals(profile.getOccupationTagIds()))
                 .verifyComplete();
     }
 
@@ -135,8 +136,8 @@ class OnboardingApiIntegrationTest extends AbstractIntegrationTest {
 
     @Test
     void shouldUpsertProfileOnResubmit() {
-        UserProfile first = new UserProfile(null, null, "Male", 30, 180.0, 70.0, "1", 2, null, null, null);
-        UserProfile second = new UserProfile(null, null, "Female", 28, 165.0, 55.0, "2", 1, null, null, null);
+        UserProfile first = new UserProfile(null, null, "Male", 30, 180.0, 70.0, TagIds.parse("1"), 2, null, null, null);
+        UserProfile second = new UserProfile(null, null, "Female", 28, 165.0, 55.0, TagIds.parse("2"), 1, null, null, null);
 
         Mono<Boolean> flow = issueAuthenticatedToken(1)
                 .flatMap(token -> Mono.fromCallable(() -> {
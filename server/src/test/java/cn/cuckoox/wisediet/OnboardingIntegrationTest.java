@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet;
 
+import cn.cuckoox.wisediet.model.TagIds;
 import cn.cuckoox.wisediet.model.UserProfile;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.repository.UserRepository;
@@ -39,7 +40,7 @@ public class OnboardingIntegrationTest extends AbstractIntegrationTest {
 
     @Test
     void shouldCreateUserProfile() {
-        UserProfile profile = new UserProfile(null, null, "Male", 30, 175.0, 75.0, "1,2", 1, null, null, null);
+        UserProfile profile = new UserProfile(null, null, "Male", 30, 175.0, 75.0, TagIds.parse("1,2"), 1, null, null, null);
 
         Mono<Boolean> flow = issueAuthenticatedToken(0)
                 .flatMap(token -> Mono.fromCallable(() -> {
@@ -55,7 +56,7 @@ public class OnboardingIntegrationTest extends AbstractIntegrationTest {
                                 assertNotNull(saved.getId());
                                 assertNotNull(saved.getUserId());
                                 assertEquals("Male", saved.getGender());
-                                assertEquals("1,2", saved.getOccupationTagIds());
+                                assertEquals(TagIds.parse("1,2"), saved.getOccupationTagIds());
                             });
                     return true;
                 }).subscribeOn(Schedulers.boundedElastic()));
@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet;
 
+import cn.cuckoox.wisediet.model.TagIds;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.model.UserProfile;
 import cn.cuckoox.wisediet.repository.UserProfileRepository;
@@ -111,7 +112,7 @@ public class ProfileApiIntegrationTest extends AbstractIntegrationTest {
                             .exchange()
                             .expectStatus().isOk()
                             .expectBody(UserProfile.class)
-                            .value(profile -> assertThat(profile.getOccupationTagIds()).isEqualTo("3,4,5"));
+                            .value(profile -> assertThat(profile.getOccupationTagIds()).isEqualTo(TagIds.parse("3,4,5")));
                     return true;
                 }).subscribeOn(Schedulers.boundedElastic()));
 
@@ -140,7 +141,7 @@ public class ProfileApiIntegrationTest extends AbstractIntegrationTest {
                     profile.setHeight(175.0);
                     profile.setWeight(75.0);
                     profile.setFamilyMembers(2);
-                    profile.setOccupationTagIds("1,2");
+                    profile.setOccupationTagIds(TagIds.parse("1,2"));
                     return userProfileRepository.save(profile)
                             .then(jwtService.createAccessToken(user.getId()))
                             .flatMap(token -> sessionStore.saveSession(
@@ -0,0 +1,143 @@
+package cn.cuckoox.wisediet;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 以生产量级数据（默认 100 万 meal_plans / 500 万 dishes）校验热点查询确实走索引。
+ * 类名不以 Test 结尾，默认构建不会运行；
+ * 手动执行：mvn test -Dtest=QueryPlanBenchmark [-Dqueryplan.users=200000 -Dqueryplan.daysPerUser=5 -Dqueryplan.dishesPerPlan=5]
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanBenchmark extends AbstractIntegrationTest {
+
+    private static final int USERS = Integer.getInteger("queryplan.users", 200_000);
+    private static final int DAYS_PER_USER = Integer.getInteger("queryplan.daysPerUser", 5);
+    private static final int DISHES_PER_PLAN = Integer.getInteger("queryplan.dishesPerPlan", 5);
+    private static final int LIBRARY_SIZE = 100_000;
+    private static final int ADMINS = 10_000;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeAll
+    void seed() {
+        List<String> statements = List.of(
+                "INSERT INTO users (email, provider, provider_user_id, onboarding_step) "
+                        + "SELECT 'u' || g || '@seed.test', 'seed', 'seed-' || g, CASE WHEN g % 10 = 0 THEN 1 ELSE 0 END "
+                        + "FROM generate_series(1, " + USERS + ") g",
+                "INSERT INTO user_profiles (user_id, gender, age, height, weight, family_members, allergen_tag_ids) "
+                        + "SELECT id, 'other', 30, 170, 65, 2, ARRAY[id % 50, 100 + id % 7]::BIGINT[] FROM users",
+                "INSERT INTO admin_whitelist (user_id) SELECT g FROM generate_series(1, " + ADMINS + ") g",
+                "INSERT INTO meal_plans (user_id, date, status) "
+                        + "SELECT u, DATE '2026-01-01' + d, 'pending' "
+                        + "FROM generate_series(1, " + USERS + ") u, generate_series(0, " + (DAYS_PER_USER - 1) + ") d",
+                "INSERT INTO dishes (meal_plan_id, name, meal_type) "
+                        + "SELECT p.id, 'seed dish', 'lunch' FROM meal_plans p, generate_series(1, " + DISHES_PER_PLAN + ")",
+                "INSERT INTO dish_library (name, category, is_active, ingredients) "
+                        + "SELECT 'seed ' || g, 'veggie_leafy', g % 2 = 0, "
+                        + "jsonb_build_array(jsonb_build_object('name', 'ingredient ' || g % 5000, 'grams', 100)) "
+                        + "FROM generate_series(1, " + LIBRARY_SIZE + ") g",
+                "INSERT INTO daily_nutrition (user_id, date, kcal, dish_count) "
+                        + "SELECT user_id, date, 1800, 4 FROM meal_plans",
+                "ANALYZE"
+        );
+        StepVerifier.create(Flux.fromIterable(statements)
+                        .concatMap(sql -> databaseClient.sql(sql).then()))
+                .expectComplete()
+                .verify(Duration.ofMinutes(10));
+    }
+
+    private String explain(String sql) {
+        return databaseClient.sql("EXPLAIN " + sql)
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collect(Collectors.joining("\n"))
+                .block(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void mealPlanLookupUsesUniqueIndex() {
+        String plan = explain("SELECT * FROM meal_plans WHERE user_id = 4242 AND date = DATE '2026-01-03'");
+        assertThat(plan).contains("uk_meal_plans_user_date").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void dishesByPlanUseMealPlanIndex() {
+        String plan = explain("SELECT * FROM dishes WHERE meal_plan_id = 4242");
+        assertThat(plan).contains("idx_dishes_meal_plan_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void profileByUserUsesUniqueConstraint() {
+        String plan = explain("SELECT * FROM user_profiles WHERE user_id = 4242");
+        assertThat(plan).contains("user_profiles_user_id_key").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void adminWhitelistCheckUsesIndex() {
+        String plan = explain("SELECT 1 FROM admin_whitelist WHERE user_id = 4242 LIMIT 1");
+        assertThat(plan).contains("idx_admin_whitelist_user_id").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void activeDishPageAvoidsScanAndSort() {
+        String plan = explain("SELECT * FROM dish_library WHERE is_active = true AND id > 50000 ORDER BY id LIMIT 21");
+        assertThat(plan).contains("Index").doesNotContain("Seq Scan").doesNotContain("Sort");
+    }
+
+    @Test
+    void onboardedUserPageAvoidsSeqScan() {
+        String plan = explain("SELECT id FROM users WHERE onboarding_step = 0 AND id > 1000 AND id % 1 = 0 ORDER BY id LIMIT 500");
+        assertThat(plan).contains("Index").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void allergenContainmentUsesGinIndex() {
+        String plan = explain("SELECT user_id FROM user_profiles WHERE allergen_tag_ids @> ARRAY[3]::BIGINT[]");
+        assertThat(plan).contains("idx_user_profiles_allergen_tag_ids").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void ingredientContainmentUsesGinIndex() {
+        String plan = explain("SELECT * FROM dish_library WHERE is_active = true "
+                + "AND ingredients @> jsonb_build_array(jsonb_build_object('name', 'ingredient 42'))");
+        assertThat(plan).contains("idx_dish_library_ingredients").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void nutritionWindowReadsRollupByUserAndDate() {
+        String plan = explain("SELECT * FROM daily_nutrition WHERE user_id = 4242 "
+                + "AND date > DATE '2026-01-01' AND date <= DATE '2026-01-08' ORDER BY date");
+        assertThat(plan).contains("uk_daily_nutrition_user_date").doesNotContain("Seq Scan").doesNotContain("Sort");
+    }
+
+    @Test
+    void dishSearchUsesFullTextAndTrigramIndexes() {
+        String plan = explain("SELECT * FROM dish_library WHERE search_vector @@ to_tsquery('simple', '4242:*') "
+                + "OR search_text ILIKE '%ingredient 4242%' OR name % 'seed 4242' "
+                + "ORDER BY ts_rank(search_vector, to_tsquery('simple', '4242:*')) + similarity(name, 'seed 4242') DESC, id "
+                + "LIMIT 50");
+        assertThat(plan).contains("idx_dish_library_search_vector")
+                .contains("idx_dish_library_search_text_trgm")
+                .contains("idx_dish_library_name_trgm")
+                .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void dishSyncReadsOnlyTheVersionRange() {
+        String plan = explain("SELECT * FROM dish_library WHERE version > 1000000000 AND version <= 1000000100 ORDER BY id");
+        assertThat(plan).contains("idx_dish_library_version").doesNotContain("Seq Scan");
+    }
+}
@@ -0,0 +1,105 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.Ingredient;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ScriptUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在独立 schema 里建一张 ingredients 仍为 JSON 文本的旧 dish_library，再完整执行 schema.sql，
+ * 校验旧字段 item/amount/unit 改写后不丢数量与单位；重复的每日计划在建唯一索引前被清理。
+ */
+class SchemaMigrationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    @Autowired private ConnectionFactory connectionFactory;
+
+    @Test
+    void shouldKeepNonGramAmounts_whenMigratingLegacyIngredients() {
+        String schema = "legacy_" + System.nanoTime();
+        String legacy = "[{\"item\":\"番茄\",\"amount\":300,\"unit\":\"g\"},"
+                + "{\"item\":\"牛肉\",\"amount\":\"0.5\",\"unit\":\"kg\"},"
+                + "{\"item\":\"鸡蛋\",\"amount\":2,\"unit\":\"个\"},"
+                + "{\"item\":\"生抽\",\"amount\":1,\"unit\":\"tbsp\"},"
+                + "{\"item\":\"胡椒\",\"amount\":\"适量\"}]";
+        Mono<String> flow = Mono.usingWhen(connectionFactory.create(),
+                connection -> execute(connection, "CREATE SCHEMA " + schema)
+                        .then(execute(connection, "SET search_path TO " + schema + ", public"))
+                        .then(execute(connection, "CREATE TABLE dish_library (id BIGSERIAL PRIMARY KEY, "
+                                + "name VARCHAR(100) NOT NULL, category VARCHAR(30) NOT NULL, "
+                                + "difficulty INT NOT NULL DEFAULT 2, prep_min INT NOT NULL DEFAULT 5, "
+                                + "cook_min INT NOT NULL DEFAULT 15, servings INT NOT NULL DEFAULT 2, "
+                                + "ingredients TEXT, steps TEXT, nutrient_tags TEXT, nutrients TEXT, "
+                                + "is_active BOOLEAN NOT NULL DEFAULT TRUE, created_at TIMESTAMP NOT NULL DEFAULT NOW())"))
+                        .then(execute(connection, "INSERT INTO dish_library (name, category, ingredients) "
+                                + "VALUES ('番茄牛肉', 'meat_red', '" + legacy + "')"))
+                        .then(ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql")))
+                        .then(Flux.from(connection.createStatement("SELECT ingredients::TEXT AS ingredients FROM dish_library")
+                                        .execute())
+                                .flatMap(result -> result.map((row, metadata) -> row.get("ingredients", String.class)))
+                                .single()),
+                connection -> execute(connection, "RESET search_path")
+                        .then(execute(connection, "DROP SCHEMA " + schema + " CASCADE"))
+                        .then(Mono.from(connection.close())));
+
+        StepVerifier.create(flow)
+                .assertNext(json -> assertThat(JSON.readValue(json, DishIngredients.class).items()).containsExactly(
+                        new Ingredient("番茄", 300.0, null),
+                        new Ingredient("牛肉", 500.0, null),
+                        new Ingredient("鸡蛋", null, 2.0, "个", null),
+                        new Ingredient("生抽", null, 1.0, "tbsp", null),
+                        new Ingredient("胡椒", null, null, "适量", null)))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldDropDuplicatePlans_whenCreatingUniqueIndex() {
+        String schema = "legacy_" + System.nanoTime();
+        Mono<String> flow = Mono.usingWhen(connectionFactory.create(),
+                connection -> execute(connection, "CREATE SCHEMA " + schema)
+                        .then(execute(connection, "SET search_path TO " + schema + ", public"))
+                        .then(execute(connection, "CREATE TABLE meal_plans (id SERIAL PRIMARY KEY, "
+                                + "user_id BIGINT NOT NULL, date DATE NOT NULL, "
+                                + "status VARCHAR(20) NOT NULL DEFAULT 'pending')"))
+                        .then(execute(connection, "CREATE TABLE dishes (id SERIAL PRIMARY KEY, "
+                                + "meal_plan_id BIGINT NOT NULL, name VARCHAR(255) NOT NULL, "
+                                + "recommendation_reason TEXT, image_url TEXT, difficulty INT DEFAULT 3, "
+                                + "prep_min INT DEFAULT 10, cook_min INT DEFAULT 10, nutrient_tags TEXT, "
+                                + "selected BOOLEAN DEFAULT FALSE, meal_type VARCHAR(20) NOT NULL)"))
+                        .then(execute(connection, "INSERT INTO meal_plans (user_id, date) VALUES "
+                                + "(1, '2026-01-01'), (1, '2026-01-01'), (1, '2026-01-02')"))
+                        .then(execute(connection, "INSERT INTO dishes (meal_plan_id, name, meal_type) VALUES "
+                                + "(1, '白粥', 'breakfast'), (2, '白粥', 'breakfast'), (3, '番茄炒蛋', 'lunch')"))
+                        .then(ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql")))
+                        .then(Flux.from(connection.createStatement("SELECT (SELECT string_agg(id::TEXT, ',' ORDER BY id) "
+                                                + "FROM meal_plans) || '|' || (SELECT string_agg(meal_plan_id::TEXT, ',' "
+                                                + "ORDER BY meal_plan_id) FROM dishes) AS ids")
+                                        .execute())
+                                .flatMap(result -> result.map((row, metadata) -> row.get("ids", String.class)))
+                                .single()),
+                connection -> execute(connection, "RESET search_path")
+                        .then(execute(connection, "DROP SCHEMA " + schema + " CASCADE"))
+                        .then(Mono.from(connection.close())));
+
+        StepVerifier.create(flow)
+                .expectNext("1,3|1,3")
+                .verifyComplete();
+    }
+
+    private static Mono<Void> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(result -> result.getRowsUpdated())
+                .then();
+    }
+}
@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet;
 
+import cn.cuckoox.wisediet.model.TagIds;
 import cn.cuckoox.wisediet.model.UserProfile;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
@@ -9,7 +10,7 @@ class SecurityBoundaryIntegrationTest extends AbstractIntegrationTest {
 
     @Test
     void shouldRequireAuthenticationForOnboardingProfile() {
-        UserProfile request = new UserProfile(null, null, "Male", 28, 180.0, 70.0, "1", 2, null, null, null);
+        UserProfile request = new UserProfile(null, null, "Male", 28, 180.0, 70.0, TagIds.parse("1"), 2, null, null, null);
 
         Mono<Boolean> flow = Mono.fromCallable(() -> {
             webTestClient.post()
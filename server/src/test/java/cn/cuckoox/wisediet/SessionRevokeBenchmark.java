@@ -0,0 +1,52 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.service.SessionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+/**
+ * 吊销耗时与会话数量的关系。类名不以 Test 结尾，默认构建不会运行；
+ * 手动执行：mvn test -Dtest=SessionRevokeBenchmark
+ */
+@Slf4j
+class SessionRevokeBenchmark extends AbstractIntegrationTest {
+
+    private static final int[] SESSION_COUNTS = {1, 10, 100, 1_000, 10_000};
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Test
+    void revokeLatencyBySessionCount() {
+        log.info(String.format("%10s %14s %14s", "sessions", "best(ms)", "avg(ms)"));
+        long userId = 900_000L;
+        for (int count : SESSION_COUNTS) {
+            long best = Long.MAX_VALUE;
+            long total = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long uid = userId++;
+                StepVerifier.create(Flux.range(0, count)
+                                .flatMap(i -> sessionStore.saveSession("bench-" + uid + "-" + i, uid, Duration.ofMinutes(5)), 64)
+                                .then())
+                        .verifyComplete();
+
+                long start = System.nanoTime();
+                StepVerifier.create(sessionStore.revokeUserSessions(uid)).verifyComplete();
+                long elapsed = System.nanoTime() - start;
+
+                best = Math.min(best, elapsed);
+                total += elapsed;
+                StepVerifier.create(sessionStore.exists("bench-" + uid + "-0"))
+                        .expectNext(false)
+                        .verifyComplete();
+            }
+            log.info(String.format("%10d %14.3f %14.3f", count, best / 1e6, total / 1e6 / ROUNDS));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package cn.cuckoox.wisediet;
 
+import cn.cuckoox.wisediet.service.SessionPrincipal;
 import cn.cuckoox.wisediet.service.SessionStore;
 import java.time.Duration;
 import org.junit.jupiter.api.Test;
@@ -22,6 +23,46 @@ class SessionStoreIntegrationTest extends AbstractIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldNotServeRevokedSessionFromNearCache() {
+        Mono<Long> flow = sessionStore.saveSession("jti-near", 43L, Duration.ofMinutes(15))
+                .then(sessionStore.userIdBySession("jti-near"))
+                .then(sessionStore.revokeUserSessions(43L))
+                .then(sessionStore.userIdBySession("jti-near"));
+
+        StepVerifier.create(flow)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldUpdateOnboardingStepInPlace() {
+        Mono<SessionPrincipal> flow = sessionStore.saveSession("jti-principal",
+                        new SessionPrincipal(44L, "p@test.com", 1, "USER"), Duration.ofMinutes(15))
+                .then(sessionStore.principalBySession("jti-principal"))
+                .then(sessionStore.updateOnboardingStep(44L, 0))
+                .then(sessionStore.principalBySession("jti-principal"));
+
+        StepVerifier.create(flow)
+                .expectNext(new SessionPrincipal(44L, "p@test.com", 0, "USER"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldPruneExpiredSessionIds() {
+        Mono<Long> flow = sessionStore.saveSession("jti-short", 45L, Duration.ofMillis(50))
+                .then(sessionStore.saveSession("jti-long", 45L, Duration.ofMinutes(15)))
+                .then(Mono.delay(Duration.ofMillis(200)))
+                .then(sessionStore.pruneExpiredSessions());
+
+        StepVerifier.create(flow)
+                .expectNextMatches(removed -> removed >= 1)
+                .verifyComplete();
+
+        StepVerifier.create(sessionStore.exists("jti-long"))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
     @Test
     void shouldSaveAndFindOAuthState() {
         Mono<Boolean> flow = sessionStore.saveOAuthState("test-state-123")
@@ -0,0 +1,98 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.model.Dish;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.MealPlan;
+import cn.cuckoox.wisediet.model.ShoppingItem;
+import cn.cuckoox.wisediet.model.ShoppingList;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.DishRepository;
+import cn.cuckoox.wisediet.repository.MealPlanRepository;
+import cn.cuckoox.wisediet.repository.ShoppingListRepository;
+import cn.cuckoox.wisediet.service.TodayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShoppingListIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired private TodayService todayService;
+    @Autowired private MealPlanRepository mealPlanRepository;
+    @Autowired private DishRepository dishRepository;
+    @Autowired private DishLibraryRepository dishLibraryRepository;
+    @Autowired private ShoppingListRepository shoppingListRepository;
+
+    private Mono<DishLibrary> recipe(String name, String ingredient, String aisle) {
+        return dishLibraryRepository.save(new DishLibrary(null, name + "-" + System.nanoTime(), "veggie_mixed",
+                1, 5, 5, 2, new DishIngredients(List.of(new Ingredient(ingredient, 100.0, aisle))),
+                DishSteps.EMPTY, null, null, true, null));
+    }
+
+    private Mono<Dish> dish(Long mealPlanId, DishLibrary recipe) {
+        return dishRepository.save(new Dish(null, mealPlanId, recipe.getName(), null, null, 1, 5, 5, null,
+                false, "lunch", recipe.getId()));
+    }
+
+    @Test
+    void shouldDropStaleAisleWrites_afterNewerReset() {
+        long planId = System.nanoTime() % 1_000_000_000L;
+        Mono<ShoppingList> flow = shoppingListRepository.reset(planId)
+                .flatMap(stale -> shoppingListRepository.reset(planId)
+                        .flatMap(current -> shoppingListRepository.putAisle(planId, stale, "produce", "[]")
+                                .doOnNext(rows -> assertThat(rows).isZero())
+                                .then(shoppingListRepository.markReady(planId, stale))
+                                .doOnNext(rows -> assertThat(rows).isZero())
+                                .then(shoppingListRepository.putAisle(planId, current, "meat", "[]"))
+                                .doOnNext(rows -> assertThat(rows).isOne())))
+                .then(shoppingListRepository.findById(planId));
+
+        StepVerifier.create(flow)
+                .assertNext(list -> {
+                    assertThat(list.getStatus()).isEqualTo("computing");
+                    assertThat(list.getGeneration()).isEqualTo(2L);
+                    assertThat(list.getAisles().aisles()).containsOnlyKeys("meat");
+                })
+                .verifyComplete();
+    }
+
+    /**
+     * 两道菜谱的食材放在不同分区：旧计算的迟到写入会在最终清单里多出 produce 分区。
+     */
+    @Test
+    void shouldKeepLatestSelection_whenConfirmedTwiceBackToBack() {
+        long userId = System.nanoTime() % 1_000_000_000L;
+        Mono<ShoppingList> flow = Mono.zip(recipe("番茄炒蛋", "番茄", "produce"), recipe("清炒菠菜", "菠菜", "greens"))
+                .flatMap(recipes -> mealPlanRepository.save(new MealPlan(null, userId, LocalDate.now(), "pending"))
+                        .flatMap(plan -> Mono.zip(dish(plan.getId(), recipes.getT1()), dish(plan.getId(), recipes.getT2())))
+                        .flatMap(dishes -> todayService.confirmMenu(userId, List.of(dishes.getT1().getId()))
+                                .then(todayService.confirmMenu(userId, List.of(dishes.getT2().getId())))))
+                .flatMap(plan -> Flux.interval(Duration.ofMillis(50))
+                        .concatMap(tick -> shoppingListRepository.findById(plan.id()))
+                        .filter(list -> "ready".equals(list.getStatus()) && list.getAisles().aisles().containsKey("greens"))
+                        .next()
+                        .delayElement(Duration.ofMillis(300))
+                        .then(shoppingListRepository.findById(plan.id())));
+
+        StepVerifier.create(flow)
+                .assertNext(list -> {
+                    assertThat(list.getStatus()).isEqualTo("ready");
+                    assertThat(list.getAisles().aisles()).containsOnlyKeys("greens");
+                    assertThat(list.getAisles().aisles().get("greens"))
+                            .extracting(ShoppingItem::name)
+                            .containsExactly("菠菜");
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+}
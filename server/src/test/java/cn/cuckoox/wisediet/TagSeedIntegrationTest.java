@@ -0,0 +1,122 @@
+package cn.cuckoox.wisediet;
+
+import cn.cuckoox.wisediet.model.AllergenTag;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.TagIds;
+import cn.cuckoox.wisediet.model.User;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.AllergenTagRepository;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import cn.cuckoox.wisediet.service.DishLibraryIndex;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ScriptUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 模拟重启：再次执行 data.sql 后标签 id 不变，过敏原过滤仍然生效；
+ * 旧版本遗留的漂移 id 按标签名合并回固定 id。
+ */
+class TagSeedIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired private ConnectionFactory connectionFactory;
+    @Autowired private DatabaseClient databaseClient;
+    @Autowired private AllergenTagRepository allergenTagRepository;
+    @Autowired private DishLibraryRepository dishLibraryRepository;
+    @Autowired private DishLibraryIndex dishLibraryIndex;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserProfileRepository userProfileRepository;
+
+    @BeforeEach
+    void cleanData() {
+        StepVerifier.create(dishLibraryRepository.deleteAll().then(userRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldKeepAllergenIdsAndExclusions_whenSeedDataRunsAgain() {
+        DishLibrary peanut = dish("花生拌菠菜", "花生", "菠菜");
+        DishLibrary tomato = dish("番茄炒蛋", "番茄", "鸡蛋");
+        UserProfile profile = new UserProfile();
+        profile.setAllergenTagIds(TagIds.of(1));
+
+        Mono<List<String>> flow = allergenIds()
+                .flatMap(before -> dishLibraryRepository.save(peanut)
+                        .then(dishLibraryRepository.save(tomato))
+                        .then(reseed())
+                        .then(allergenIds())
+                        .doOnNext(after -> assertThat(after).isEqualTo(before)))
+                .then(dishLibraryIndex.rebuild())
+                .map(snapshot -> snapshot.select(snapshot.candidatesFor(profile)).stream()
+                        .map(DishLibrary::getName)
+                        .toList());
+
+        StepVerifier.create(flow)
+                .expectNext(List.of("番茄炒蛋"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRemapDriftedTagIds_whenSeedDataRunsAgain() {
+        Mono<Map<Long, String>> flow = databaseClient.sql("INSERT INTO allergen_tags (id, label, emoji, description, category) "
+                        + "VALUES (100, 'Peanuts', '🥜', 'Tree nuts included', 'nuts')")
+                .then()
+                .then(userRepository.save(new User(null, "seed@test.com", "google", "seed-" + System.nanoTime(), 0)))
+                .flatMap(user -> {
+                    UserProfile profile = new UserProfile();
+                    profile.setUserId(user.getId());
+                    profile.setGender("Male");
+                    profile.setAge(30);
+                    profile.setHeight(175.0);
+                    profile.setWeight(75.0);
+                    profile.setFamilyMembers(2);
+                    profile.setAllergenTagIds(TagIds.of(3, 100));
+                    return userProfileRepository.save(profile);
+                })
+                .flatMap(saved -> reseed().then(userProfileRepository.findByUserId(saved.getUserId())))
+                .doOnNext(profile -> assertThat(profile.getAllergenTagIds()).isEqualTo(TagIds.of(1, 3)))
+                .then(allergenTagRepository.findAll()
+                        .collect(Collectors.toMap(AllergenTag::getId, AllergenTag::getLabel)));
+
+        StepVerifier.create(flow)
+                .assertNext(tags -> assertThat(tags)
+                        .containsEntry(1L, "Peanuts")
+                        .containsEntry(3L, "Shellfish")
+                        .doesNotContainKey(100L)
+                        .hasSize(6))
+                .verifyComplete();
+    }
+
+    private Mono<Void> reseed() {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> ScriptUtils.executeSqlScript(connection, new ClassPathResource("data.sql")),
+                connection -> Mono.from(connection.close()));
+    }
+
+    private Mono<List<Long>> allergenIds() {
+        return allergenTagRepository.findAll().map(AllergenTag::getId).sort().collectList();
+    }
+
+    private static DishLibrary dish(String name, String... ingredients) {
+        DishIngredients items = new DishIngredients(List.of(ingredients).stream()
+                .map(item -> new Ingredient(item, 100.0, null))
+                .toList());
+        return new DishLibrary(null, name, "veggie_mixed", 2, 5, 10, 2, items, DishSteps.EMPTY, null, null, true, null);
+    }
+}
@@ -2,12 +2,17 @@ package cn.cuckoox.wisediet;
 
 import cn.cuckoox.wisediet.controller.dto.ConfirmMenuRequest;
 import cn.cuckoox.wisediet.controller.dto.MealPlanResponse;
+import cn.cuckoox.wisediet.controller.dto.PlanEvent;
+import cn.cuckoox.wisediet.controller.dto.ShoppingListResponse;
 import cn.cuckoox.wisediet.model.User;
 import cn.cuckoox.wisediet.repository.UserRepository;
 import cn.cuckoox.wisediet.service.JwtService;
 import cn.cuckoox.wisediet.service.SessionStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -175,6 +180,114 @@ class TodayApiIntegrationTest extends AbstractIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldServeShoppingListOnlyAfterConfirm() {
+        Mono<Boolean> flow = issueAuthenticatedToken(0)
+                .flatMap(token -> Mono.fromCallable(() -> {
+                    MealPlanResponse plan = webTestClient.get()
+                            .uri("/api/today/recommendations")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(MealPlanResponse.class)
+                            .returnResult()
+                            .getResponseBody();
+                    assertThat(plan).isNotNull();
+
+                    webTestClient.get()
+                            .uri("/api/today/shopping-list")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isNotFound();
+
+                    webTestClient.post()
+                            .uri("/api/today/confirm")
+                            .header("Authorization", "Bearer " + token)
+                            .bodyValue(new ConfirmMenuRequest(List.of(plan.dishes().get(0).getId())))
+                            .exchange()
+                            .expectStatus().isOk();
+
+                    webTestClient.get()
+                            .uri("/api/today/shopping-list")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(ShoppingListResponse.class)
+                            .value(list -> {
+                                assertThat(list.mealPlanId()).isEqualTo(plan.id());
+                                assertThat(list.status()).isIn("computing", "ready");
+                            });
+                    return true;
+                }).subscribeOn(Schedulers.boundedElastic()));
+
+        StepVerifier.create(flow)
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRollUpTodayNutritionOnConfirm() {
+        Mono<Boolean> flow = issueAuthenticatedToken(0)
+                .flatMap(token -> Mono.fromCallable(() -> {
+                    MealPlanResponse plan = webTestClient.get()
+                            .uri("/api/today/recommendations")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody(MealPlanResponse.class)
+                            .returnResult()
+                            .getResponseBody();
+                    assertThat(plan).isNotNull();
+
+                    webTestClient.post()
+                            .uri("/api/today/confirm")
+                            .header("Authorization", "Bearer " + token)
+                            .bodyValue(new ConfirmMenuRequest(List.of(plan.dishes().get(0).getId(), plan.dishes().get(1).getId())))
+                            .exchange()
+                            .expectStatus().isOk();
+
+                    webTestClient.get()
+                            .uri("/api/history/nutrition")
+                            .header("Authorization", "Bearer " + token)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectBody()
+                            .jsonPath("$.length()").isEqualTo(1)
+                            .jsonPath("$[0].date").isEqualTo(plan.date().toString())
+                            .jsonPath("$[0].dishCount").isEqualTo(2);
+                    return true;
+                }).subscribeOn(Schedulers.boundedElastic()));
+
+        StepVerifier.create(flow)
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldStreamPlanAsServerSentEvents() {
+        StepVerifier.create(issueAuthenticatedToken(0)
+                        .publishOn(Schedulers.boundedElastic())
+                        .flatMapMany(token -> webTestClient.get()
+                                .uri("/api/today/recommendations/stream")
+                                .header("Authorization", "Bearer " + token)
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .returnResult(new ParameterizedTypeReference<ServerSentEvent<PlanEvent>>() {})
+                                .getResponseBody())
+                        .collectList())
+                .assertNext(events -> {
+                    assertThat(events.get(0).event()).isEqualTo("status");
+                    assertThat(events.get(0).data().status()).isEqualTo(PlanEvent.PENDING);
+                    assertThat(events.stream().filter(e -> "dish".equals(e.event()))).hasSize(8);
+                    ServerSentEvent<PlanEvent> last = events.get(events.size() - 1);
+                    assertThat(last.data().status()).isEqualTo(PlanEvent.READY);
+                    assertThat(last.data().mealPlanId()).isNotNull();
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+    }
+
     private Mono<String> issueAuthenticatedToken(Integer onboardingStep) {
         String uniqueEmail = "today-api-" + System.nanoTime() + "@test.com";
         return userRepository.save(new User(null, uniqueEmail, "google", "today-api-provider-" + System.nanoTime(), onboardingStep))
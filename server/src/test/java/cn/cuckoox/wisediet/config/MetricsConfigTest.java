@@ -0,0 +1,49 @@
+package cn.cuckoox.wisediet.config;
+
+import cn.cuckoox.wisediet.metrics.TimedWebFilter;
+import cn.cuckoox.wisediet.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsConfigTest {
+
+    private final MetricsConfig config = new MetricsConfig();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldExposeTokenCacheHitsMissesAndSize() {
+        JwtProperties properties = new JwtProperties();
+        properties.setTokenCacheMaxSize(10);
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties);
+        config.tokenCacheMetrics(cache).bindTo(registry);
+        Jwt jwt = Jwt.withTokenValue("t").header("alg", "HS256").subject("1")
+                .expiresAt(Instant.now().plusSeconds(600)).build();
+
+        cache.resolve("t", token -> jwt);
+        cache.resolve("t", token -> jwt);
+        cache.resolve("t", token -> jwt);
+
+        assertThat(registry.get("wisediet.token.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("wisediet.token.cache.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("wisediet.token.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCapFilterEndpointTags() {
+        registry.config().meterFilter(config.filterEndpointCardinality());
+
+        for (int i = 0; i < MetricsConfig.MAX_ENDPOINTS + 50; i++) {
+            Timer.builder(TimedWebFilter.METRIC).tag("endpoint", "GET /probe-" + i).register(registry);
+        }
+
+        assertThat(registry.find(TimedWebFilter.METRIC).timers()).hasSize(MetricsConfig.MAX_ENDPOINTS);
+    }
+}
@@ -0,0 +1,132 @@
+package cn.cuckoox.wisediet.config;
+
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.Nutrients;
+import cn.cuckoox.wisediet.model.TagIds;
+import cn.cuckoox.wisediet.model.UserProfile;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class R2dbcConfigTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private static MappingR2dbcConverter converter() {
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(PostgresDialect.INSTANCE, R2dbcConfig.converters(JSON));
+        R2dbcMappingContext context = new R2dbcMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        return new MappingR2dbcConverter(context, conversions);
+    }
+
+    @Test
+    void shouldWriteTagIdsAsBigintArray() {
+        UserProfile profile = new UserProfile();
+        profile.setAllergenTagIds(TagIds.parse("3, 1,3"));
+
+        OutboundRow row = new OutboundRow();
+        converter().write(profile, row);
+
+        assertThat(row.get(SqlIdentifier.quoted("ALLERGEN_TAG_IDS")).getValue()).isEqualTo(new Long[]{1L, 3L});
+    }
+
+    @Test
+    void shouldReadBigintArrayIntoTagIds() {
+        Row row = mock(Row.class);
+        RowMetadata metadata = mock(RowMetadata.class);
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(column.getName()).thenReturn("dietary_preference_tag_ids");
+        doReturn(List.of(column)).when(metadata).getColumnMetadatas();
+        when(row.get("dietary_preference_tag_ids")).thenReturn(new Long[]{4L, 2L});
+
+        UserProfile profile = converter().read(UserProfile.class, row, metadata);
+
+        assertThat(profile.getDietaryPreferenceTagIds()).isEqualTo(TagIds.of(2, 4));
+        assertThat(profile.getDietaryPreferenceTagIds().contains(4)).isTrue();
+        assertThat(profile.getDietaryPreferenceTagIds().contains(3)).isFalse();
+    }
+
+    @Test
+    void shouldKeepCommaSeparatedJsonFormat() {
+        JsonMapper jsonMapper = JSON;
+
+        UserProfile profile = jsonMapper.readValue("{\"occupationTagIds\":\"5,1\",\"allergenTagIds\":\"\"}", UserProfile.class);
+
+        assertThat(profile.getOccupationTagIds()).isEqualTo(TagIds.of(1, 5));
+        assertThat(profile.getAllergenTagIds().isEmpty()).isTrue();
+        assertThat(jsonMapper.writeValueAsString(profile)).contains("\"occupationTagIds\":\"1,5\"");
+        assertThatThrownBy(() -> TagIds.parse("1,x")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void shouldWriteDishJsonColumnsAsJsonb() {
+        DishLibrary dish = new DishLibrary();
+        dish.setIngredients(new DishIngredients(List.of(new Ingredient("虾仁", 200.0, "seafood"))));
+        dish.setSteps(new DishSteps(List.of("焯水", "翻炒")));
+        dish.setNutrients(new Nutrients(180.0, 24.0, null, 6.0));
+
+        OutboundRow row = new OutboundRow();
+        converter().write(dish, row);
+
+        assertThat(row.get(SqlIdentifier.quoted("INGREDIENTS")).getValue()).isInstanceOf(Json.class);
+        assertThat(readJson(row, "INGREDIENTS", DishIngredients.class)).isEqualTo(dish.getIngredients());
+        assertThat(readJson(row, "STEPS", DishSteps.class)).isEqualTo(dish.getSteps());
+        assertThat(JSON.readTree(((Json) row.get(SqlIdentifier.quoted("NUTRIENTS")).getValue()).asArray()).propertyNames())
+                .containsExactly("kcal", "protein", "fat");
+    }
+
+    private static <T> T readJson(OutboundRow row, String column, Class<T> type) {
+        return JSON.readValue(((Json) row.get(SqlIdentifier.quoted(column)).getValue()).asArray(), type);
+    }
+
+    @Test
+    void shouldReadJsonbIntoTypedDishFields() {
+        Row row = mock(Row.class);
+        RowMetadata metadata = mock(RowMetadata.class);
+        ColumnMetadata ingredients = mock(ColumnMetadata.class);
+        ColumnMetadata nutrients = mock(ColumnMetadata.class);
+        when(ingredients.getName()).thenReturn("ingredients");
+        when(nutrients.getName()).thenReturn("nutrients");
+        doReturn(List.of(ingredients, nutrients)).when(metadata).getColumnMetadatas();
+        when(row.get("ingredients")).thenReturn(Json.of("[{\"item\":\"番茄\",\"amount\":300,\"unit\":\"g\"},{\"name\":\"盐\"},"
+                + "{\"item\":\"鸡蛋\",\"amount\":\"2\",\"unit\":\"个\"},{\"item\":\"牛肉\",\"amount\":0.5,\"unit\":\"kg\"},"
+                + "{\"item\":\"生抽\",\"amount\":1,\"unit\":\"tbsp\"},{\"item\":\"胡椒\",\"amount\":\"适量\"}]"));
+        when(row.get("nutrients")).thenReturn(Json.of("{\"calories\":150,\"protein_g\":8}"));
+
+        DishLibrary dish = converter().read(DishLibrary.class, row, metadata);
+
+        assertThat(dish.getIngredients().items())
+                .containsExactly(new Ingredient("番茄", 300.0, null), new Ingredient("盐", null, null),
+                        new Ingredient("鸡蛋", null, 2.0, "个", null), new Ingredient("牛肉", 500.0, null),
+                        new Ingredient("生抽", null, 1.0, "tbsp", null), new Ingredient("胡椒", null, null, "适量", null));
+        assertThat(dish.getNutrients()).isEqualTo(new Nutrients(150.0, 8.0, null, null));
+    }
+
+    @Test
+    void shouldExposeJsonbWritersToConversionService() {
+        DishSteps steps = new DishSteps(List.of("切块", "翻炒"));
+        Json json = converter().getConversionService().convert(steps, Json.class);
+
+        assertThat(JSON.readValue(json.asArray(), DishSteps.class)).isEqualTo(steps);
+    }
+}
@@ -0,0 +1,86 @@
+package cn.cuckoox.wisediet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServiceTimingPostProcessorTest {
+
+    @Service
+    static class SampleService {
+
+        Mono<String> find(String id) {
+            return Mono.just("dish-" + id);
+        }
+
+        Flux<Integer> stream() {
+            return Flux.range(1, 10);
+        }
+
+        Mono<Void> fail() {
+            return Mono.error(new IllegalStateException("boom"));
+        }
+
+        int compute() {
+            throw new IllegalArgumentException("bad");
+        }
+    }
+
+    static class PlainComponent {
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ServiceTimingPostProcessor postProcessor() {
+        DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+        factory.registerSingleton("meterRegistry", registry);
+        ObjectProvider<MeterRegistry> provider = factory.getBeanProvider(MeterRegistry.class);
+        return new ServiceTimingPostProcessor(provider);
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.find(ServiceTimingPostProcessor.METRIC)
+                .tag("class", "SampleService")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    @Test
+    void shouldTimeReactiveServiceMethodsFromSubscription() {
+        SampleService service = (SampleService) postProcessor()
+                .postProcessAfterInitialization(new SampleService(), "sampleService");
+        assertThat(AopUtils.isCglibProxy(service)).isTrue();
+
+        Mono<String> assembled = service.find("1");
+        assertThat(registry.find(ServiceTimingPostProcessor.METRIC).timers()).isEmpty();
+
+        StepVerifier.create(assembled).expectNext("dish-1").verifyComplete();
+        StepVerifier.create(service.stream().take(3)).expectNextCount(3).verifyComplete();
+        StepVerifier.create(service.fail()).verifyError(IllegalStateException.class);
+        assertThatThrownBy(service::compute).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(timer("find", "success").count()).isEqualTo(1);
+        assertThat(timer("stream", "cancelled").count()).isEqualTo(1);
+        assertThat(timer("fail", "error").count()).isEqualTo(1);
+        assertThat(timer("compute", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveOtherBeansUntouched() {
+        PlainComponent bean = new PlainComponent();
+
+        assertThat(postProcessor().postProcessAfterInitialization(bean, "plain")).isSameAs(bean);
+    }
+}
@@ -0,0 +1,88 @@
+package cn.cuckoox.wisediet.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimedWebFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private Timer timer(String outcome) {
+        return registry.find(TimedWebFilter.METRIC).tag("filter", "test").tag("outcome", outcome).timer();
+    }
+
+    @Test
+    void shouldStopTimingWhenFilterPassesToChain() {
+        WebFilter passThrough = (exchange, chain) -> chain.filter(exchange);
+        WebFilterChain slowChain = exchange -> Mono.delay(Duration.ofMillis(200)).then();
+
+        StepVerifier.create(new TimedWebFilter("test", passThrough, registry)
+                        .filter(exchange("/api/today/dishes/42/select"), slowChain))
+                .verifyComplete();
+
+        Timer timer = timer("passed");
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(java.util.concurrent.TimeUnit.MILLISECONDS)).isLessThan(200);
+        assertThat(timer.getId().getTag("endpoint")).isEqualTo("GET /api/today/dishes/{id}/select");
+    }
+
+    @Test
+    void shouldRecordRejectedWhenFilterAnswersWithError() {
+        WebFilter reject = (exchange, chain) -> {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        };
+
+        StepVerifier.create(new TimedWebFilter("test", reject, registry)
+                        .filter(exchange("/api/today"), exchange -> Mono.empty()))
+                .verifyComplete();
+
+        assertThat(timer("rejected").count()).isEqualTo(1);
+        assertThat(timer("passed")).isNull();
+    }
+
+    @Test
+    void shouldNotCountEagerlyAssembledChainUntilSubscribed() {
+        WebFilter eager = (exchange, chain) -> {
+            Mono<Void> fallback = chain.filter(exchange);
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete().onErrorResume(ex -> fallback);
+        };
+
+        StepVerifier.create(new TimedWebFilter("test", eager, registry)
+                        .filter(exchange("/api/today"), exchange -> Mono.empty()))
+                .verifyComplete();
+
+        assertThat(timer("rejected").count()).isEqualTo(1);
+        assertThat(timer("passed")).isNull();
+    }
+
+    @Test
+    void shouldRecordErrorOnce() {
+        WebFilter failing = (exchange, chain) -> Mono.error(new IllegalStateException("boom"));
+
+        StepVerifier.create(new TimedWebFilter("test", failing, registry)
+                        .filter(exchange("/api/today"), exchange -> Mono.empty()))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(timer("error").count()).isEqualTo(1);
+        assertThat(registry.find(TimedWebFilter.METRIC).timers()).hasSize(1);
+    }
+}
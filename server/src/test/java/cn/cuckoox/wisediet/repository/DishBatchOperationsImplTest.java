@@ -0,0 +1,28 @@
+package cn.cuckoox.wisediet.repository;
+
+import cn.cuckoox.wisediet.model.Dish;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DishBatchOperationsImplTest {
+
+    private static Dish dish(Long id, String name, String mealType, Long dishLibraryId) {
+        return new Dish(id, 100L, name, null, null, 1, 5, 5, null, null, mealType, dishLibraryId);
+    }
+
+    @Test
+    void shouldReturnInsertedRowsInInputOrder_whenReturningOrderDiffers() {
+        List<Dish> input = List.of(dish(null, "白粥", "breakfast", 1L), dish(null, "番茄炒蛋", "lunch", 2L),
+                dish(null, "清炒时蔬", "dinner", 3L));
+        List<Dish> returned = List.of(dish(12L, "清炒时蔬", "dinner", 3L), dish(10L, "白粥", "breakfast", 1L),
+                dish(11L, "番茄炒蛋", "lunch", 2L));
+        returned.forEach(row -> row.setSelected(false));
+
+        assertThat(DishBatchOperationsImpl.inInputOrder(input, returned))
+                .extracting(Dish::getId)
+                .containsExactly(10L, 11L, 12L);
+    }
+}
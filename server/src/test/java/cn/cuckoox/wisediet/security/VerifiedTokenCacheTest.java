@@ -0,0 +1,91 @@
+package cn.cuckoox.wisediet.security;
+
+import cn.cuckoox.wisediet.config.JwtProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject("42")
+                .jti("jti-" + token)
+                .claim("role", "USER")
+                .issuedAt(expiresAt.minusSeconds(900))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static VerifiedTokenCache cache(int maxSize) {
+        JwtProperties properties = new JwtProperties();
+        properties.setTokenCacheMaxSize(maxSize);
+        return new VerifiedTokenCache(properties);
+    }
+
+    @Test
+    void shouldDecodeOncePerToken() {
+        VerifiedTokenCache cache = cache(100);
+        AtomicInteger decodes = new AtomicInteger();
+        Instant exp = Instant.now().plusSeconds(600);
+
+        for (int i = 0; i < 3; i++) {
+            Jwt resolved = cache.resolve("token-a", token -> {
+                decodes.incrementAndGet();
+                return jwt(token, exp);
+            });
+            assertThat(resolved.getId()).isEqualTo("jti-token-a");
+        }
+
+        assertThat(decodes).hasValue(1);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDecodeAgainAfterTokenExpires() {
+        VerifiedTokenCache cache = cache(100);
+        AtomicInteger decodes = new AtomicInteger();
+
+        cache.resolve("token-b", token -> {
+            decodes.incrementAndGet();
+            return jwt(token, Instant.now().minusSeconds(1));
+        });
+        cache.resolve("token-b", token -> {
+            decodes.incrementAndGet();
+            return jwt(token, Instant.now().plusSeconds(600));
+        });
+
+        assertThat(decodes).hasValue(2);
+        assertThat(cache.hitCount()).isZero();
+    }
+
+    @Test
+    void shouldNotCacheRejectedTokens() {
+        VerifiedTokenCache cache = cache(100);
+
+        assertThatThrownBy(() -> cache.resolve("bad", token -> {
+            throw new IllegalArgumentException("invalid signature");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldStayWithinMaxSize() {
+        VerifiedTokenCache cache = cache(10);
+        Instant exp = Instant.now().plusSeconds(600);
+
+        for (int i = 0; i < 50; i++) {
+            cache.resolve("token-" + i, token -> jwt(token, exp));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+}
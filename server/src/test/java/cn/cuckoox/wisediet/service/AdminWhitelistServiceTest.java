@@ -0,0 +1,67 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.SessionProperties;
+import cn.cuckoox.wisediet.model.AdminWhitelist;
+import cn.cuckoox.wisediet.repository.AdminWhitelistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdminWhitelistServiceTest {
+
+    private final AdminWhitelistRepository adminWhitelistRepository = mock(AdminWhitelistRepository.class);
+    private final AdminWhitelistService service = new AdminWhitelistService(adminWhitelistRepository,
+            mock(ReactiveStringRedisTemplate.class), mock(SessionStore.class), new SessionProperties());
+
+    @Test
+    void shouldLoadWhitelistOnceAndAnswerFromMemory() {
+        when(adminWhitelistRepository.findAll()).thenReturn(Flux.just(new AdminWhitelist(1L, 42L)));
+
+        assertThat(service.isAdmin(42L).block()).isTrue();
+        assertThat(service.isAdmin(7L).block()).isFalse();
+        assertThat(service.isAdmin(42L).block()).isTrue();
+
+        verify(adminWhitelistRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldRequireAdminRoleClaim() {
+        when(adminWhitelistRepository.findAll()).thenReturn(Flux.just(new AdminWhitelist(1L, 42L)));
+
+        assertThat(service.hasAdminAccess(42L, AdminWhitelistService.ROLE_ADMIN).block()).isTrue();
+        assertThat(service.hasAdminAccess(42L, "USER").block()).isFalse();
+        assertThat(service.hasAdminAccess(42L, null).block()).isFalse();
+        assertThat(service.hasAdminAccess(7L, AdminWhitelistService.ROLE_ADMIN).block()).isFalse();
+    }
+
+    @Test
+    void shouldReloadPeriodically_whenInvalidationMessageIsMissed() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        when(redisTemplate.listenToChannel(anyString())).thenReturn(Flux.never());
+        AdminWhitelistService periodic = new AdminWhitelistService(adminWhitelistRepository,
+                redisTemplate, mock(SessionStore.class), new SessionProperties());
+        when(adminWhitelistRepository.findAll())
+                .thenReturn(Flux.just(new AdminWhitelist(1L, 42L)))
+                .thenReturn(Flux.empty());
+        try {
+            periodic.subscribeInvalidations();
+            assertThat(periodic.isAdmin(42L).block()).isTrue();
+
+            scheduler.advanceTimeBy(new SessionProperties().getAdminReloadInterval());
+
+            assertThat(periodic.isAdmin(42L).block()).isFalse();
+        } finally {
+            periodic.unsubscribeInvalidations();
+            VirtualTimeScheduler.reset();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cn.cuckoox.wisediet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DishCsvTest {
+
+    @Test
+    void shouldQuoteOnlyCellsThatNeedIt() {
+        String line = DishCsv.line(Arrays.asList("1", "番茄, 炒蛋", null, "[\"高蛋白\"]", "a\nb"));
+
+        assertThat(line).isEqualTo("1,\"番茄, 炒蛋\",,\"[\"\"高蛋白\"\"]\",\"a\nb\"\n");
+    }
+
+    @Test
+    void shouldSplitWhatLineWrites() {
+        List<String> cells = List.of("1", "番茄, 炒蛋", "", "[\"高蛋白\"]", "a\nb");
+        String line = DishCsv.line(cells);
+        String record = line.substring(0, line.length() - 1);
+
+        assertThat(DishCsv.isOpen(record)).isFalse();
+        assertThat(DishCsv.split(record)).isEqualTo(cells);
+    }
+
+    @Test
+    void shouldDetectRecordsContinuingOnNextLine() {
+        assertThat(DishCsv.isOpen("1,\"a")).isTrue();
+        assertThat(DishCsv.isOpen("1,\"a\nb\"")).isFalse();
+    }
+
+    @Test
+    void shouldRejectMalformedQuotes() {
+        assertThatThrownBy(() -> DishCsv.split("\"a\"b,c"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DishCsv.split("\"abc"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
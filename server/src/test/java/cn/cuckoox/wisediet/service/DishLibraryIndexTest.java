@@ -0,0 +1,149 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.RecommendationProperties;
+import cn.cuckoox.wisediet.model.AllergenTag;
+import cn.cuckoox.wisediet.model.DietaryPreferenceTag;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.TagIds;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.AllergenTagRepository;
+import cn.cuckoox.wisediet.repository.DietaryPreferenceTagRepository;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DishLibraryIndexTest {
+
+    private final DishLibraryRepository dishLibraryRepository = mock(DishLibraryRepository.class);
+    private final AllergenTagRepository allergenTagRepository = mock(AllergenTagRepository.class);
+    private final DietaryPreferenceTagRepository dietaryPreferenceTagRepository = mock(DietaryPreferenceTagRepository.class);
+
+    private DishLibraryIndex.Snapshot snapshot(DishLibrary... dishes) {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(1L));
+        when(dishLibraryRepository.findAllActive()).thenReturn(Flux.just(dishes));
+        when(allergenTagRepository.findAll()).thenReturn(Flux.just(
+                new AllergenTag(1L, "Peanuts", null, null, "nuts"),
+                new AllergenTag(3L, "Shellfish", null, null, "seafood")));
+        when(dietaryPreferenceTagRepository.findAll()).thenReturn(Flux.just(
+                new DietaryPreferenceTag(1L, "Vegetarian", null)));
+        return new DishLibraryIndex(dishLibraryRepository, allergenTagRepository, dietaryPreferenceTagRepository,
+                JsonMapper.builder().build(), new RecommendationProperties()).rebuild().block();
+    }
+
+    private static DishLibrary dish(long id, String category, String tags, String... ingredients) {
+        DishIngredients items = new DishIngredients(Arrays.stream(ingredients)
+                .map(name -> new Ingredient(name, null, null))
+                .toList());
+        return new DishLibrary(id, "Dish " + id, category, 2, 5, 10, 2, items, DishSteps.EMPTY, tags, null, true, null);
+    }
+
+    private static UserProfile profile(String allergens, String preferences, String avoided) {
+        UserProfile profile = new UserProfile();
+        profile.setAllergenTagIds(TagIds.parse(allergens));
+        profile.setDietaryPreferenceTagIds(TagIds.parse(preferences));
+        profile.setCustomAvoidedIngredients(avoided);
+        return profile;
+    }
+
+    @Test
+    void shouldExcludeAllergensAvoidedIngredientsAndDietRules() {
+        DishLibraryIndex.Snapshot snapshot = snapshot(
+                dish(10, "seafood", "High Protein", "虾仁"),
+                dish(11, "veggie_leafy", "[\"Vegetarian\",\"Iron\"]", "菠菜", "花生"),
+                dish(12, "veggie_mixed", "Vegetarian,Fiber", "Cilantro", "Tomato"),
+                dish(13, "meat_red", "High Protein", "Beef"));
+
+        assertThat(snapshot.select(snapshot.candidatesFor(null))).hasSize(4);
+        assertThat(snapshot.select(snapshot.candidatesFor(profile("1,3", null, null))))
+                .extracting(DishLibrary::getId).containsExactly(12L, 13L);
+        assertThat(snapshot.select(snapshot.candidatesFor(profile(null, "1", null))))
+                .extracting(DishLibrary::getId).containsExactly(11L, 12L);
+        assertThat(snapshot.select(snapshot.candidatesFor(profile(null, "1", "cilantro"))))
+                .extracting(DishLibrary::getId).containsExactly(11L);
+        BitSet allowed = snapshot.candidatesFor(profile("1", "1", null));
+        assertThat(snapshot.select(snapshot.preferredFor(profile("1", "1", null), allowed)))
+                .extracting(DishLibrary::getId).containsExactly(12L);
+        assertThat(snapshot.select(snapshot.withTag("high protein")))
+                .extracting(DishLibrary::getId).containsExactly(10L, 13L);
+        assertThat(snapshot.inCategory("meat_red").cardinality()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepVegetarianPeanutAllergicUserOffMeatAndPeanuts_whenNoDishIsTaggedVegetarian() {
+        DishLibraryIndex.Snapshot snapshot = snapshot(
+                dish(30, "meat_poultry", "High Protein", "Chicken Breast", "Rice"),
+                dish(31, "veggie_mixed", "Fiber", "Peanuts", "Celery"),
+                dish(32, "veggie_mixed", "Fiber", "Eggplant", "Garlic"),
+                dish(33, "soup", "Healthy Fats", "Coconut Milk", "Nutmeg", "Pumpkin"),
+                dish(34, "staple_grain", "Energy", "米饭", "鸡肉"),
+                dish(35, "veggie_mixed", "Iron", "Tofu", "Peanut Butter"),
+                dish(36, "seafood", "Omega-3", "Salmon"));
+        UserProfile profile = profile("1", "1", null);
+
+        BitSet allowed = snapshot.candidatesFor(profile);
+
+        assertThat(snapshot.select(allowed)).extracting(DishLibrary::getId).containsExactly(32L, 33L);
+        assertThat(snapshot.select(snapshot.preferredFor(profile, allowed)))
+                .extracting(DishLibrary::getId).containsExactly(32L, 33L);
+    }
+
+    @Test
+    void shouldMatchLatinKeywordsOnWholeWords() {
+        assertThat(DishLibraryIndex.mentions("eggplant", "egg")).isFalse();
+        assertThat(DishLibraryIndex.mentions("boiled eggs", "egg")).isTrue();
+        assertThat(DishLibraryIndex.mentions("coconut milk", "nut")).isFalse();
+        assertThat(DishLibraryIndex.mentions("mixed nuts", "nut")).isTrue();
+        assertThat(DishLibraryIndex.mentions("peanut butter", "peanut")).isTrue();
+        assertThat(DishLibraryIndex.mentions("meat_red", "meat")).isTrue();
+        assertThat(DishLibraryIndex.mentions("鸡蛋", "蛋")).isTrue();
+    }
+
+    @Test
+    void shouldIgnoreMissingIngredientsAndUnknownIds() {
+        DishLibrary withoutIngredients = dish(20, "soup_clear", null);
+        withoutIngredients.setIngredients(null);
+        DishLibraryIndex.Snapshot snapshot = snapshot(
+                withoutIngredients,
+                dish(21, "staple_rice", null, " ", null));
+
+        assertThat(snapshot.select(snapshot.candidatesFor(profile("99", "", " ")))).hasSize(2);
+        assertThat(snapshot.get(21L).getCategory()).isEqualTo("staple_rice");
+        assertThat(snapshot.get(99L)).isNull();
+    }
+
+    @Test
+    void shouldRebuildOnlyWhenDatabaseVersionAdvances() {
+        snapshot(dish(1, "veggie_mixed", null, "tomato"));
+        DishLibraryIndex index = new DishLibraryIndex(dishLibraryRepository, allergenTagRepository,
+                dietaryPreferenceTagRepository, JsonMapper.builder().build(), new RecommendationProperties());
+        StepVerifier.create(index.rebuild()).expectNextCount(1).verifyComplete();
+
+        StepVerifier.create(index.refreshIfStale()).verifyComplete();
+        verify(dishLibraryRepository, times(2)).findAllActive();
+
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(2L));
+        when(dishLibraryRepository.findAllActive()).thenReturn(Flux.just(dish(2, "veggie_mixed", null, "spinach")));
+        StepVerifier.create(index.refreshIfStale().then(Mono.defer(index::current)))
+                .assertNext(snapshot -> {
+                    assertThat(snapshot.version()).isEqualTo(2L);
+                    assertThat(snapshot.get(1L)).isNull();
+                    assertThat(snapshot.get(2L)).isNotNull();
+                })
+                .verifyComplete();
+    }
+}
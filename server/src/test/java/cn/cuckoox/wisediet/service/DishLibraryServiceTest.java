@@ -0,0 +1,98 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.DishLibraryRequest;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Nutrients;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DishLibraryServiceTest {
+
+    private final DishLibraryRepository dishLibraryRepository = mock(DishLibraryRepository.class);
+    private final DishLibraryIndex dishLibraryIndex = mock(DishLibraryIndex.class);
+    private final NutritionHistoryService nutritionHistoryService = mock(NutritionHistoryService.class);
+
+    private DishLibraryService service() {
+        when(dishLibraryRepository.countAll()).thenReturn(Mono.just(1L));
+        when(dishLibraryRepository.countActive()).thenReturn(Mono.just(1L));
+        when(dishLibraryIndex.rebuild()).thenReturn(Mono.empty());
+        return new DishLibraryService(dishLibraryRepository, dishLibraryIndex, nutritionHistoryService);
+    }
+
+    private static DishLibraryRequest request(String name) {
+        return new DishLibraryRequest(name, "veggie_mixed", null, null, null, null, null, null, null, null);
+    }
+
+    @Test
+    void shouldReturnConflict_whenCreatingDuplicateName() {
+        DishLibraryService service = service();
+        when(dishLibraryRepository.save(any(DishLibrary.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("uk_dish_library_name")));
+
+        StepVerifier.create(service.create(request("番茄炒蛋")))
+                .expectErrorSatisfies(ex -> {
+                    assertThat(ex).isInstanceOf(ResponseStatusException.class);
+                    assertThat(((ResponseStatusException) ex).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(ex.getMessage()).contains("番茄炒蛋");
+                })
+                .verify();
+    }
+
+    @Test
+    void shouldReturnConflict_whenRenamingToExistingName() {
+        DishLibraryService service = service();
+        when(dishLibraryRepository.findById(5L)).thenReturn(Mono.just(new DishLibrary(5L, "清炒时蔬", "veggie_leafy",
+                2, 5, 10, 2, DishIngredients.EMPTY, DishSteps.EMPTY, null, null, true, null)));
+        when(dishLibraryRepository.save(any(DishLibrary.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("uk_dish_library_name")));
+
+        StepVerifier.create(service.update(5L, request("番茄炒蛋")))
+                .expectErrorSatisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode())
+                        .isEqualTo(HttpStatus.CONFLICT))
+                .verify();
+    }
+
+    @Test
+    void shouldDecodeCursorOnSubscribe() {
+        DishLibraryService service = service();
+
+        Mono<?> page = service.findPage("not-a-cursor", 20, false);
+
+        StepVerifier.create(page)
+                .expectErrorSatisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode())
+                        .isEqualTo(HttpStatus.BAD_REQUEST))
+                .verify();
+    }
+
+    @Test
+    void shouldRefreshNutritionInBackground_whenNutrientsChangeOrDishIsDeleted() {
+        DishLibraryService service = service();
+        DishLibrary entity = new DishLibrary(5L, "清炒时蔬", "veggie_leafy",
+                2, 5, 10, 2, DishIngredients.EMPTY, DishSteps.EMPTY, null, null, true, null);
+        when(dishLibraryRepository.findById(5L)).thenReturn(Mono.just(entity));
+        when(dishLibraryRepository.save(any(DishLibrary.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(dishLibraryRepository.deleteById(5L)).thenReturn(Mono.empty());
+        DishLibraryRequest request = new DishLibraryRequest("清炒时蔬", "veggie_leafy", null, null, null, null,
+                null, null, null, new Nutrients(120.0, 3.0, 8.0, 5.0));
+
+        StepVerifier.create(service.update(5L, request).then(service.delete(5L))).verifyComplete();
+
+        verify(nutritionHistoryService, times(2)).refreshDishLibraryAsync(5L);
+        verify(nutritionHistoryService, never()).refreshDishLibrary(any());
+    }
+}
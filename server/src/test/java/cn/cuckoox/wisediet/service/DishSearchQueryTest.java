@@ -0,0 +1,24 @@
+package cn.cuckoox.wisediet.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DishSearchQueryTest {
+
+    @Test
+    void shouldPrefixMatchEveryTerm() {
+        assertThat(DishSearchQuery.prefixTsQuery("  番茄  Egg ")).isEqualTo("番茄:* & egg:*");
+    }
+
+    @Test
+    void shouldDropTsQuerySyntax() {
+        assertThat(DishSearchQuery.prefixTsQuery("beef & !(pork:*) |")).isEqualTo("beef:* & pork:*");
+        assertThat(DishSearchQuery.prefixTsQuery("&& ||")).isEmpty();
+    }
+
+    @Test
+    void shouldEscapeLikeWildcards() {
+        assertThat(DishSearchQuery.likePattern(" 100%_\\ ")).isEqualTo("%100\\%\\_\\\\%");
+    }
+}
@@ -0,0 +1,76 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.DishSyncResponse;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DishSyncServiceTest {
+
+    private final DishLibraryRepository dishLibraryRepository = mock(DishLibraryRepository.class);
+    private final DishSyncService service = new DishSyncService(dishLibraryRepository);
+
+    private static DishLibrary dish(long id, boolean active) {
+        return new DishLibrary(id, "Dish " + id, "veggie_mixed", 2, 5, 10, 2,
+                DishIngredients.EMPTY, DishSteps.EMPTY, null, null, active, null);
+    }
+
+    @Test
+    void shouldReturnActiveSnapshot_onFirstSync() {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(7L));
+        when(dishLibraryRepository.findActiveUpTo(7L)).thenReturn(Flux.just(dish(1, true), dish(2, true)));
+
+        DishSyncResponse response = service.changesSince(0).block();
+
+        assertThat(response.version()).isEqualTo(7L);
+        assertThat(response.reset()).isTrue();
+        assertThat(response.upserts()).extracting(DishSyncResponse.SyncedDish::id).containsExactly(1L, 2L);
+        assertThat(response.deleted()).isEmpty();
+    }
+
+    @Test
+    void shouldReturnChangesAndTreatDeactivatedAsDeleted() {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(12L));
+        when(dishLibraryRepository.findChangedBetween(7L, 12L)).thenReturn(Flux.just(dish(1, true), dish(3, false)));
+        when(dishLibraryRepository.findDeletedIdsBetween(7L, 12L)).thenReturn(Flux.just(2L));
+
+        DishSyncResponse response = service.changesSince(7).block();
+
+        assertThat(response.version()).isEqualTo(12L);
+        assertThat(response.reset()).isFalse();
+        assertThat(response.upserts()).extracting(DishSyncResponse.SyncedDish::id).containsExactly(1L);
+        assertThat(response.deleted()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void shouldSkipQueries_whenClientIsCurrent() {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(12L));
+
+        DishSyncResponse response = service.changesSince(12).block();
+
+        assertThat(response.upserts()).isEmpty();
+        assertThat(response.deleted()).isEmpty();
+        verify(dishLibraryRepository, never()).findChangedBetween(12L, 12L);
+    }
+
+    @Test
+    void shouldResetClient_whenItIsAheadOfServer() {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(3L));
+        when(dishLibraryRepository.findActiveUpTo(3L)).thenReturn(Flux.just(dish(1, true)));
+
+        DishSyncResponse response = service.changesSince(40).block();
+
+        assertThat(response.reset()).isTrue();
+        assertThat(response.version()).isEqualTo(3L);
+    }
+}
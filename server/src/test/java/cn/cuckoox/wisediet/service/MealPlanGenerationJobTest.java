@@ -0,0 +1,55 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.PlanGenerationProperties;
+import cn.cuckoox.wisediet.controller.dto.PlanGenerationStatus;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MealPlanGenerationJobTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TodayService todayService;
+
+    @Test
+    void shouldPageThroughOnboardedUsersAndCountOutcomes() {
+        PlanGenerationProperties properties = new PlanGenerationProperties();
+        properties.setBatchSize(2);
+        properties.setParallelism(2);
+        MealPlanGenerationJob job = new MealPlanGenerationJob(userRepository, todayService, properties);
+        LocalDate date = LocalDate.of(2026, 3, 1);
+
+        when(userRepository.findOnboardedIdsAfter(0L, 1, 0, 2)).thenReturn(Flux.just(1L, 2L));
+        when(userRepository.findOnboardedIdsAfter(2L, 1, 0, 2)).thenReturn(Flux.just(3L, 4L));
+        when(userRepository.findOnboardedIdsAfter(4L, 1, 0, 2)).thenReturn(Flux.just(5L));
+        when(todayService.ensurePlan(anyLong(), eq(date))).thenReturn(Mono.just(true));
+        when(todayService.ensurePlan(eq(2L), any(LocalDate.class))).thenReturn(Mono.just(false));
+        when(todayService.ensurePlan(eq(4L), any(LocalDate.class))).thenReturn(Mono.error(new IllegalStateException("db down")));
+
+        StepVerifier.create(job.generate(date)).verifyComplete();
+
+        PlanGenerationStatus status = job.status();
+        assertThat(status.running()).isFalse();
+        assertThat(status.date()).isEqualTo(date);
+        assertThat(status.processed()).isEqualTo(5);
+        assertThat(status.created()).isEqualTo(3);
+        assertThat(status.failed()).isEqualTo(1);
+        assertThat(status.finishedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,35 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.repository.DailyNutritionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NutritionHistoryServiceTest {
+
+    private final DailyNutritionRepository dailyNutritionRepository = mock(DailyNutritionRepository.class);
+    private final NutritionHistoryService service = new NutritionHistoryService(dailyNutritionRepository);
+
+    @Test
+    void shouldRefreshAffectedPlansInBatches() {
+        when(dailyNutritionRepository.findSelectedPlanIds(5L))
+                .thenReturn(Flux.range(1, NutritionHistoryService.REFRESH_BATCH + 1).map(Long::valueOf));
+        when(dailyNutritionRepository.refreshPlans(any())).thenAnswer(inv -> Mono.just(inv.<Long[]>getArgument(0).length));
+
+        StepVerifier.create(service.refreshDishLibrary(5L)).verifyComplete();
+
+        ArgumentCaptor<Long[]> batches = ArgumentCaptor.forClass(Long[].class);
+        verify(dailyNutritionRepository, times(2)).refreshPlans(batches.capture());
+        assertThat(batches.getAllValues()).extracting(batch -> batch.length)
+                .containsExactly(NutritionHistoryService.REFRESH_BATCH, 1);
+    }
+}
@@ -0,0 +1,60 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.controller.dto.ProfileUpdateRequest;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import cn.cuckoox.wisediet.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProfileServiceTest {
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SessionStore sessionStore = mock(SessionStore.class);
+    private final ProfileService service = new ProfileService(userProfileRepository, userRepository, sessionStore);
+
+    private static UserProfile profile(Long userId) {
+        UserProfile profile = new UserProfile();
+        profile.setId(3L);
+        profile.setUserId(userId);
+        profile.setWeight(75.0);
+        return profile;
+    }
+
+    @Test
+    void shouldSyncSessionsWithStoredStep_whenSavingOnboardingProfile() {
+        when(userProfileRepository.findByUserId(7L)).thenReturn(Mono.empty());
+        when(userProfileRepository.save(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(userRepository.completeOnboarding(7L)).thenReturn(Mono.just(0));
+        when(sessionStore.updateOnboardingStep(7L, 0)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.saveOnboardingProfile(7L, new UserProfile()))
+                .expectNextMatches(saved -> Long.valueOf(7L).equals(saved.getUserId()))
+                .verifyComplete();
+
+        verify(sessionStore).updateOnboardingStep(7L, 0);
+    }
+
+    @Test
+    void shouldSyncSessionsWithStoredStep_whenPatchingProfile() {
+        when(userProfileRepository.findByUserId(7L)).thenReturn(Mono.just(profile(7L)));
+        when(userProfileRepository.save(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(userRepository.completeOnboarding(7L)).thenReturn(Mono.just(0));
+        when(sessionStore.updateOnboardingStep(7L, 0)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.patchProfile(7L,
+                        new ProfileUpdateRequest(null, null, null, 70.0, null, null, null, null, null)))
+                .expectNextMatches(saved -> saved.getWeight() == 70.0)
+                .verifyComplete();
+
+        verify(userRepository).completeOnboarding(7L);
+        verify(sessionStore).updateOnboardingStep(7L, 0);
+    }
+}
@@ -0,0 +1,144 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.RecommendationProperties;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.AllergenTagRepository;
+import cn.cuckoox.wisediet.repository.DietaryPreferenceTagRepository;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationEngineTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 1);
+
+    private final DishLibraryRepository dishLibraryRepository = mock(DishLibraryRepository.class);
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final AllergenTagRepository allergenTagRepository = mock(AllergenTagRepository.class);
+    private final DietaryPreferenceTagRepository dietaryPreferenceTagRepository = mock(DietaryPreferenceTagRepository.class);
+
+    private RecommendationEngine engine(ChatModel chatModel, Duration timeout) {
+        when(dishLibraryRepository.currentVersion()).thenReturn(Mono.just(1L));
+        when(dishLibraryRepository.findAllActive()).thenReturn(Flux.fromStream(LongStream.rangeClosed(1, 12)
+                .mapToObj(id -> new DishLibrary(id, "Dish " + id, "veggie_mixed", 2, 5, 10, 2,
+                        DishIngredients.EMPTY, DishSteps.EMPTY, "Fiber", null, true, null))));
+        when(userProfileRepository.findByUserId(any())).thenReturn(Mono.empty());
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setTimeout(timeout);
+        when(allergenTagRepository.findAll()).thenReturn(Flux.empty());
+        when(dietaryPreferenceTagRepository.findAll()).thenReturn(Flux.empty());
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        DishLibraryIndex index = new DishLibraryIndex(dishLibraryRepository, allergenTagRepository,
+                dietaryPreferenceTagRepository, jsonMapper, properties);
+        return new RecommendationEngine(chatModel, index, userProfileRepository, jsonMapper, properties);
+    }
+
+    @Test
+    void shouldUseModelPicksFromStubModel() {
+        RecommendationEngine engine = engine(new StubChatModel(), Duration.ofSeconds(5));
+
+        StepVerifier.create(engine.recommend(1L, DATE))
+                .assertNext(picks -> {
+                    assertThat(picks).hasSize(8);
+                    assertThat(picks).extracting(pick -> pick.dish().getId())
+                            .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+                    assertThat(picks).extracting(RecommendationEngine.Pick::mealType)
+                            .containsExactly("breakfast", "breakfast", "lunch", "lunch", "snack", "snack", "dinner", "dinner");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldDropUnknownIdsAndFillFromRules() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("""
+                Sure! {"picks":[{"id":999,"meal":"breakfast","reason":"made up"},
+                {"id":3,"meal":"lunch","reason":"Light and quick"},
+                {"id":3,"meal":"dinner","reason":"duplicate"}]}
+                """));
+        RecommendationEngine engine = engine(chatModel, Duration.ofSeconds(5));
+
+        StepVerifier.create(engine.recommend(1L, DATE))
+                .assertNext(picks -> {
+                    assertThat(picks).hasSize(8);
+                    assertThat(picks).extracting(pick -> pick.dish().getId()).doesNotHaveDuplicates();
+                    assertThat(picks).filteredOn(pick -> pick.dish().getId() == 3L)
+                            .singleElement()
+                            .satisfies(pick -> {
+                                assertThat(pick.mealType()).isEqualTo("lunch");
+                                assertThat(pick.reason()).isEqualTo("Light and quick");
+                            });
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFallBackDeterministically_whenModelIsSlow() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return response("{\"picks\":[]}");
+        });
+        RecommendationEngine engine = engine(chatModel, Duration.ofMillis(50));
+
+        List<Long> first = engine.recommend(7L, DATE).block().stream().map(pick -> pick.dish().getId()).toList();
+        List<Long> second = engine.recommend(7L, DATE).block().stream().map(pick -> pick.dish().getId()).toList();
+
+        assertThat(first).hasSize(8).doesNotHaveDuplicates().isEqualTo(second);
+    }
+
+    @Test
+    void shouldListOnlyCandidateIds_whenProfileExcludesDishes() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("{\"picks\":[]}"));
+        RecommendationEngine engine = engine(chatModel, Duration.ofSeconds(5));
+        when(dishLibraryRepository.findAllActive()).thenReturn(Flux.fromStream(LongStream.rangeClosed(1, 4)
+                .mapToObj(id -> new DishLibrary(id, "Dish " + id, "veggie_mixed", 2, 5, 10, 2,
+                        new DishIngredients(List.of(new Ingredient(id % 2 == 0 ? "花生" : "番茄", 100.0, null))),
+                        DishSteps.EMPTY, "Fiber", null, true, null))));
+        UserProfile profile = new UserProfile();
+        profile.setCustomAvoidedIngredients("花生");
+        when(userProfileRepository.findByUserId(7L)).thenReturn(Mono.just(profile));
+
+        StepVerifier.create(engine.recommend(7L, DATE))
+                .assertNext(picks -> assertThat(picks).extracting(pick -> pick.dish().getId())
+                        .containsOnly(1L, 3L))
+                .verifyComplete();
+
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(prompt.capture());
+        assertThat(prompt.getValue().getUserMessage().getText())
+                .contains("Only pick these ids: 1,3\n")
+                .doesNotContain("Never pick");
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(
+                new Generation(new AssistantMessage(text))));
+    }
+}
@@ -0,0 +1,74 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.config.SessionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionNearCacheTest {
+
+    private static SessionNearCache cache(Duration ttl, int maxSize) {
+        SessionProperties properties = new SessionProperties();
+        properties.setNearCacheTtl(ttl);
+        properties.setNearCacheMaxSize(maxSize);
+        return new SessionNearCache(properties);
+    }
+
+    @Test
+    void shouldReturnCachedUserIdUntilEvicted() {
+        SessionNearCache cache = cache(Duration.ofMinutes(1), 100);
+        cache.put("jti-1", SessionPrincipal.ofUserId(7L));
+        cache.put("jti-2", SessionPrincipal.ofUserId(7L));
+        cache.put("jti-3", SessionPrincipal.ofUserId(8L));
+
+        assertThat(cache.get("jti-1").userId()).isEqualTo(7L);
+
+        cache.evictUser(7L);
+
+        assertThat(cache.get("jti-1")).isNull();
+        assertThat(cache.get("jti-2")).isNull();
+        assertThat(cache.get("jti-3").userId()).isEqualTo(8L);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() throws InterruptedException {
+        SessionNearCache cache = cache(Duration.ofMillis(20), 100);
+        cache.put("jti-1", SessionPrincipal.ofUserId(7L));
+
+        Thread.sleep(40);
+
+        assertThat(cache.get("jti-1")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldStayWithinMaxSize() {
+        SessionNearCache cache = cache(Duration.ofMinutes(1), 10);
+        for (long i = 0; i < 50; i++) {
+            cache.put("jti-" + i, SessionPrincipal.ofUserId(i));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void shouldNotRepopulateRevokedUser_whenReadStartedBeforeEviction() {
+        SessionNearCache cache = cache(Duration.ofMinutes(1), 100);
+        long beforeRevoke = cache.stamp();
+
+        cache.evictUser(7L);
+        cache.put("jti-1", SessionPrincipal.ofUserId(7L), beforeRevoke);
+        cache.put("jti-2", SessionPrincipal.ofUserId(8L), beforeRevoke);
+
+        assertThat(cache.get("jti-1")).isNull();
+        assertThat(cache.get("jti-2").userId()).isEqualTo(8L);
+
+        cache.put("jti-3", SessionPrincipal.ofUserId(7L), cache.stamp());
+
+        assertThat(cache.get("jti-3").userId()).isEqualTo(7L);
+    }
+}
@@ -0,0 +1,122 @@
+package cn.cuckoox.wisediet.service;
+
+import cn.cuckoox.wisediet.model.Dish;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
+import cn.cuckoox.wisediet.model.Ingredient;
+import cn.cuckoox.wisediet.model.ShoppingItem;
+import cn.cuckoox.wisediet.model.UserProfile;
+import cn.cuckoox.wisediet.repository.DishLibraryRepository;
+import cn.cuckoox.wisediet.repository.DishRepository;
+import cn.cuckoox.wisediet.repository.MealPlanRepository;
+import cn.cuckoox.wisediet.repository.ShoppingListRepository;
+import cn.cuckoox.wisediet.repository.UserProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShoppingListServiceTest {
+
+    @Mock
+    private DishRepository dishRepository;
+    @Mock
+    private DishLibraryRepository dishLibraryRepository;
+    @Mock
+    private UserProfileRepository userProfileRepository;
+    @Mock
+    private MealPlanRepository mealPlanRepository;
+    @Mock
+    private ShoppingListRepository shoppingListRepository;
+
+    private static DishLibrary recipe(long id, int servings, Ingredient... ingredients) {
+        return new DishLibrary(id, "Dish " + id, "veggie_mixed", 2, 5, 10, servings,
+                new DishIngredients(List.of(ingredients)), DishSteps.EMPTY, null, null, true, null);
+    }
+
+    @Test
+    void shouldScaleByFamilyMembersAndMergeSameIngredient() {
+        List<ShoppingListService.Line> lines = new ArrayList<>();
+        lines.addAll(ShoppingListService.lines(recipe(1, 2,
+                new Ingredient("Tomato", 200.0, "Produce"),
+                new Ingredient("Salt", null, null)), 3));
+        lines.addAll(ShoppingListService.lines(recipe(2, 4,
+                new Ingredient(" tomato ", 100.0, "produce"),
+                new Ingredient("salt", null, null)), 3));
+
+        assertThat(lines).extracting(ShoppingListService.Line::aisle)
+                .containsExactly("produce", "other", "produce", "other");
+
+        List<ShoppingItem> produce = ShoppingListService.merge(lines.stream().filter(l -> l.aisle().equals("produce")).toList());
+        assertThat(produce).containsExactly(new ShoppingItem("Tomato", "g", 375.0));
+
+        List<ShoppingItem> other = ShoppingListService.merge(lines.stream().filter(l -> l.aisle().equals("other")).toList());
+        assertThat(other).containsExactly(new ShoppingItem("Salt", null, null));
+    }
+
+    @Test
+    void shouldKeepRecipeQuantitiesWithoutFamilySize() {
+        assertThat(ShoppingListService.lines(recipe(1, 2, new Ingredient("Rice", 150.0, "staples")), 0))
+                .containsExactly(new ShoppingListService.Line("staples", "Rice", "g", 150.0));
+    }
+
+    @Test
+    void shouldScaleNonGramUnitsInTheirOwnUnit() {
+        List<ShoppingListService.Line> lines = ShoppingListService.lines(recipe(1, 2,
+                new Ingredient("Egg", null, 2.0, "个", "dairy"),
+                new Ingredient("Soy sauce", null, 1.0, "tbsp", "dairy"),
+                new Ingredient("Pepper", null, null, "适量", "dairy")), 3);
+
+        assertThat(ShoppingListService.merge(lines)).containsExactly(
+                new ShoppingItem("Egg", "个", 3.0),
+                new ShoppingItem("Pepper", "适量", null),
+                new ShoppingItem("Soy sauce", "tbsp", 1.5));
+    }
+
+    @Test
+    void shouldWriteOneAislePerGroupThenMarkReady() {
+        ShoppingListService service = new ShoppingListService(dishRepository, dishLibraryRepository,
+                userProfileRepository, mealPlanRepository, shoppingListRepository, JsonMapper.builder().build());
+        UserProfile profile = new UserProfile();
+        profile.setFamilyMembers(2);
+        when(userProfileRepository.findByUserId(8L)).thenReturn(Mono.just(profile));
+        when(shoppingListRepository.reset(100L)).thenReturn(Mono.just(3L));
+        when(dishRepository.findByMealPlanId(100L)).thenReturn(Flux.just(
+                new Dish(1L, 100L, "A", null, null, 1, 5, 5, null, true, "lunch", 11L),
+                new Dish(2L, 100L, "B", null, null, 1, 5, 5, null, false, "dinner", 12L),
+                new Dish(3L, 100L, "C", null, null, 1, 5, 5, null, true, "snack", null)));
+        when(dishLibraryRepository.findAllById(List.of(11L))).thenReturn(Flux.just(recipe(11, 1,
+                new Ingredient("Beef", 150.0, "meat"),
+                new Ingredient("Onion", 50.0, "produce"))));
+        when(shoppingListRepository.putAisle(eq(100L), eq(3L), anyString(), anyString())).thenReturn(Mono.just(1));
+        when(shoppingListRepository.markReady(100L, 3L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.rebuild(100L, 8L)).verifyComplete();
+
+        ArgumentCaptor<String> items = ArgumentCaptor.forClass(String.class);
+        verify(shoppingListRepository, times(1)).putAisle(eq(100L), eq(3L), eq("meat"), items.capture());
+        assertThat(items.getValue()).isEqualTo("[{\"name\":\"Beef\",\"unit\":\"g\",\"quantity\":300.0}]");
+        verify(shoppingListRepository, times(1)).putAisle(eq(100L), eq(3L), eq("produce"), anyString());
+        var order = inOrder(shoppingListRepository);
+        order.verify(shoppingListRepository).reset(100L);
+        order.verify(shoppingListRepository).markReady(100L, 3L);
+    }
+}
@@ -0,0 +1,40 @@
+package cn.cuckoox.wisediet.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.MessageSource;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StrategyReportRendererTest {
+
+    @Test
+    void shouldResolveMessagesOncePerLocaleAndPatchDate() {
+        MessageSource messageSource = mock(MessageSource.class);
+        when(messageSource.getMessage(anyString(), isNull(), any(Locale.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "@" + invocation.getArgument(2));
+        StrategyReportRenderer renderer = new StrategyReportRenderer(messageSource);
+
+        Map<String, Object> first = renderer.render(Locale.ENGLISH, LocalDate.of(2026, 1, 1));
+        Map<String, Object> second = renderer.render(Locale.ENGLISH, LocalDate.of(2026, 1, 2));
+        Map<String, Object> chinese = renderer.render(Locale.SIMPLIFIED_CHINESE, LocalDate.of(2026, 1, 2));
+
+        assertThat(first.get("date")).isEqualTo("2026-01-01");
+        assertThat(second.get("date")).isEqualTo("2026-01-02");
+        assertThat(second.get("title")).isEqualTo("onboarding.strategy.title@en");
+        assertThat(chinese.get("title")).isEqualTo("onboarding.strategy.title@zh_CN");
+        assertThat((Map<?, ?>) second.get("preferences")).hasSize(4);
+        verify(messageSource, times(1)).getMessage(eq("onboarding.strategy.title"), isNull(), eq(Locale.ENGLISH));
+    }
+}
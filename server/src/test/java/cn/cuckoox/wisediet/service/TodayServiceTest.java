@@ -1,29 +1,41 @@
 package cn.cuckoox.wisediet.service;
 
 import cn.cuckoox.wisediet.controller.dto.MealPlanResponse;
+import cn.cuckoox.wisediet.controller.dto.PlanEvent;
 import cn.cuckoox.wisediet.model.Dish;
+import cn.cuckoox.wisediet.model.DishIngredients;
+import cn.cuckoox.wisediet.model.DishLibrary;
+import cn.cuckoox.wisediet.model.DishSteps;
 import cn.cuckoox.wisediet.model.MealPlan;
 import cn.cuckoox.wisediet.repository.DishRepository;
 import cn.cuckoox.wisediet.repository.MealPlanRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,24 +45,40 @@ class TodayServiceTest {
     private MealPlanRepository mealPlanRepository;
     @Mock
     private DishRepository dishRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private RecommendationEngine recommendationEngine;
+    @Mock
+    private ShoppingListService shoppingListService;
+    @Mock
+    private NutritionHistoryService nutritionHistoryService;
+
+    private TodayService newService() {
+        lenient().when(transactionalOperator.transactional(ArgumentMatchers.<Mono<MealPlanResponse>>any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(recommendationEngine.recommend(any(), any(LocalDate.class), any()))
+                .thenReturn(Mono.empty());
+        return new TodayService(mealPlanRepository, dishRepository, transactionalOperator, recommendationEngine,
+                shoppingListService, nutritionHistoryService);
+    }
 
     @Test
     void shouldCreateMockPlanWithFourMealTypesAndNutritionMetadata() {
-        TodayService service = new TodayService(mealPlanRepository, dishRepository);
+        TodayService service = newService();
         MealPlan savedPlan = new MealPlan(100L, 8L, LocalDate.now(), "pending");
 
         when(mealPlanRepository.findByUserIdAndDate(eq(8L), any(LocalDate.class))).thenReturn(Mono.empty());
-        when(mealPlanRepository.save(any(MealPlan.class))).thenReturn(Mono.just(savedPlan));
+        when(mealPlanRepository.insertIfAbsent(eq(8L), any(LocalDate.class), eq("pending"))).thenReturn(Mono.just(savedPlan));
 
-        ArgumentCaptor<Dish> createdDish = ArgumentCaptor.forClass(Dish.class);
-        when(dishRepository.save(createdDish.capture())).thenAnswer(invocation -> {
-            Dish dish = invocation.getArgument(0);
-            dish.setId((long) createdDish.getAllValues().size());
-            return Mono.just(dish);
+        when(dishRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Dish> dishes = invocation.getArgument(0);
+            for (int i = 0; i < dishes.size(); i++) {
+                dishes.get(i).setId((long) i + 1);
+            }
+            return Flux.fromIterable(dishes);
         });
 
-        when(dishRepository.findByMealPlanId(anyLong())).thenAnswer(invocation -> Flux.fromIterable(createdDish.getAllValues()));
-
         Mono<MealPlanResponse> responseMono = service.getOrCreateTodayPlan(8L);
 
         StepVerifier.create(responseMono)
@@ -67,4 +95,182 @@ class TodayServiceTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void shouldCopyLibraryDishesWithoutImageUrl() {
+        TodayService service = newService();
+        MealPlan savedPlan = new MealPlan(120L, 8L, LocalDate.now(), "pending");
+        DishLibrary library = new DishLibrary(7L, "番茄炒蛋", "egg", 1, 5, 8, 2,
+                DishIngredients.EMPTY, DishSteps.EMPTY, "High Protein", null, true, null);
+
+        when(recommendationEngine.recommend(eq(8L), any(LocalDate.class), any())).thenReturn(Mono.just(List.of(
+                new RecommendationEngine.Pick(library, "breakfast", "Quick protein"))));
+        when(mealPlanRepository.findByUserIdAndDate(eq(8L), any(LocalDate.class))).thenReturn(Mono.empty());
+        when(mealPlanRepository.insertIfAbsent(eq(8L), any(LocalDate.class), eq("pending"))).thenReturn(Mono.just(savedPlan));
+        when(dishRepository.insertAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        StepVerifier.create(service.getOrCreateTodayPlan(8L))
+                .assertNext(response -> assertThat(response.dishes()).singleElement().satisfies(dish -> {
+                    assertThat(dish.getName()).isEqualTo("番茄炒蛋");
+                    assertThat(dish.getImageUrl()).isNull();
+                    assertThat(dish.getDishLibraryId()).isEqualTo(7L);
+                    assertThat(dish.getMealType()).isEqualTo("breakfast");
+                }))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotFallBackToMockDishes_whenRestrictionsExcludeEveryDish() {
+        TodayService service = newService();
+        MealPlan savedPlan = new MealPlan(110L, 8L, LocalDate.now(), "pending");
+
+        when(recommendationEngine.recommend(eq(8L), any(LocalDate.class), any())).thenReturn(Mono.just(List.of()));
+        when(mealPlanRepository.findByUserIdAndDate(eq(8L), any(LocalDate.class))).thenReturn(Mono.empty());
+        when(mealPlanRepository.insertIfAbsent(eq(8L), any(LocalDate.class), eq("pending"))).thenReturn(Mono.just(savedPlan));
+        when(dishRepository.insertAll(anyList())).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.getOrCreateTodayPlan(8L))
+                .assertNext(response -> {
+                    assertThat(response.id()).isEqualTo(110L);
+                    assertThat(response.dishes()).isEmpty();
+                })
+                .verifyComplete();
+
+        verify(dishRepository).insertAll(List.of());
+    }
+
+    @Test
+    void shouldReadWinningPlanWhenInsertConflicts() {
+        TodayService service = newService();
+        MealPlan winner = new MealPlan(200L, 8L, LocalDate.now(), "pending");
+
+        when(mealPlanRepository.findByUserIdAndDate(eq(8L), any(LocalDate.class)))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(winner));
+        when(mealPlanRepository.insertIfAbsent(eq(8L), any(LocalDate.class), eq("pending"))).thenReturn(Mono.empty());
+        when(dishRepository.findByMealPlanId(200L)).thenReturn(Flux.just(
+                new Dish(1L, 200L, "A", null, null, 1, 5, 5, null, false, "breakfast", null)));
+
+        StepVerifier.create(service.getOrCreateTodayPlan(8L))
+                .assertNext(response -> {
+                    assertThat(response.id()).isEqualTo(200L);
+                    assertThat(response.dishes()).hasSize(1);
+                })
+                .verifyComplete();
+
+        verify(dishRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void shouldShareInFlightRequestForSameUser() {
+        TodayService service = newService();
+        MealPlan plan = new MealPlan(300L, 9L, LocalDate.now(), "pending");
+        Sinks.One<MealPlan> pending = Sinks.one();
+
+        when(mealPlanRepository.findByUserIdAndDate(eq(9L), any(LocalDate.class))).thenReturn(pending.asMono());
+        when(dishRepository.findByMealPlanId(300L)).thenReturn(Flux.empty());
+
+        CompletableFuture<MealPlanResponse> first = service.getOrCreateTodayPlan(9L).toFuture();
+        CompletableFuture<MealPlanResponse> second = service.getOrCreateTodayPlan(9L).toFuture();
+        pending.tryEmitValue(plan);
+
+        assertThat(first.join().id()).isEqualTo(300L);
+        assertThat(second.join().id()).isEqualTo(300L);
+        verify(mealPlanRepository, times(1)).findByUserIdAndDate(eq(9L), any(LocalDate.class));
+    }
+
+    @Test
+    void shouldStreamPlanProgressOnceForConcurrentSubscribers() {
+        TodayService service = newService();
+        MealPlan plan = new MealPlan(400L, 10L, LocalDate.now(), "pending");
+        Sinks.One<MealPlan> pending = Sinks.one();
+
+        when(mealPlanRepository.findByUserIdAndDate(eq(10L), any(LocalDate.class))).thenReturn(pending.asMono());
+        when(dishRepository.findByMealPlanId(400L)).thenReturn(Flux.just(
+                new Dish(1L, 400L, "A", null, null, 1, 5, 5, null, false, "breakfast", null),
+                new Dish(2L, 400L, "B", null, null, 1, 5, 5, null, false, "dinner", null)));
+
+        CompletableFuture<List<PlanEvent>> first = service.streamTodayPlan(10L).collectList().toFuture();
+        CompletableFuture<List<PlanEvent>> second = service.streamTodayPlan(10L).collectList().toFuture();
+        pending.tryEmitValue(plan);
+
+        for (List<PlanEvent> events : List.of(first.join(), second.join())) {
+            assertThat(events).extracting(PlanEvent::type).containsExactly("status", "dish", "dish", "status");
+            assertThat(events.get(0).status()).isEqualTo(PlanEvent.PENDING);
+            assertThat(events.get(3).status()).isEqualTo(PlanEvent.READY);
+            assertThat(events.get(3).mealPlanId()).isEqualTo(400L);
+        }
+        verify(mealPlanRepository, times(1)).findByUserIdAndDate(eq(10L), any(LocalDate.class));
+    }
+
+    @Test
+    void shouldStreamPicksBeforePlanIsPersisted() {
+        TodayService service = newService();
+        MealPlan savedPlan = new MealPlan(500L, 11L, LocalDate.now(), "pending");
+        DishLibrary first = new DishLibrary(1L, "燕麦粥", "staple_other", 1, 5, 5, 1,
+                DishIngredients.EMPTY, DishSteps.EMPTY, null, null, true, null);
+        DishLibrary second = new DishLibrary(2L, "清炒时蔬", "veggie_leafy", 1, 5, 5, 1,
+                DishIngredients.EMPTY, DishSteps.EMPTY, null, null, true, null);
+        Sinks.One<MealPlan> inserted = Sinks.one();
+
+        when(recommendationEngine.recommend(eq(11L), any(LocalDate.class), any())).thenAnswer(invocation -> {
+            Consumer<RecommendationEngine.Pick> onPick = invocation.getArgument(2);
+            List<RecommendationEngine.Pick> picks = List.of(
+                    new RecommendationEngine.Pick(first, "breakfast", "Warm start"),
+                    new RecommendationEngine.Pick(second, "dinner", "Light dinner"));
+            return Mono.fromSupplier(() -> {
+                picks.forEach(onPick);
+                return picks;
+            });
+        });
+        when(mealPlanRepository.findByUserIdAndDate(eq(11L), any(LocalDate.class))).thenReturn(Mono.empty());
+        when(mealPlanRepository.insertIfAbsent(eq(11L), any(LocalDate.class), eq("pending"))).thenReturn(inserted.asMono());
+        when(dishRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Dish> dishes = invocation.getArgument(0);
+            for (int i = 0; i < dishes.size(); i++) {
+                dishes.get(i).setId((long) i + 1);
+            }
+            return Flux.fromIterable(dishes);
+        });
+
+        StepVerifier.create(service.streamTodayPlan(11L))
+                .assertNext(event -> assertThat(event.status()).isEqualTo(PlanEvent.PENDING))
+                .assertNext(event -> {
+                    assertThat(event.dish().getName()).isEqualTo("燕麦粥");
+                    assertThat(event.dish().getId()).isNull();
+                    assertThat(event.mealPlanId()).isNull();
+                })
+                .assertNext(event -> assertThat(event.dish().getMealType()).isEqualTo("dinner"))
+                .then(() -> inserted.tryEmitValue(savedPlan))
+                .assertNext(event -> {
+                    assertThat(event.status()).isEqualTo(PlanEvent.READY);
+                    assertThat(event.mealPlanId()).isEqualTo(500L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldConfirmMenuWithSingleSelectionUpdate() {
+        TodayService service = newService();
+        MealPlan plan = new MealPlan(100L, 8L, LocalDate.now(), "pending");
+        List<Long> chosen = List.of(1L, 3L);
+
+        when(mealPlanRepository.findByUserIdAndDate(eq(8L), any(LocalDate.class))).thenReturn(Mono.just(plan));
+        when(mealPlanRepository.save(any(MealPlan.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(nutritionHistoryService.refreshPlan(100L)).thenReturn(Mono.empty());
+        when(dishRepository.updateSelection(100L, chosen)).thenReturn(Flux.just(
+                new Dish(1L, 100L, "A", null, null, 1, 5, 5, null, true, "breakfast", null),
+                new Dish(2L, 100L, "B", null, null, 1, 5, 5, null, false, "lunch", null),
+                new Dish(3L, 100L, "C", null, null, 1, 5, 5, null, true, "dinner", null)));
+
+        StepVerifier.create(service.confirmMenu(8L, chosen))
+                .assertNext(response -> {
+                    assertThat(response.status()).isEqualTo("confirmed");
+                    assertThat(response.dishes()).extracting(Dish::getSelected).containsExactly(true, false, true);
+                })
+                .verifyComplete();
+
+        verify(dishRepository, never()).save(any(Dish.class));
+        verify(shoppingListService).refreshAsync(100L, 8L);
+    }
 }